@@ -2,6 +2,7 @@ package com.markdownviewer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 마크다운 뷰어 백엔드 애플리케이션
@@ -10,6 +11,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @see docs/40_frontend/41_CODING_CONVENTIONS.md - 백엔드 코딩 규약
  */
 @SpringBootApplication
+@EnableScheduling
 public class MarkdownViewerApplication {
 
     public static void main(String[] args) {
@@ -1,16 +1,22 @@
 package com.markdownviewer.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.markdownviewer.repository.FileMetadataSummary;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -19,32 +25,88 @@ import java.util.List;
 
 /**
  * 캐시 설정
- * - Redis 사용 시: RedisCacheManager (REDIS_ENABLED=true, Redis 자동구성 활성화 시)
- * - Redis 미사용 시: ConcurrentMapCacheManager (기본)
+ * - Redis 사용 시: 2단 캐시 (L1 Caffeine 짧은 TTL + L2 RedisCacheManager, REDIS_ENABLED=true, Redis 자동구성 활성화 시)
+ *   L2 값은 메타데이터 전용 바이너리 형식 ({@link MetadataRedisSerializer})
+ *   저장/제거는 Redis pub/sub으로 다른 노드의 L1 무효화 → 조회는 대부분 프로세스 내에서 처리
+ * - Redis 미사용 시: Caffeine 로컬 캐시 (기본)
+ *   W-TinyLFU 제거, 캐시별 TTL·최대 가중치(app.cache.local), 통계 기록
+ *   → Actuator가 시작 시 캐시 통계(cache.gets/puts/evictions 등)를 Micrometer에 등록
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    /** 캐시 이름 (FileService#getMetadata) */
+    public static final String FILE_METADATA = "fileMetadata";
+
     @Bean
     @Primary
     @ConditionalOnBean(RedisConnectionFactory.class)
-    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                                  StringRedisTemplate redisTemplate,
+                                                  LocalCacheProperties properties) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
-        return RedisCacheManager.builder(connectionFactory)
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new MetadataRedisSerializer()));
+        RedisCacheManager redis = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
                 .build();
+        redis.afterPropertiesSet();
+        return new TwoLevelCacheManager(redis,
+                caffeine(properties.getNearTtl(), properties.getNearMaximumWeight()), redisTemplate);
+    }
+
+    /** Redis pub/sub 구독 컨테이너 (다른 노드의 캐시 변경 통지 → L1 무효화, 블랙리스트 통지 등 공용) */
+    @Bean
+    @ConditionalOnBean(RedisConnectionFactory.class)
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TwoLevelCacheManager redisCacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(redisCacheManager, new ChannelTopic(TwoLevelCacheManager.CHANNEL));
+        return container;
     }
 
     @Bean
     @ConditionalOnMissingBean(RedisConnectionFactory.class)
-    public CacheManager inMemoryCacheManager() {
-        org.springframework.cache.concurrent.ConcurrentMapCacheManager manager =
-                new org.springframework.cache.concurrent.ConcurrentMapCacheManager();
-        manager.setCacheNames(List.of("fileMetadata"));
+    public CacheManager inMemoryCacheManager(LocalCacheProperties properties) {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        // 이름을 미리 알 수 없는 캐시도 기본 TTL·가중치로 제한
+        manager.setCaffeine(caffeine(properties.getDefaultTtl(), properties.getDefaultMaximumWeight()));
+        for (String name : List.of(FILE_METADATA)) {
+            LocalCacheProperties.Spec spec = properties.getCaches().get(name);
+            Duration ttl = spec != null && spec.getTtl() != null ? spec.getTtl() : properties.getDefaultTtl();
+            long maximumWeight = spec != null && spec.getMaximumWeight() != null
+                    ? spec.getMaximumWeight() : properties.getDefaultMaximumWeight();
+            manager.registerCustomCache(name, caffeine(ttl, maximumWeight).build());
+        }
         return manager;
     }
+
+    private static Caffeine<Object, Object> caffeine(Duration ttl, long maximumWeight) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maximumWeight)
+                .weigher((Object key, Object value) -> weigh(key, value))
+                .recordStats();
+    }
+
+    /** 항목 크기 추정 (바이트, Java String 1자 = 2바이트) */
+    private static int weigh(Object key, Object value) {
+        int weight = 64 + (key instanceof String s ? s.length() * 2 : 16);
+        if (value instanceof Cache.ValueWrapper wrapper) {
+            value = wrapper.get(); // 2단 캐시 L1 항목
+        }
+        if (value instanceof FileMetadataSummary f) {
+            weight += 96 + 2 * (length(f.getFilePath()) + length(f.getFileName()));
+        } else {
+            weight += 256;
+        }
+        return weight;
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : 0;
+    }
 }
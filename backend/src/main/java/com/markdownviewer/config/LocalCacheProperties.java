@@ -0,0 +1,64 @@
+package com.markdownviewer.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 로컬(프로세스 내) 캐시 설정 Properties
+ * 캐시 이름별 TTL·최대 가중치(추정 바이트), 설정이 없는 캐시는 기본값 사용
+ * Redis 사용 시에는 2단 캐시의 L1 설정(near-*)만 사용
+ *
+ * @see CacheConfig
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.cache.local")
+@Getter
+@Setter
+public class LocalCacheProperties {
+
+    /**
+     * 설정이 없는 캐시의 기본 TTL
+     */
+    private Duration defaultTtl = Duration.ofMinutes(10);
+
+    /**
+     * 설정이 없는 캐시의 기본 최대 가중치 (추정 바이트)
+     */
+    private long defaultMaximumWeight = 16L * 1024 * 1024;
+
+    /**
+     * Redis 사용 시 앞단(L1) 캐시 TTL. 다른 노드 무효화 통지가 유실돼도 이 시간 안에 정리
+     */
+    private Duration nearTtl = Duration.ofSeconds(30);
+
+    /**
+     * Redis 사용 시 앞단(L1) 캐시 최대 가중치 (추정 바이트, 캐시별)
+     */
+    private long nearMaximumWeight = 8L * 1024 * 1024;
+
+    /**
+     * 캐시 이름 -> 개별 설정
+     */
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Spec {
+
+        /**
+         * 쓰기 후 만료 시간
+         */
+        private Duration ttl;
+
+        /**
+         * 최대 가중치 (추정 바이트)
+         */
+        private Long maximumWeight;
+    }
+}
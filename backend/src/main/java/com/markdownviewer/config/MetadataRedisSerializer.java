@@ -0,0 +1,158 @@
+package com.markdownviewer.config;
+
+import com.markdownviewer.repository.FileMetadataSummary;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Redis 캐시 값 직렬화 (파일 메타데이터 전용 바이너리 형식)
+ * - 첫 바이트는 형식/스키마 버전: {@value #FORMAT_SUMMARY_V1} = FileMetadataSummary v1, {@value #FORMAT_JSON} = 그 밖의 값(JSON)
+ * - v1: 널 여부 플래그 1바이트 + id·크기(가변 길이 정수) + 경로·이름(길이 + UTF-8) + 수정 시각(초·나노)
+ * - 모르는 버전은 null로 읽어 캐시 미스로 처리 (배포 중 구·신 버전 노드 혼재 시에도 안전)
+ */
+public class MetadataRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte FORMAT_SUMMARY_V1 = 1;
+    static final byte FORMAT_JSON = 'J';
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_PATH = 1 << 1;
+    private static final int HAS_NAME = 1 << 2;
+    private static final int HAS_SIZE = 1 << 3;
+    private static final int HAS_ENCRYPTED = 1 << 4;
+    private static final int ENCRYPTED = 1 << 5;
+    private static final int HAS_LAST_MODIFIED = 1 << 6;
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof FileMetadataSummary f) {
+            return encode(f);
+        }
+        byte[] body = json.serialize(value);
+        byte[] out = new byte[body.length + 1];
+        out[0] = FORMAT_JSON;
+        System.arraycopy(body, 0, out, 1, body.length);
+        return out;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return switch (bytes[0]) {
+            case FORMAT_SUMMARY_V1 -> decode(bytes);
+            case FORMAT_JSON -> json.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+            default -> null;
+        };
+    }
+
+    private static byte[] encode(FileMetadataSummary f) {
+        int flags = (f.getId() != null ? HAS_ID : 0)
+                | (f.getFilePath() != null ? HAS_PATH : 0)
+                | (f.getFileName() != null ? HAS_NAME : 0)
+                | (f.getFileSize() != null ? HAS_SIZE : 0)
+                | (f.getEncrypted() != null ? HAS_ENCRYPTED : 0)
+                | (Boolean.TRUE.equals(f.getEncrypted()) ? ENCRYPTED : 0)
+                | (f.getLastModified() != null ? HAS_LAST_MODIFIED : 0);
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(32 + 3 * (length(f.getFilePath()) + length(f.getFileName())));
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            out.writeByte(FORMAT_SUMMARY_V1);
+            out.writeByte(flags);
+            if (f.getId() != null) {
+                writeVarLong(out, f.getId());
+            }
+            if (f.getFilePath() != null) {
+                writeString(out, f.getFilePath());
+            }
+            if (f.getFileName() != null) {
+                writeString(out, f.getFileName());
+            }
+            if (f.getFileSize() != null) {
+                writeVarLong(out, f.getFileSize());
+            }
+            if (f.getLastModified() != null) {
+                writeVarLong(out, f.getLastModified().toEpochSecond(ZoneOffset.UTC));
+                writeVarLong(out, f.getLastModified().getNano());
+            }
+        } catch (IOException e) {
+            throw new SerializationException("메타데이터 직렬화 실패", e);
+        }
+        return buf.toByteArray();
+    }
+
+    private static FileMetadataSummary decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+            int flags = in.readUnsignedByte();
+            Long id = (flags & HAS_ID) != 0 ? readVarLong(in) : null;
+            String path = (flags & HAS_PATH) != 0 ? readString(in) : null;
+            String name = (flags & HAS_NAME) != 0 ? readString(in) : null;
+            Long size = (flags & HAS_SIZE) != 0 ? readVarLong(in) : null;
+            Boolean encrypted = (flags & HAS_ENCRYPTED) != 0 ? (flags & ENCRYPTED) != 0 : null;
+            LocalDateTime lastModified = null;
+            if ((flags & HAS_LAST_MODIFIED) != 0) {
+                long seconds = readVarLong(in);
+                lastModified = LocalDateTime.ofEpochSecond(seconds, (int) readVarLong(in), ZoneOffset.UTC);
+            }
+            return new FileMetadataSummary(id, path, name, size, encrypted, lastModified);
+        } catch (IOException e) {
+            throw new SerializationException("메타데이터 역직렬화 실패", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] b = new byte[(int) readVarLong(in)];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /** 지그재그 가변 길이 정수 (작은 값·음수 모두 짧게) */
+    private static void writeVarLong(OutputStream out, long v) throws IOException {
+        long z = (v << 1) ^ (v >> 63);
+        while ((z & ~0x7FL) != 0) {
+            out.write((int) ((z & 0x7F) | 0x80));
+            z >>>= 7;
+        }
+        out.write((int) z);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long z = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("unexpected end of data");
+            }
+            z |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (z >>> 1) ^ -(z & 1);
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : 0;
+    }
+}
@@ -132,8 +132,12 @@ public class SecurityConfig {
             "http://localhost:5173",
             "http://127.0.0.1:5173"
         )); // 프론트엔드 URL (Vite 기본 5173, CRA 3000)
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of(
+            "Content-Range", "Accept-Ranges", "Content-Length",
+            "X-Encrypted", "X-Encryption-IV", "X-Encryption-Tag"
+        )); // GET /files/{path}/raw
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,122 @@
+package com.markdownviewer.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 2단 캐시 (L1: 프로세스 내 Caffeine, L2: Redis)
+ * - 조회: L1 → L2 순, L2 적중 시 L1에 채움
+ * - 저장/제거: L2 반영 후 L1 반영, 다른 노드의 L1은 {@link TwoLevelCacheManager}가 pub/sub으로 무효화
+ * - 조회 실패 후 채움(@Cacheable 미스의 put, get(key, loader))은 통지하지 않음 → 한 노드의 콜드 조회가 다른 노드 L1을 비우지 않음.
+ *   put은 L2에 값이 없을 때만 채움으로 보고(putIfAbsent), 이미 있던 값을 바꾸는 쓰기(@CachePut)만 통지
+ * - L1 TTL은 짧게 두어 무효화 메시지 유실 시에도 오래된 값이 오래 남지 않음
+ */
+public class TwoLevelCache implements Cache {
+
+    /** 다른 노드 L1 무효화 통지 (key == null이면 전체) */
+    interface InvalidationPublisher {
+        void publish(String cacheName, Object key);
+    }
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> local;
+    private final Cache remote;
+    private final InvalidationPublisher publisher;
+
+    TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> local,
+                  Cache remote, InvalidationPublisher publisher) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = local.getIfPresent(key);
+        if (wrapper != null) {
+            return wrapper;
+        }
+        wrapper = remote.get(key);
+        if (wrapper != null) {
+            local.put(key, new SimpleValueWrapper(wrapper.get()));
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        if (existing != null) {
+            // 기존 값 덮어쓰기 → 다른 노드 L1의 이전 값 무효화
+            remote.put(key, value);
+            local.put(key, new SimpleValueWrapper(value));
+            publisher.publish(name, key);
+            return;
+        }
+        local.put(key, new SimpleValueWrapper(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(key);
+        publisher.publish(name, key);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        publisher.publish(name, null);
+    }
+
+    /** 다른 노드의 변경 통지 수신 시 L1만 제거 */
+    void evictLocal(Object key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.markdownviewer.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * L1(Caffeine) + L2(Redis) 2단 캐시 매니저
+ * 저장/제거 시 Redis 채널({@value #CHANNEL})로 "노드ID\n캐시명\n키"를 발행하고,
+ * 다른 노드는 수신한 키의 L1 항목만 제거 (자기 노드 메시지는 무시)
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    public static final String CHANNEL = "cache:invalidate";
+
+    /** 전체 제거 표식 (키 자리에 사용) */
+    private static final String CLEAR = "\u0000";
+
+    private final CacheManager remote;
+    private final Caffeine<Object, Object> localSpec;
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote, Caffeine<Object, Object> localSpec,
+                                StringRedisTemplate redisTemplate) {
+        this.remote = remote;
+        this.localSpec = localSpec;
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> {
+            Cache remoteCache = remote.getCache(n);
+            return remoteCache == null ? null : new TwoLevelCache(n, localSpec.build(), remoteCache, this::publish);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.evictLocal(CLEAR.equals(parts[2]) ? null : parts[2]);
+        }
+    }
+
+    private void publish(String cacheName, Object key) {
+        String body = nodeId + "\n" + cacheName + "\n" + (key == null ? CLEAR : key.toString());
+        try {
+            redisTemplate.convertAndSend(CHANNEL, body);
+        } catch (RuntimeException e) {
+            // 통지 실패 시 다른 노드 L1은 TTL 만료로 정리
+            log.warn("캐시 무효화 통지 실패: cache={}, key={}", cacheName, key, e);
+        }
+    }
+}
@@ -1,23 +1,32 @@
 package com.markdownviewer.controller;
 
 import com.markdownviewer.config.JwtAuthenticationFilter;
+import com.markdownviewer.dto.request.FilePatchRequest;
 import com.markdownviewer.dto.request.FileSaveRequest;
 import com.markdownviewer.dto.response.ApiResponse;
 import com.markdownviewer.dto.response.FileResponse;
 import com.markdownviewer.entity.FileMetadata;
 import com.markdownviewer.entity.User;
+import com.markdownviewer.repository.FileMetadataSummary;
 import com.markdownviewer.service.AuthService;
+import com.markdownviewer.service.CompressedContentCache;
 import com.markdownviewer.service.FileService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
@@ -35,29 +44,47 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FileController {
 
+    private static final MediaType RAW_MARKDOWN = new MediaType("text", "markdown", StandardCharsets.UTF_8);
+    private static final String HEADER_ENCRYPTED = "X-Encrypted";
+    private static final String HEADER_ENCRYPTION_IV = "X-Encryption-IV";      // Base64
+    private static final String HEADER_ENCRYPTION_TAG = "X-Encryption-Tag";    // Base64 auth tag
+    /** gzip 표현의 ETag 접미사 (강한 검증자는 표현마다 달라야 함, If-Match 비교 시 제거) */
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
     private final FileService fileService;
     private final AuthService authService;
+    private final CompressedContentCache compressedContentCache;
+    private final ObjectMapper objectMapper;
 
     private User currentUser() {
         JwtAuthenticationFilter.JwtPrincipal principal = (JwtAuthenticationFilter.JwtPrincipal)
                 SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return authService.findById(principal.getUserId());
+        return authService.getReference(principal.getUserId());
     }
 
-    /** GET /api/files?path=... */
+    /** GET /api/files?path=...&cursor=...&limit=... */
     @GetMapping
-    public ResponseEntity<ApiResponse<Map<String, List<FileResponse>>>> listFiles(
-            @RequestParam(required = false) String path
+    public ResponseEntity<ApiResponse<Map<String, Object>>> listFiles(
+            @RequestParam(required = false) String path,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
     ) {
         try {
             User user = currentUser();
-            List<FileMetadata> list = fileService.listFiles(user, path);
-            List<FileResponse> files = list.stream()
-                    .map(FileResponse::fromMetadata)
+            FileService.FilePage page = fileService.listFiles(user, path, cursor, limit);
+            List<FileResponse> files = page.getFiles().stream()
+                    .map(FileResponse::fromSummary)
                     .collect(Collectors.toList());
-            Map<String, List<FileResponse>> data = new HashMap<>();
+            Map<String, Object> data = new HashMap<>();
             data.put("files", files);
+            if (page.getNextCursor() != null) {
+                data.put("nextCursor", page.getNextCursor());
+            }
             return ResponseEntity.ok(ApiResponse.success(data));
+        } catch (IllegalArgumentException e) {
+            String code = "INVALID_CURSOR".equals(e.getMessage()) ? "INVALID_CURSOR" : "INVALID_PATH";
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(code, e.getMessage()));
         } catch (Exception e) {
             log.error("파일 목록 조회 실패", e);
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
@@ -65,6 +92,75 @@ public class FileController {
         }
     }
 
+    /** GET /api/files/tree?path=...&depth=... - 디렉토리 트리 (자식별 파일 수·총 크기·최신 수정 시각) */
+    @GetMapping("/tree")
+    public ResponseEntity<ApiResponse<FileResponse>> getTree(
+            @RequestParam(required = false) String path,
+            @RequestParam(required = false, defaultValue = "1") int depth
+    ) {
+        try {
+            User user = currentUser();
+            Optional<FileResponse> tree = fileService.getTree(user, path, depth);
+            if (tree.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("FILE_NOT_FOUND", "디렉토리를 찾을 수 없습니다."));
+            }
+            return ResponseEntity.ok(ApiResponse.success(tree.get()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("INVALID_PATH", e.getMessage()));
+        } catch (Exception e) {
+            log.error("디렉토리 트리 조회 실패", e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("FILE_ACCESS_DENIED", e.getMessage()));
+        }
+    }
+
+    /** GET /api/files/find?q=...&limit=... - 경로 퍼지 찾기 (빠른 열기) */
+    @GetMapping("/find")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> findFiles(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit
+    ) {
+        try {
+            User user = currentUser();
+            List<FileResponse> files = fileService.findFiles(user, q, limit).stream()
+                    .map(FileResponse::fromSummary)
+                    .collect(Collectors.toList());
+            Map<String, Object> data = new HashMap<>();
+            data.put("files", files);
+            return ResponseEntity.ok(ApiResponse.success(data));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("INVALID_QUERY", e.getMessage()));
+        } catch (Exception e) {
+            log.error("파일 찾기 실패", e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("FILE_ACCESS_DENIED", e.getMessage()));
+        }
+    }
+
+    /** GET /api/files/search?q=...&limit=... - 전문 검색 (관련도 순, 스니펫·강조 구간 포함) */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> search(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit
+    ) {
+        try {
+            User user = currentUser();
+            Map<String, Object> data = new HashMap<>();
+            data.put("results", fileService.search(user, q, limit));
+            return ResponseEntity.ok(ApiResponse.success(data));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("INVALID_QUERY", e.getMessage()));
+        } catch (Exception e) {
+            log.error("파일 검색 실패", e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("FILE_ACCESS_DENIED", e.getMessage()));
+        }
+    }
+
     /** GET /api/files/{path}/check - 파일 변경 여부 확인 (탭 복귀 시 변경 감지용) */
     @GetMapping("/{path:.+}/check")
     public ResponseEntity<?> checkFileModified(
@@ -74,12 +170,12 @@ public class FileController {
         try {
             String decodedPath = URLDecoder.decode(path, StandardCharsets.UTF_8);
             User user = currentUser();
-            Optional<FileMetadata> metaOpt = fileService.getMetadata(user, decodedPath);
+            Optional<FileMetadataSummary> metaOpt = fileService.getMetadata(user, decodedPath);
             if (metaOpt.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.error("FILE_NOT_FOUND", "파일을 찾을 수 없습니다."));
             }
-            FileMetadata meta = metaOpt.get();
+            FileMetadataSummary meta = metaOpt.get();
             String lastModifiedStr = meta.getLastModified() != null
                     ? meta.getLastModified().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
                     : null;
@@ -105,9 +201,118 @@ public class FileController {
         }
     }
 
-    /** GET /api/files/{path} */
+    /**
+     * GET /api/files/{path}/raw - 원본 내용 스트리밍 (JSON 봉투 없이 디스크 → 소켓, Range 지원)
+     * 단일 Range(bytes=start-end, bytes=start-, bytes=-suffix)는 206, 여러 구간 요청은 전체(200)로 응답
+     * 암호화 파일은 application/octet-stream 바이너리로 전송하고 IV·인증 태그는 헤더로 전달 (Base64 오버헤드 없음)
+     * gzip으로 저장된 파일은 클라이언트가 gzip을 받으면(Range 없을 때) 디스크 바이트를 Content-Encoding: gzip으로 그대로,
+     * 아니면 해제하며 전송 (Range는 해제한 내용 기준)
+     */
+    @GetMapping("/{path:.+}/raw")
+    public ResponseEntity<StreamingResponseBody> getRawFile(
+            @PathVariable String path,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        try {
+            String decodedPath = URLDecoder.decode(path, StandardCharsets.UTF_8);
+            User user = currentUser();
+            Optional<FileService.RawFileResult> result = fileService.openRaw(user, decodedPath);
+            if (result.isEmpty()) {
+                return rawError(HttpStatus.NOT_FOUND, "FILE_NOT_FOUND", "파일을 찾을 수 없습니다.");
+            }
+            FileService.RawFileResult raw = result.get();
+            long size = raw.getSize();
+            long start = 0;
+            long end = size - 1;
+            boolean partial = false;
+            if (rangeHeader != null && !rangeHeader.isBlank()) {
+                try {
+                    List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                    if (ranges.size() == 1) {
+                        start = ranges.get(0).getRangeStart(size);
+                        end = ranges.get(0).getRangeEnd(size);
+                        partial = true;
+                    }
+                } catch (IllegalArgumentException e) {
+                    return unsatisfiableRange(size);
+                }
+                // getRangeStart는 파일 크기를 넘는 시작 위치를 거르지 않음 (bytes=200- on 100 bytes → start > end)
+                if (partial && (start >= size || start > end)) {
+                    return unsatisfiableRange(size);
+                }
+            }
+            long from = start;
+            long count = size == 0 ? 0 : end - start + 1;
+            boolean passThrough = raw.isCompressed() && !partial && acceptsGzip(acceptEncoding);
+            StreamingResponseBody body;
+            if (passThrough) {
+                body = out -> fileService.transferTo(raw.getPath(), 0, raw.getStoredSize(), out);
+            } else if (raw.isCompressed()) {
+                body = out -> fileService.transferContent(raw.getPath(), from, count, out);
+            } else {
+                body = out -> fileService.transferTo(raw.getPath(), from, count, out);
+            }
+
+            FileMetadata meta = raw.getMetadata();
+            boolean encrypted = meta != null && Boolean.TRUE.equals(meta.getEncrypted());
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                    .contentType(encrypted ? MediaType.APPLICATION_OCTET_STREAM : RAW_MARKDOWN)
+                    .contentLength(passThrough ? raw.getStoredSize() : count)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (raw.isCompressed()) {
+                builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (passThrough) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            if (encrypted) {
+                builder.header(HEADER_ENCRYPTED, "true")
+                        .header(HEADER_ENCRYPTION_IV, meta.getIv())
+                        .header(HEADER_ENCRYPTION_TAG, meta.getAuthTag());
+            }
+            if (partial) {
+                builder.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+            if (meta != null && meta.getLastModified() != null) {
+                builder.lastModified(meta.getLastModified().atZone(ZoneId.systemDefault()));
+            }
+            return builder.body(body);
+        } catch (IllegalArgumentException e) {
+            return rawError(HttpStatus.BAD_REQUEST, "INVALID_PATH", e.getMessage());
+        } catch (Exception e) {
+            log.error("파일 스트리밍 실패", e);
+            return rawError(HttpStatus.FORBIDDEN, "FILE_ACCESS_DENIED", e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> unsatisfiableRange(long size) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                .build();
+    }
+
+    /**
+     * /raw 오류 응답. 반환 타입이 StreamingResponseBody여야 스트리밍 핸들러가 처리하므로
+     * 다른 API와 같은 ApiResponse JSON도 본문 스트림으로 기록
+     */
+    private ResponseEntity<StreamingResponseBody> rawError(HttpStatus status, String code, String message) {
+        ApiResponse<Void> error = ApiResponse.error(code, message);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(objectMapper.writeValueAsBytes(error)));
+    }
+
+    /**
+     * GET /api/files/{path}
+     * Accept-Encoding에 gzip이 있으면 미리 압축해 캐시한 JSON 본문을 Content-Encoding: gzip으로 전송 ({@link CompressedContentCache})
+     * ETag는 내용 해시, gzip 표현은 "{해시}-gzip"
+     */
     @GetMapping("/{path:.+}")
-    public ResponseEntity<ApiResponse<FileResponse>> getFile(@PathVariable String path) {
+    public ResponseEntity<?> getFile(
+            @PathVariable String path,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
         try {
             String decodedPath = URLDecoder.decode(path, StandardCharsets.UTF_8);
             User user = currentUser();
@@ -124,12 +329,31 @@ public class FileController {
                     .size(r.getMetadata().getFileSize())
                     .encrypted(r.isEncrypted())
                     .content(r.isEncrypted() ? null : r.getContent())
+                    .html(r.isEncrypted() ? null : r.getHtml())
                     .encryptedData(r.getEncryptedData())
                     .iv(r.getIv())
                     .tag(r.getAuthTag())
                     .lastModified(r.getMetadata().getLastModified())
+                    .contentHash(r.getContentHash())
                     .build();
-            return ResponseEntity.ok(ApiResponse.success(resp));
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            ApiResponse<FileResponse> envelope = ApiResponse.success(resp);
+            if (r.getContentHash() != null && acceptsGzip(acceptEncoding)) {
+                String key = r.getContentHash() + ":" + user.getId() + ":" + resp.getPath() + ":" + resp.getLastModified();
+                byte[] gzipped = compressedContentCache.gzip(key, () -> objectMapper.writeValueAsBytes(envelope));
+                if (gzipped != null) {
+                    return builder.contentType(MediaType.APPLICATION_JSON)
+                            .eTag(r.getContentHash() + GZIP_ETAG_SUFFIX)
+                            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                            .contentLength(gzipped.length)
+                            .body(gzipped);
+                }
+            }
+            if (r.getContentHash() != null) {
+                builder.eTag(r.getContentHash());
+            }
+            return builder.body(envelope);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.error("INVALID_PATH", e.getMessage()));
@@ -140,10 +364,11 @@ public class FileController {
         }
     }
 
-    /** POST /api/files/{path} */
+    /** POST /api/files/{path}?renderPatch=... */
     @PostMapping("/{path:.+}")
     public ResponseEntity<ApiResponse<FileResponse>> saveFile(
             @PathVariable String path,
+            @RequestParam(required = false, defaultValue = "false") boolean renderPatch,
             @RequestBody FileSaveRequest body
     ) {
         try {
@@ -162,8 +387,16 @@ public class FileController {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(ApiResponse.error("SERVER_ERROR", "저장에 실패했습니다."));
             }
-            return ResponseEntity.ok(ApiResponse.success(FileResponse.fromMetadata(meta.get()), "파일이 저장되었습니다."));
+            FileResponse resp = FileResponse.fromMetadata(meta.get());
+            if (renderPatch && !encrypted && body.getContent() != null) {
+                resp.setHtmlPatch(fileService.renderPatch(user, decodedPath, body.getContent()));
+            }
+            return ResponseEntity.ok(ApiResponse.success(resp, "파일이 저장되었습니다."));
         } catch (IllegalArgumentException e) {
+            if ("STORAGE_QUOTA_EXCEEDED".equals(e.getMessage())) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(ApiResponse.error("STORAGE_QUOTA_EXCEEDED", "저장 공간 할당량을 초과했습니다."));
+            }
             String code = "INVALID_PATH";
             if ("FILE_TOO_LARGE".equals(e.getMessage())) {
                 code = "FILE_TOO_LARGE";
@@ -177,6 +410,103 @@ public class FileController {
         }
     }
 
+    /**
+     * PATCH /api/files/{path}?renderPatch=... - 부분 저장 (기준 버전 내용에 편집 목록 적용)
+     * 기준 버전은 body.baseHash 또는 If-Match 헤더(GET 응답의 ETag). 현재 내용과 다르면 409 FILE_CONFLICT
+     */
+    @PatchMapping("/{path:.+}")
+    public ResponseEntity<ApiResponse<FileResponse>> patchFile(
+            @PathVariable String path,
+            @RequestParam(required = false, defaultValue = "false") boolean renderPatch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody FilePatchRequest body
+    ) {
+        try {
+            String decodedPath = URLDecoder.decode(path, StandardCharsets.UTF_8);
+            User user = currentUser();
+            String baseHash = body.getBaseHash() != null ? body.getBaseHash() : unquoteETag(ifMatch);
+            Optional<FileService.PatchResult> result = fileService.patchFile(user, decodedPath, baseHash, body.getEdits());
+            if (result.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("FILE_NOT_FOUND", "파일을 찾을 수 없습니다."));
+            }
+            FileMetadata meta = result.get().getMetadata();
+            FileResponse resp = FileResponse.fromMetadata(meta);
+            if (renderPatch) {
+                resp.setHtmlPatch(fileService.renderPatch(user, decodedPath, result.get().getContent()));
+            }
+            return ResponseEntity.ok()
+                    .eTag(meta.getContentHash())
+                    .body(ApiResponse.success(resp, "파일이 저장되었습니다."));
+        } catch (IllegalArgumentException e) {
+            String code = e.getMessage();
+            if ("FILE_CONFLICT".equals(code)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(ApiResponse.error(code, "다른 곳에서 파일이 변경되었습니다. 다시 불러온 뒤 저장하세요."));
+            }
+            if ("STORAGE_QUOTA_EXCEEDED".equals(code)) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(ApiResponse.error(code, "저장 공간 할당량을 초과했습니다."));
+            }
+            if (!"INVALID_PATCH".equals(code) && !"FILE_ENCRYPTED".equals(code) && !"FILE_TOO_LARGE".equals(code)) {
+                code = "INVALID_PATH";
+            }
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(code, e.getMessage()));
+        } catch (Exception e) {
+            log.error("파일 부분 저장 실패", e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("FILE_ACCESS_DENIED", e.getMessage()));
+        }
+    }
+
+    /** If-Match 값에서 따옴표·약한 비교 접두사·gzip 표현 접미사 제거 ("abc", W/"abc", "abc-gzip" → abc) */
+    private static String unquoteETag(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String v = value.trim();
+        if (v.startsWith("W/")) {
+            v = v.substring(2);
+        }
+        if (v.length() >= 2 && v.startsWith("\"") && v.endsWith("\"")) {
+            v = v.substring(1, v.length() - 1);
+        }
+        if (v.endsWith(GZIP_ETAG_SUFFIX)) {
+            v = v.substring(0, v.length() - GZIP_ETAG_SUFFIX.length());
+        }
+        return v;
+    }
+
+    /** Accept-Encoding에 gzip(또는 *)이 q=0이 아닌 값으로 있는지 */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim();
+            if (!"gzip".equalsIgnoreCase(coding) && !"*".equals(coding)) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        rejected = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        rejected = true;
+                    }
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /** POST /api/files/upload */
     @PostMapping("/upload")
     public ResponseEntity<ApiResponse<FileResponse>> uploadFile(
@@ -192,7 +522,8 @@ public class FileController {
             }
             return ResponseEntity.ok(ApiResponse.success(FileResponse.fromMetadata(meta.get()), "파일이 업로드되었습니다."));
         } catch (IllegalArgumentException e) {
-            HttpStatus status = "FILE_TOO_LARGE".equals(e.getMessage()) ? HttpStatus.PAYLOAD_TOO_LARGE : HttpStatus.BAD_REQUEST;
+            HttpStatus status = "FILE_TOO_LARGE".equals(e.getMessage()) || "STORAGE_QUOTA_EXCEEDED".equals(e.getMessage())
+                    ? HttpStatus.PAYLOAD_TOO_LARGE : HttpStatus.BAD_REQUEST;
             return ResponseEntity.status(status)
                     .body(ApiResponse.error(e.getMessage(), e.getMessage()));
         } catch (Exception e) {
@@ -202,6 +533,120 @@ public class FileController {
         }
     }
 
+    /**
+     * POST /api/files/upload/batch - 여러 파일(files) 또는 zip(archive) 일괄 업로드
+     * 일부 파일이 실패해도 200, 파일별 성공/오류 코드는 items에 요청 순서대로
+     */
+    @PostMapping("/upload/batch")
+    public ResponseEntity<ApiResponse<FileService.BatchUploadResult>> uploadBatch(
+            @RequestParam(value = "files", required = false) List<MultipartFile> files,
+            @RequestParam(value = "archive", required = false) MultipartFile archive,
+            @RequestParam(required = false) String path
+    ) {
+        try {
+            User user = currentUser();
+            FileService.BatchUploadResult result = fileService.uploadBatch(user, files, archive, path);
+            return ResponseEntity.ok(ApiResponse.success(result, result.getSaved() + "개 파일이 업로드되었습니다."));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("일괄 업로드 실패", e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("FILE_ACCESS_DENIED", e.getMessage()));
+        }
+    }
+
+    /** GET /api/files/{path}/versions?limit=... - 버전 목록 (최신순) */
+    @GetMapping("/{path:.+}/versions")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> listVersions(
+            @PathVariable String path,
+            @RequestParam(required = false) Integer limit
+    ) {
+        try {
+            String decodedPath = URLDecoder.decode(path, StandardCharsets.UTF_8);
+            User user = currentUser();
+            List<FileResponse> versions = fileService.listVersions(user, decodedPath, limit).stream()
+                    .map(FileResponse::fromVersion)
+                    .collect(Collectors.toList());
+            Map<String, Object> data = new HashMap<>();
+            data.put("versions", versions);
+            return ResponseEntity.ok(ApiResponse.success(data));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("INVALID_PATH", e.getMessage()));
+        } catch (Exception e) {
+            log.error("버전 목록 조회 실패", e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("FILE_ACCESS_DENIED", e.getMessage()));
+        }
+    }
+
+    /** GET /api/files/{path}/versions/{versionId} - 버전 내용 */
+    @GetMapping("/{path:.+}/versions/{versionId}")
+    public ResponseEntity<ApiResponse<FileResponse>> getVersion(
+            @PathVariable String path,
+            @PathVariable Long versionId
+    ) {
+        try {
+            String decodedPath = URLDecoder.decode(path, StandardCharsets.UTF_8);
+            User user = currentUser();
+            Optional<FileService.VersionContentResult> result = fileService.readVersion(user, decodedPath, versionId);
+            if (result.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("VERSION_NOT_FOUND", "버전을 찾을 수 없습니다."));
+            }
+            FileService.VersionContentResult r = result.get();
+            FileResponse resp = FileResponse.fromVersion(r.getVersion());
+            resp.setContent(r.getContent());
+            resp.setEncryptedData(r.getEncryptedData());
+            resp.setIv(r.getVersion().getIv());
+            resp.setTag(r.getVersion().getAuthTag());
+            return ResponseEntity.ok(ApiResponse.success(resp));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("INVALID_PATH", e.getMessage()));
+        } catch (Exception e) {
+            log.error("버전 읽기 실패", e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("FILE_ACCESS_DENIED", e.getMessage()));
+        }
+    }
+
+    /** POST /api/files/{path}/versions/{versionId}/restore - 버전 내용으로 저장 (복원도 새 버전으로 기록) */
+    @PostMapping("/{path:.+}/versions/{versionId}/restore")
+    public ResponseEntity<ApiResponse<FileResponse>> restoreVersion(
+            @PathVariable String path,
+            @PathVariable Long versionId
+    ) {
+        try {
+            String decodedPath = URLDecoder.decode(path, StandardCharsets.UTF_8);
+            User user = currentUser();
+            Optional<FileMetadata> meta = fileService.restoreVersion(user, decodedPath, versionId);
+            if (meta.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("SERVER_ERROR", "복원에 실패했습니다."));
+            }
+            return ResponseEntity.ok(ApiResponse.success(FileResponse.fromMetadata(meta.get()), "버전을 복원했습니다."));
+        } catch (IllegalArgumentException e) {
+            String code = e.getMessage();
+            if ("VERSION_NOT_FOUND".equals(code)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error(code, "버전을 찾을 수 없습니다."));
+            }
+            if ("STORAGE_QUOTA_EXCEEDED".equals(code)) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(ApiResponse.error(code, "저장 공간 할당량을 초과했습니다."));
+            }
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("INVALID_PATH", e.getMessage()));
+        } catch (Exception e) {
+            log.error("버전 복원 실패", e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("FILE_ACCESS_DENIED", e.getMessage()));
+        }
+    }
+
     /** DELETE /api/files/{path}?secure=... */
     @DeleteMapping("/{path:.+}")
     public ResponseEntity<ApiResponse<Void>> deleteFile(
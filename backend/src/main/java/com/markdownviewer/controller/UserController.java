@@ -2,8 +2,8 @@ package com.markdownviewer.controller;
 
 import com.markdownviewer.config.JwtAuthenticationFilter;
 import com.markdownviewer.dto.response.ApiResponse;
-import com.markdownviewer.entity.FileMetadata;
 import com.markdownviewer.entity.User;
+import com.markdownviewer.repository.FileMetadataSummary;
 import com.markdownviewer.service.AuthService;
 import com.markdownviewer.service.FileService;
 import lombok.RequiredArgsConstructor;
@@ -35,7 +35,7 @@ public class UserController {
     private User currentUser() {
         JwtAuthenticationFilter.JwtPrincipal principal = (JwtAuthenticationFilter.JwtPrincipal)
                 SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return authService.findById(principal.getUserId());
+        return authService.getReference(principal.getUserId());
     }
 
     /** GET /api/users/me/last-document */
@@ -43,12 +43,12 @@ public class UserController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> getLastDocument() {
         try {
             User user = currentUser();
-            Optional<FileMetadata> last = fileService.getLastModifiedFile(user);
+            Optional<FileMetadataSummary> last = fileService.getLastModifiedFile(user);
             if (last.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.error("FILE_NOT_FOUND", "마지막 문서가 없습니다."));
             }
-            FileMetadata m = last.get();
+            FileMetadataSummary m = last.get();
             Map<String, Object> data = new HashMap<>();
             data.put("path", m.getFilePath());
             data.put("name", m.getFileName());
@@ -0,0 +1,33 @@
+package com.markdownviewer.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 파일 부분 저장(PATCH) 요청 DTO
+ * baseHash 버전의 내용에 edits를 적용. 위치는 기준 내용의 문자(UTF-16 코드 유닛) 오프셋
+ * @see docs/20_backend/20_API_SPECIFICATION.md - PATCH /api/files/{path}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilePatchRequest {
+
+    private String baseHash;   // 기준 버전 내용 해시 (GET/저장 응답의 contentHash, If-Match 헤더로도 전달 가능)
+    private List<Edit> edits;  // 겹치지 않게 start 오름차순
+
+    /** [start, end) 구간을 text로 교체 (start == end면 삽입, text가 비면 삭제) */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Edit {
+        private int start;
+        private int end;
+        private String text;
+    }
+}
@@ -1,12 +1,15 @@
 package com.markdownviewer.dto.response;
 
 import com.markdownviewer.entity.FileMetadata;
+import com.markdownviewer.entity.FileVersion;
+import com.markdownviewer.repository.FileMetadataSummary;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 파일 API 응답 DTO
@@ -25,12 +28,44 @@ public class FileResponse {
     private Boolean encrypted;
     private String content;
     private String html;
+    private RenderPatch htmlPatch;  // 저장 시 renderPatch=true 요청하면 블록 단위 HTML 패치
     private String encryptedData;
     private String iv;
     private String tag;
     private LocalDateTime lastModified;
+    private String contentHash;            // file: 내용 SHA-256 hex (PATCH 저장의 baseHash)
+    private Long versionId;                // 버전: GET /files/{path}/versions 항목의 id
+    private Long fileCount;                // directory: 하위 전체 파일 수
+    private List<FileResponse> children;   // directory: GET /files/tree 응답의 자식 (depth 범위)
 
     public static FileResponse fromMetadata(FileMetadata m) {
+        return FileResponse.builder()
+                .path(m.getFilePath())
+                .name(m.getFileName())
+                .type("file")
+                .size(m.getFileSize())
+                .encrypted(Boolean.TRUE.equals(m.getEncrypted()))
+                .lastModified(m.getLastModified())
+                .contentHash(m.getContentHash())
+                .build();
+    }
+
+    /** 버전 항목 (lastModified는 버전 기록 시각) */
+    public static FileResponse fromVersion(FileVersion v) {
+        String path = v.getFilePath();
+        return FileResponse.builder()
+                .versionId(v.getId())
+                .path(path)
+                .name(path.substring(path.lastIndexOf('/') + 1))
+                .type("file")
+                .size(v.getFileSize())
+                .encrypted(Boolean.TRUE.equals(v.getEncrypted()))
+                .lastModified(v.getCreatedAt())
+                .contentHash(v.getContentHash())
+                .build();
+    }
+
+    public static FileResponse fromSummary(FileMetadataSummary m) {
         return FileResponse.builder()
                 .path(m.getFilePath())
                 .name(m.getFileName())
@@ -0,0 +1,29 @@
+package com.markdownviewer.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 블록 단위 HTML 패치 DTO (증분 렌더링)
+ * 이전 렌더링 결과(baseHash)의 블록 목록에서 [start, start + deleteCount) 구간을 blocks로 교체
+ * full=true면 이전 결과와 무관하게 blocks 전체가 새 문서
+ * @see docs/20_backend/20_API_SPECIFICATION.md - POST /api/files/{path}?renderPatch=true
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderPatch {
+
+    private String baseHash;   // 패치 적용 대상 문서의 내용 해시 (full이면 null)
+    private String hash;       // 패치 적용 후 문서의 내용 해시
+    private boolean full;
+    private int start;
+    private int deleteCount;
+    private List<String> blocks;
+    private int blockCount;    // 패치 적용 후 전체 블록 수
+}
@@ -38,9 +38,14 @@ public class FileMetadata {
     @Column(name = "file_name", nullable = false, length = 255)
     private String fileName;
 
+    /** 내용 크기 (압축 전 바이트, storage_used 기준) */
     @Column(name = "file_size")
     private Long fileSize;
 
+    /** 디스크에 저장된 크기 (gzip 저장이면 압축 후, 기존 행은 null) */
+    @Column(name = "stored_size")
+    private Long storedSize;
+
     @Column(name = "encrypted", nullable = false)
     @Builder.Default
     private Boolean encrypted = false;
@@ -58,6 +63,10 @@ public class FileMetadata {
     @Column(name = "last_modified")
     private LocalDateTime lastModified;
 
+    /** 내용(압축 전 바이트)의 SHA-256 hex. PATCH 저장의 기준 버전 확인용 (기존 행은 null) */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -67,9 +76,26 @@ public class FileMetadata {
         this.lastModified = lastModified;
     }
 
+    public void updateContent(long fileSize, LocalDateTime lastModified, String contentHash) {
+        updateContent(fileSize, lastModified);
+        this.contentHash = contentHash;
+    }
+
+    public void updateContent(long fileSize, long storedSize, LocalDateTime lastModified, String contentHash) {
+        updateContent(fileSize, lastModified, contentHash);
+        this.storedSize = storedSize;
+    }
+
     public void updateEncrypted(String iv, String authTag) {
         this.encrypted = true;
         this.iv = iv;
         this.authTag = authTag;
     }
+
+    /** 평문 내용으로 덮어쓸 때 이전 암호화 정보 제거 */
+    public void clearEncrypted() {
+        this.encrypted = false;
+        this.iv = null;
+        this.authTag = null;
+    }
 }
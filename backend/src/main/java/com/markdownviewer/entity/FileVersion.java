@@ -0,0 +1,63 @@
+package com.markdownviewer.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 파일 버전 (경로별로 최소 간격마다 한 행, 내용은 content_hash로 버전 저장소의 객체를 가리킴)
+ * @see docs/30_db/30_DATABASE_DESIGN.md - file_versions 테이블 설계
+ */
+@Entity
+@Table(name = "file_versions", indexes = {
+    @Index(columnList = "user_id, file_path, id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class FileVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "file_path", nullable = false, length = 1024)
+    private String filePath;
+
+    /** 내용(디스크 바이트)의 SHA-256 hex = 버전 저장소 객체 이름 */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    @Column(name = "encrypted", nullable = false)
+    @Builder.Default
+    private Boolean encrypted = false;
+
+    @Column(name = "iv", length = 255)
+    private String iv;
+
+    @Column(name = "auth_tag", length = 255)
+    private String authTag;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    /** 최소 간격 안의 다음 저장으로 내용 교체 (생성 시각은 유지) */
+    public void replaceContent(String contentHash, long fileSize, boolean encrypted, String iv, String authTag) {
+        this.contentHash = contentHash;
+        this.fileSize = fileSize;
+        this.encrypted = encrypted;
+        this.iv = iv;
+        this.authTag = authTag;
+    }
+}
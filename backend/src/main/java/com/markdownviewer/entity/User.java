@@ -55,15 +55,4 @@ public class User {
         this.pictureUrl = pictureUrl;
         this.lastLoginAt = LocalDateTime.now();
     }
-
-    /** 저장 공간 사용량 증가 (파일 저장 시) */
-    public void addStorageUsed(long delta) {
-        this.storageUsed = (this.storageUsed != null ? this.storageUsed : 0L) + delta;
-    }
-
-    /** 저장 공간 사용량 감소 (파일 삭제 시) */
-    public void subtractStorageUsed(long delta) {
-        long current = this.storageUsed != null ? this.storageUsed : 0L;
-        this.storageUsed = Math.max(0, current - delta);
-    }
 }
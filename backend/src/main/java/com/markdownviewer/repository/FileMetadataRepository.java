@@ -2,8 +2,14 @@ package com.markdownviewer.repository;
 
 import com.markdownviewer.entity.FileMetadata;
 import com.markdownviewer.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,11 +19,48 @@ import java.util.Optional;
  */
 public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long> {
 
-    List<FileMetadata> findByUserOrderByFileNameAsc(User user);
+    /**
+     * 경로 접두사 + 키셋 페이지네이션 목록 조회 (프로젝션)
+     * (user_id, file_path) UNIQUE 인덱스 범위 스캔: file_path LIKE 'dir/%' AND file_path > :after ORDER BY file_path
+     * file_path는 utf8mb4_bin 정렬 컬럼이어야 메모리 인덱스(코드 포인트 순)와 커서 순서가 같음 (30_DATABASE_DESIGN.md)
+     *
+     * @param prefix   LIKE 패턴 ('!'로 이스케이프, 전체 조회는 "%")
+     * @param after    직전 페이지 마지막 경로 (첫 페이지는 "")
+     * @param pageable 페이지 크기 (Pageable.unpaged()면 제한 없음)
+     */
+    @Query("select new com.markdownviewer.repository.FileMetadataSummary("
+            + "f.id, f.filePath, f.fileName, f.fileSize, f.encrypted, f.lastModified) "
+            + "from FileMetadata f "
+            + "where f.user = :user and f.filePath like :prefix escape '!' and f.filePath > :after "
+            + "order by f.filePath asc")
+    List<FileMetadataSummary> findSummaries(@Param("user") User user,
+                                            @Param("prefix") String prefix,
+                                            @Param("after") String after,
+                                            Pageable pageable);
 
     Optional<FileMetadata> findByUserAndFilePath(User user, String filePath);
 
+    /** 행 잠금 조회 (PATCH 저장: 기준 버전 확인 ~ 커밋 사이에 다른 저장이 끼어들지 않도록) */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select f from FileMetadata f where f.user = :user and f.filePath = :filePath")
+    Optional<FileMetadata> findForUpdate(@Param("user") User user, @Param("filePath") String filePath);
+
+    /** 여러 경로 행 잠금 조회 (일괄 업로드) */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select f from FileMetadata f where f.user = :user and f.filePath in :paths")
+    List<FileMetadata> findAllForUpdate(@Param("user") User user, @Param("paths") Collection<String> paths);
+
+    /** 여러 경로 요약 조회 (일괄 업로드 후 인덱스 갱신용) */
+    @Query("select new com.markdownviewer.repository.FileMetadataSummary("
+            + "f.id, f.filePath, f.fileName, f.fileSize, f.encrypted, f.lastModified) "
+            + "from FileMetadata f where f.user = :user and f.filePath in :paths")
+    List<FileMetadataSummary> findSummariesByPaths(@Param("user") User user, @Param("paths") Collection<String> paths);
+
     boolean existsByUserAndFilePath(User user, String filePath);
 
+    /** 사용자 파일별 [filePath, contentHash, encrypted] (검색 인덱스 대조용) */
+    @Query("select f.filePath, f.contentHash, f.encrypted from FileMetadata f where f.user = :user")
+    List<Object[]> findContentHashes(@Param("user") User user);
+
     Optional<FileMetadata> findTopByUserOrderByLastModifiedDesc(User user);
 }
@@ -0,0 +1,31 @@
+package com.markdownviewer.repository;
+
+import com.markdownviewer.entity.FileMetadata;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 파일 목록용 메타데이터 프로젝션 (영속성 컨텍스트에 올리지 않는 읽기 전용 DTO)
+ * JPQL 생성자 표현식으로 필요한 컬럼만 조회
+ * @see FileMetadataRepository#findSummaries
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileMetadataSummary {
+
+    private Long id;
+    private String filePath;
+    private String fileName;
+    private Long fileSize;
+    private Boolean encrypted;
+    private LocalDateTime lastModified;
+
+    public static FileMetadataSummary from(FileMetadata m) {
+        return new FileMetadataSummary(m.getId(), m.getFilePath(), m.getFileName(),
+                m.getFileSize(), m.getEncrypted(), m.getLastModified());
+    }
+}
@@ -0,0 +1,39 @@
+package com.markdownviewer.repository;
+
+import com.markdownviewer.entity.FileVersion;
+import com.markdownviewer.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface FileVersionRepository extends JpaRepository<FileVersion, Long> {
+
+    /** 경로의 버전 목록 (최신순) */
+    @Query("select v from FileVersion v where v.user = :user and v.filePath = :filePath order by v.id desc")
+    List<FileVersion> findVersions(@Param("user") User user, @Param("filePath") String filePath, Pageable pageable);
+
+    Optional<FileVersion> findTopByUserAndFilePathOrderByIdDesc(User user, String filePath);
+
+    Optional<FileVersion> findByIdAndUserAndFilePath(Long id, User user, String filePath);
+
+    /** 경로의 버전 모두 삭제 (안전 삭제) */
+    @Transactional
+    @Modifying
+    @Query("delete from FileVersion v where v.user.id = :userId and v.filePath = :filePath")
+    int deleteByPath(@Param("userId") Long userId, @Param("filePath") String filePath);
+
+    /** 버전이 있는 사용자 id (정리 작업용) */
+    @Query("select distinct v.user.id from FileVersion v")
+    List<Long> findUserIds();
+
+    /** 사용자의 [id, filePath, contentHash, createdAt] (경로별 최신순, 정리 작업용) */
+    @Query("select v.id, v.filePath, v.contentHash, v.createdAt from FileVersion v "
+            + "where v.user.id = :userId order by v.filePath asc, v.id desc")
+    List<Object[]> findRetentionRows(@Param("userId") Long userId);
+}
@@ -2,9 +2,45 @@ package com.markdownviewer.repository;
 
 import com.markdownviewer.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByGoogleSub(String googleSub);
     Optional<User> findByEmail(String email);
+
+    /** 저장 공간 사용량 증감 (사용자 행을 읽지 않는 단일 UPDATE, 0 미만은 0) */
+    @Modifying
+    @Query("update User u set u.storageUsed = case when coalesce(u.storageUsed, 0) + :delta < 0 then 0 "
+            + "else coalesce(u.storageUsed, 0) + :delta end where u.id = :userId")
+    int addStorageUsed(@Param("userId") Long userId, @Param("delta") long delta);
+
+    /** 할당량 안에서만 사용량 증가 (조건부 단일 UPDATE, 0이면 할당량 초과). 할당량 null은 무제한 */
+    @Modifying
+    @Query("update User u set u.storageUsed = coalesce(u.storageUsed, 0) + :bytes where u.id = :userId "
+            + "and (u.storageQuota is null or coalesce(u.storageUsed, 0) + :bytes <= u.storageQuota)")
+    int reserveStorage(@Param("userId") Long userId, @Param("bytes") long bytes);
+
+    /**
+     * 사용량을 파일 크기 합계로 재계산 (합계 계산과 갱신을 한 문장으로, 같을 때는 갱신 안 함)
+     * 호출마다 별도 트랜잭션이라 사용자 행 잠금은 이 문장 동안만 잡힘
+     *
+     * @return 보정했으면 1
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.storageUsed = "
+            + "(select coalesce(sum(f.fileSize), 0) from FileMetadata f where f.user.id = :userId) "
+            + "where u.id = :userId and coalesce(u.storageUsed, 0) <> "
+            + "(select coalesce(sum(f2.fileSize), 0) from FileMetadata f2 where f2.user.id = :userId)")
+    int reconcileStorageUsed(@Param("userId") Long userId);
+
+    /** 전체 사용자 id (사용량 재계산용) */
+    @Query("select u.id from User u")
+    List<Long> findAllIds();
 }
@@ -0,0 +1,284 @@
+package com.markdownviewer.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 원자적 파일 쓰기 (같은 디렉토리의 임시 파일에 쓴 뒤 rename)
+ * 읽는 쪽은 항상 이전 내용 또는 새 내용 전체만 보며, 쓰기 도중 장애가 나도 문서가 잘리지 않음
+ * fsync 정책 (app.file-storage-fsync):
+ * - always : 파일마다 데이터 fsync → rename → 디렉토리 fsync (반환 시 내구성 보장)
+ * - batched: 그룹 커밋. 전용 스레드가 짧은 구간(app.file-storage-fsync-batch-window-ms) 동안 모인 쓰기의
+ *            임시 파일을 fsync → rename → 디렉토리당 fsync 1회 후 한꺼번에 완료 (반환 시 내구성 보장, 디렉토리 fsync 공유)
+ * - none   : fsync 없음 (rename 원자성만 보장, 장애 시 최근 저장 유실 가능)
+ * 디렉토리 fsync를 지원하지 않는 OS(Windows)에서는 디렉토리 fsync 오류를 무시
+ * 임시 파일 생성과 rename 사이에 프로세스가 죽으면 임시 파일({@value #TEMP_PREFIX}*)이 남으므로,
+ * 프로세스가 디렉토리에 처음 쓸 때 오래된 임시 파일을 정리 (할당량에 잡히지 않는 디스크 사용 방지)
+ * 임시 파일 접두사는 사용자 경로로 쓸 수 없게 막혀 있어(FileService#sanitizePath) 정리가 사용자 파일에 닿지 않음
+ * 교체는 새 inode로의 rename이므로 안전 삭제의 덮어쓰기는 현재 파일 블록에만 닿고 이전 내용의 블록에는 닿지 않음
+ */
+@Component
+@Slf4j
+public class AtomicFileWriter {
+
+    public enum FsyncPolicy { ALWAYS, BATCHED, NONE }
+
+    /** 임시 파일 이름 접두사 (사용자 경로 구간으로 쓸 수 없음) */
+    public static final String TEMP_PREFIX = ".mdv-tmp-";
+
+    private static final int MAX_BATCH = 256;
+    /** 이보다 오래된 임시 파일만 정리 (다른 스레드·인스턴스의 진행 중인 쓰기는 건드리지 않음) */
+    private static final long STALE_TEMP_AGE_MS = TimeUnit.HOURS.toMillis(1);
+    /** 정리한 디렉토리 기억 상한 (넘으면 비우고 다시 정리, 중복 정리는 무해) */
+    private static final int MAX_SWEPT_DIRS = 10_000;
+
+    private final FsyncPolicy policy;
+    private final long batchWindowNanos;
+    private final BlockingQueue<Commit> pending = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private final Set<Path> sweptDirs = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    /** 그룹 커밋 대기 항목 */
+    private record Commit(Path temp, Path target, CompletableFuture<Void> done) {
+    }
+
+    public AtomicFileWriter(@Value("${app.file-storage-fsync:always}") String policy,
+                            @Value("${app.file-storage-fsync-batch-window-ms:5}") long batchWindowMs) {
+        this.policy = FsyncPolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+        if (this.policy == FsyncPolicy.BATCHED) {
+            committer = new Thread(this::runCommitter, "file-group-commit");
+            committer.setDaemon(true);
+            committer.start();
+        } else {
+            committer = null;
+        }
+    }
+
+    public FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * target에 data를 원자적으로 기록 (상위 디렉토리 없으면 생성)
+     */
+    public void write(Path target, byte[] data) throws IOException {
+        Path temp = createTempFile(target);
+        try {
+            try (FileChannel ch = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buf = ByteBuffer.wrap(data);
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        commit(temp, target);
+    }
+
+    /**
+     * target과 같은 디렉토리에 임시 파일 생성 (rename이 같은 파일시스템 안에서 일어나도록)
+     * 호출자는 내용을 채운 뒤 {@link #commit}으로 교체하거나, 실패 시 직접 삭제
+     */
+    public Path createTempFile(Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        if (sweptDirs.add(dir)) {
+            if (sweptDirs.size() > MAX_SWEPT_DIRS) {
+                sweptDirs.clear();
+                sweptDirs.add(dir);
+            }
+            sweepStaleTempFiles(dir);
+        }
+        return Files.createTempFile(dir, TEMP_PREFIX, ".tmp");
+    }
+
+    /** 이전 프로세스가 rename 전에 남긴 임시 파일 삭제. 실패해도 쓰기는 계속 */
+    private static void sweepStaleTempFiles(Path dir) {
+        long cutoff = System.currentTimeMillis() - STALE_TEMP_AGE_MS;
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(dir, TEMP_PREFIX + "*")) {
+            for (Path temp : temps) {
+                try {
+                    if (Files.isRegularFile(temp) && Files.getLastModifiedTime(temp).toMillis() < cutoff) {
+                        Files.deleteIfExists(temp);
+                        log.info("남은 임시 파일 삭제: {}", temp);
+                    }
+                } catch (IOException e) {
+                    log.warn("임시 파일 삭제 실패: {}", temp);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("임시 파일 정리 생략: {}", dir);
+        }
+    }
+
+    /**
+     * 내용이 채워진 임시 파일로 target을 원자적으로 교체 (정책에 따라 fsync). 실패 시 임시 파일 삭제
+     */
+    public void commit(Path temp, Path target) throws IOException {
+        try {
+            switch (policy) {
+                case ALWAYS -> {
+                    forceFile(temp);
+                    move(temp, target);
+                    forceDirectory(target.toAbsolutePath().getParent());
+                }
+                case NONE -> move(temp, target);
+                case BATCHED -> awaitGroupCommit(temp, target);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private void awaitGroupCommit(Path temp, Path target) throws IOException {
+        if (!running) {
+            throw new IOException("file writer is shut down");
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Commit commit = new Commit(temp, target, done);
+        pending.add(commit);
+        if (!running && !committer.isAlive() && pending.remove(commit)) {
+            throw new IOException("file writer is shut down");
+        }
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for group commit", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void runCommitter() {
+        List<Commit> batch = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                Commit first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < MAX_BATCH) {
+                    long remaining = deadline - System.nanoTime();
+                    Commit next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commitBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                for (Commit c : batch) {
+                    c.done().completeExceptionally(new IOException("group commit aborted"));
+                }
+                batch.clear();
+            }
+        }
+        for (Commit c; (c = pending.poll()) != null; ) {
+            c.done().completeExceptionally(new IOException("file writer is shut down"));
+        }
+    }
+
+    /** 임시 파일 fsync → 제출 순서대로 rename → 디렉토리별 fsync 1회 → 완료 통지 */
+    private void commitBatch(List<Commit> batch) {
+        List<Commit> synced = new ArrayList<>(batch.size());
+        for (Commit c : batch) {
+            try {
+                forceFile(c.temp());
+                synced.add(c);
+            } catch (IOException e) {
+                c.done().completeExceptionally(e);
+            }
+        }
+        Set<Path> dirs = new LinkedHashSet<>();
+        List<Commit> moved = new ArrayList<>(synced.size());
+        for (Commit c : synced) {
+            try {
+                move(c.temp(), c.target());
+                dirs.add(c.target().toAbsolutePath().getParent());
+                moved.add(c);
+            } catch (IOException e) {
+                c.done().completeExceptionally(e);
+            }
+        }
+        for (Path dir : dirs) {
+            forceDirectory(dir);
+        }
+        for (Commit c : moved) {
+            c.done().complete(null);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (committer != null) {
+            try {
+                committer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void move(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.debug("원자적 이동 미지원, 일반 교체로 대체: {}", target);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void forceFile(Path p) throws IOException {
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+    }
+
+    /** 디렉토리 엔트리(rename) 영속화. 지원하지 않는 OS에서는 무시 */
+    private static void forceDirectory(Path dir) {
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException e) {
+            log.trace("디렉토리 fsync 생략: {}", dir);
+        }
+    }
+}
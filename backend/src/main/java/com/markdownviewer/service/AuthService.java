@@ -1,9 +1,14 @@
 package com.markdownviewer.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.markdownviewer.config.JwtProperties;
 import com.markdownviewer.entity.User;
 import com.markdownviewer.repository.UserRepository;
+import com.markdownviewer.util.HashUtil;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +26,7 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
@@ -31,6 +37,44 @@ public class AuthService implements OAuth2UserService<OAuth2UserRequest, OAuth2U
     private final JwtProperties jwtProperties;
     private final JwtBlacklistService jwtBlacklistService;
 
+    /** 검증 완료 토큰 캐시 최대 항목 수 */
+    private static final long VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+
+    /** 서명 키·파서 (설정값으로 최초 사용 시 한 번만 생성) */
+    private volatile SecretKey signingKey;
+    private volatile JwtParser jwtParser;
+
+    /**
+     * 토큰 SHA-256 -> 검증 결과. 항목은 토큰 exp 시점에 만료되므로 같은 토큰의 반복 요청은 서명 검증·클레임 파싱 생략
+     * (로그아웃 토큰은 필터가 블랙리스트를 먼저 확인)
+     */
+    private final Cache<String, VerifiedToken> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                    long ttlMs = Math.max(0, value.expiresAtMs() - System.currentTimeMillis());
+                    return TimeUnit.MILLISECONDS.toNanos(ttlMs);
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, value, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    private record VerifiedToken(Long userId, Date expiration) {
+        long expiresAtMs() {
+            return expiration.getTime();
+        }
+    }
+
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
         // Google에서 사용자 정보를 가져오는 기본 로직 위임
@@ -73,6 +117,15 @@ public class AuthService implements OAuth2UserService<OAuth2UserRequest, OAuth2U
                 .orElseThrow(() -> new IllegalArgumentException("해당 사용자를 찾을 수 없습니다."));
     }
 
+    /**
+     * 인증된 요청용 사용자 참조 (SELECT 없이 id만 가진 JPA 프록시)
+     * 사용자 존재는 토큰을 처음 검증할 때 확인함 ({@link #verify}). 연관관계·id 기반 조회에만 사용하고,
+     * 사용자 정보가 필요하면 {@link #findById}
+     */
+    public User getReference(Long userId) {
+        return userRepository.getReferenceById(userId);
+    }
+
     /**
      * Google Sub로 사용자 조회
      */
@@ -87,43 +140,70 @@ public class AuthService implements OAuth2UserService<OAuth2UserRequest, OAuth2U
      */
     public String generateToken(Long userId) {
         long now = System.currentTimeMillis();
-        SecretKey key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
 
         return Jwts.builder()
                 .setSubject(String.valueOf(userId))
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + jwtProperties.getExpiration()))
-                .signWith(key)
+                .signWith(signingKey())
                 .compact();
     }
     
     public Long getUserIdFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
-        String subject = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
-        return Long.parseLong(subject);
+        return verify(token).userId();
     }
 
     /**
      * JWT exp 클레임까지 남은 시간(밀리초). 이미 만료되었으면 0 또는 작은 값.
      */
     public long getTtlMsFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
-        Claims payload = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        Date exp = payload.getExpiration();
+        Date exp = verify(token).expiration();
         if (exp == null) return jwtProperties.getExpiration();
         long ttlMs = exp.getTime() - System.currentTimeMillis();
         return Math.max(ttlMs, 0);
     }
 
+    /**
+     * 서명·만료 검증 (검증 결과 캐시 우선). exp 없는 토큰은 캐시하지 않음
+     * 캐시에 넣기 전에 사용자 존재 확인 → 발급 후 삭제된 사용자의 토큰은 인증 실패(401)
+     *
+     * @throws IllegalArgumentException USER_NOT_FOUND
+     */
+    private VerifiedToken verify(String token) {
+        String cacheKey = HashUtil.sha256Hex(token.getBytes(StandardCharsets.UTF_8));
+        VerifiedToken cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null && cached.expiresAtMs() > System.currentTimeMillis()) {
+            return cached;
+        }
+        Claims payload = parser().parseSignedClaims(token).getPayload();
+        VerifiedToken verified = new VerifiedToken(Long.parseLong(payload.getSubject()), payload.getExpiration());
+        if (!userRepository.existsById(verified.userId())) {
+            throw new IllegalArgumentException("USER_NOT_FOUND");
+        }
+        if (verified.expiration() != null) {
+            verifiedTokens.put(cacheKey, verified);
+        }
+        return verified;
+    }
+
+    private SecretKey signingKey() {
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser parser() {
+        JwtParser parser = jwtParser;
+        if (parser == null) {
+            parser = Jwts.parser().verifyWith(signingKey()).build();
+            jwtParser = parser;
+        }
+        return parser;
+    }
+
     /**
      * 로그아웃: 해당 토큰을 블랙리스트에 넣어 만료 시점까지 재사용 불가
      * 토큰이 유효하지 않거나 만료된 경우 무시 (200 응답 유지)
@@ -133,6 +213,7 @@ public class AuthService implements OAuth2UserService<OAuth2UserRequest, OAuth2U
         try {
             long ttlMs = getTtlMsFromToken(token);
             jwtBlacklistService.add(token, ttlMs);
+            verifiedTokens.invalidate(HashUtil.sha256Hex(token.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
             log.debug("로그아웃 시 토큰 파싱 실패(무시): {}", e.getMessage());
         }
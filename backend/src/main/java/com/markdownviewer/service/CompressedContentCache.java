@@ -0,0 +1,73 @@
+package com.markdownviewer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.markdownviewer.util.StoredContent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * 파일 내용 응답의 미리 압축한 표현 캐시 (GET /api/files/{path}의 gzip JSON 본문)
+ * - 키는 내용 해시 + 응답을 이루는 나머지 메타데이터(경로·수정 시각 등) → 같은 표현은 한 번만 직렬화·압축,
+ *   내용이나 메타데이터가 바뀌면 새 키가 되므로 따로 무효화하지 않고 제거 정책으로 밀려남
+ * - Caffeine 캐시, 압축 바이트 합계 기준 최대 가중치 (app.response-compression.cache-max-bytes)
+ * - min-size 미만 본문은 압축 이득보다 비용이 커서 압축하지 않음
+ */
+@Service
+@Slf4j
+public class CompressedContentCache {
+
+    private final long maxCacheBytes;
+    private final int minSize;
+
+    /** 표현 키 -> gzip 본문 (가중치 = 압축 바이트 수) */
+    private final Cache<String, byte[]> cache;
+
+    /** 압축할 원래 본문 (캐시에 없을 때만 호출) */
+    @FunctionalInterface
+    public interface BodyWriter {
+        byte[] write() throws IOException;
+    }
+
+    public CompressedContentCache(@Value("${app.response-compression.cache-max-bytes:33554432}") long maxCacheBytes,
+                                  @Value("${app.response-compression.min-size:1024}") int minSize) {
+        this.maxCacheBytes = maxCacheBytes;
+        this.minSize = minSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxCacheBytes)
+                .weigher((String key, byte[] value) -> value.length)
+                .executor(Runnable::run) // 제거를 호출 스레드에서 바로 처리 (가중치 합계가 한도를 넘어 머물지 않음)
+                .build();
+    }
+
+    /**
+     * key 표현의 gzip 본문 (캐시에 없으면 body를 압축해 캐시)
+     *
+     * @return body가 min-size 미만이면 null (압축하지 않고 그대로 보낼 것)
+     */
+    public byte[] gzip(String key, BodyWriter body) throws IOException {
+        byte[] cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        byte[] plain = body.write();
+        if (plain.length < minSize) {
+            return null;
+        }
+        byte[] compressed = StoredContent.compress(plain);
+        if (compressed.length > maxCacheBytes) {
+            log.debug("압축 본문이 캐시 한도보다 커서 캐시하지 않음: {} bytes", compressed.length);
+        } else {
+            cache.put(key, compressed);
+        }
+        return compressed;
+    }
+
+    long cachedBytes() {
+        cache.cleanUp();
+        return cache.policy().eviction().orElseThrow().weightedSize().orElse(0L);
+    }
+}
@@ -0,0 +1,37 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.repository.FileMetadataSummary;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 파일 저장/삭제 이벤트 (FileService → 메모리 인덱스 write-through)
+ * 트랜잭션 커밋 후 처리 (@TransactionalEventListener)
+ */
+@Getter
+@AllArgsConstructor
+public class FileChangedEvent {
+
+    private final Long userId;
+    private final String filePath;
+    /** 저장 후 메타데이터 (삭제면 null) */
+    private final FileMetadataSummary file;
+    /** 안전 삭제 (버전 기록 등 남은 내용도 제거) */
+    private final boolean secure;
+
+    public static FileChangedEvent saved(Long userId, FileMetadataSummary file) {
+        return new FileChangedEvent(userId, file.getFilePath(), file, false);
+    }
+
+    public static FileChangedEvent deleted(Long userId, String filePath) {
+        return deleted(userId, filePath, false);
+    }
+
+    public static FileChangedEvent deleted(Long userId, String filePath, boolean secure) {
+        return new FileChangedEvent(userId, filePath, null, secure);
+    }
+
+    public boolean isDeleted() {
+        return file == null;
+    }
+}
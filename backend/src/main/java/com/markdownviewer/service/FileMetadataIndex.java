@@ -0,0 +1,607 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.dto.response.FileResponse;
+import com.markdownviewer.entity.User;
+import com.markdownviewer.repository.FileMetadataRepository;
+import com.markdownviewer.repository.FileMetadataSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 사용자별 파일 메타데이터 메모리 인덱스
+ * - 첫 조회 시 사용자 메타데이터를 한 번 읽어 적재(지연 로드), 이후 저장/업로드/삭제 이벤트로 write-through
+ * - 경로 정렬 맵(목록·접두사·키셋), 수정 시각 정렬 집합(마지막 문서), 디렉토리 트라이(폴더별 집계)를 함께 유지
+ * - 경로 trigram 역색인(빠른 열기)은 사용자의 첫 찾기 요청 때 만들고 이후 함께 갱신
+ * - 적재 사용자 수 상한(app.file-index.max-users) 초과 시 가장 오래 접근하지 않은 사용자부터 제거
+ * - 파일 수가 상한(app.file-index.max-files-per-user)을 넘는 사용자는 적재하지 않고 DB 조회로 처리
+ * - 이벤트는 같은 인스턴스의 변경만 전달되므로 적재 후 max-age(app.file-index.max-age-ms)가 지나면 다시 적재
+ *   → 여러 인스턴스 운영 시 다른 인스턴스의 저장/삭제도 max-age 이내에 반영 (0이면 재적재하지 않음, 단일 인스턴스용)
+ * @see FileService#listFiles
+ */
+@Service
+@Slf4j
+public class FileMetadataIndex {
+
+    /**
+     * 경로 정렬: 유니코드 코드 포인트 순 (DB file_path의 utf8mb4_bin 정렬과 같음)
+     * String 기본 순서(UTF-16 코드 단위)는 보조 평면 문자와 U+E000~U+FFFF의 순서가 달라 키셋 커서가 DB 조회와 어긋남
+     */
+    static final Comparator<String> PATH_ORDER = FileMetadataIndex::compareCodePoints;
+
+    private static final Comparator<FileMetadataSummary> BY_LAST_MODIFIED = Comparator
+            .comparing(FileMetadataSummary::getLastModified, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(FileMetadataSummary::getFilePath, PATH_ORDER);
+
+    private final FileMetadataRepository fileMetadataRepository;
+    private final int maxUsers;
+    private final int maxFilesPerUser;
+    private final long maxAgeNanos;
+
+    /** userId -> 사용자 인덱스 (파일 수 상한 초과 사용자는 tooLarge 표식만 보관) */
+    private final Map<Long, UserFileIndex> indexes = new ConcurrentHashMap<>();
+
+    public FileMetadataIndex(FileMetadataRepository fileMetadataRepository,
+                             @Value("${app.file-index.max-users:256}") int maxUsers,
+                             @Value("${app.file-index.max-files-per-user:100000}") int maxFilesPerUser,
+                             @Value("${app.file-index.max-age-ms:60000}") long maxAgeMs) {
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.maxUsers = maxUsers;
+        this.maxFilesPerUser = maxFilesPerUser;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+    }
+
+    /**
+     * 사용자 인덱스 (없으면 DB에서 적재). 파일 수 상한 초과 사용자는 null → 호출자가 DB 조회
+     */
+    public UserFileIndex get(User user) {
+        boolean[] loaded = {false};
+        UserFileIndex index = indexes.computeIfAbsent(user.getId(), id -> {
+            loaded[0] = true;
+            return load(user);
+        });
+        if (!loaded[0] && maxAgeNanos > 0 && System.nanoTime() - index.loadedAt > maxAgeNanos) {
+            // 다른 인스턴스의 변경을 반영하도록 다시 적재 (같은 인덱스를 본 요청 중 하나만 교체)
+            UserFileIndex stale = index;
+            index = indexes.compute(user.getId(), (id, current) -> {
+                if (current != null && current != stale) {
+                    return current;
+                }
+                loaded[0] = true;
+                return load(user);
+            });
+        }
+        index.lastAccess = System.nanoTime();
+        if (loaded[0]) {
+            evictIdleUsers();
+        }
+        return index.tooLarge ? null : index;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileChanged(FileChangedEvent event) {
+        // 로드 중인 사용자는 computeIfPresent가 로드 완료까지 대기 후 반영, 미적재 사용자는 다음 조회 시 DB에서 적재
+        indexes.computeIfPresent(event.getUserId(), (id, index) -> {
+            if (index.tooLarge) {
+                return null; // 파일 수가 바뀌었으므로 다음 조회 때 다시 판단
+            }
+            synchronized (index) {
+                if (event.isDeleted()) {
+                    index.remove(event.getFilePath());
+                } else {
+                    index.put(event.getFile());
+                }
+            }
+            return index;
+        });
+    }
+
+    /** 적재된 사용자 수 */
+    public int size() {
+        return indexes.size();
+    }
+
+    private UserFileIndex load(User user) {
+        List<FileMetadataSummary> all = fileMetadataRepository.findSummaries(user, "%", "",
+                PageRequest.of(0, maxFilesPerUser + 1));
+        if (all.size() > maxFilesPerUser) {
+            log.debug("파일 수 상한 초과로 메타데이터 인덱스 미적재: userId={}", user.getId());
+            UserFileIndex marker = new UserFileIndex();
+            marker.tooLarge = true;
+            return marker;
+        }
+        UserFileIndex index = UserFileIndex.of(all);
+        log.debug("메타데이터 인덱스 적재: userId={}, files={}", user.getId(), all.size());
+        return index;
+    }
+
+    /** 상한 초과분만큼 가장 오래 접근하지 않은 사용자 제거 (적재 시에만 호출, O(사용자 수)) */
+    private void evictIdleUsers() {
+        while (indexes.size() > maxUsers) {
+            Long eldest = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<Long, UserFileIndex> e : indexes.entrySet()) {
+                if (e.getValue().lastAccess < eldestAccess) {
+                    eldestAccess = e.getValue().lastAccess;
+                    eldest = e.getKey();
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            indexes.remove(eldest);
+        }
+    }
+
+    /** UTF-16 문자열을 코드 포인트 순으로 비교 (서로게이트를 U+E000 이상 문자 뒤로) */
+    private static int compareCodePoints(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        for (int i = 0; i < n; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                if (x >= Character.MIN_SURROGATE && y >= Character.MIN_SURROGATE) {
+                    x = (char) (x >= 0xE000 ? x - 0x800 : x + 0x2000);
+                    y = (char) (y >= 0xE000 ? y - 0x800 : y + 0x2000);
+                }
+                return x - y;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * 한 사용자의 메타데이터 인덱스. 모든 조회/변경은 인스턴스 단위로 동기화
+     */
+    public static final class UserFileIndex {
+        private final TreeMap<String, FileMetadataSummary> byPath = new TreeMap<>(PATH_ORDER);
+        private final TreeSet<FileMetadataSummary> byLastModified = new TreeSet<>(BY_LAST_MODIFIED);
+        private final DirectoryNode root = new DirectoryNode("", "");
+        /** 첫 find 전까지 null (찾기를 쓰지 않는 사용자는 메모리를 쓰지 않음) */
+        private PathTrigramIndex trigrams;
+        private volatile long lastAccess = System.nanoTime();
+        private final long loadedAt = System.nanoTime();
+        private boolean tooLarge;
+
+        /** 요약 목록으로 인덱스 구성 */
+        public static UserFileIndex of(List<FileMetadataSummary> files) {
+            UserFileIndex index = new UserFileIndex();
+            for (FileMetadataSummary f : files) {
+                index.put(f);
+            }
+            return index;
+        }
+
+        /**
+         * 경로 오름차순 목록 (PATH_ORDER, DB 키셋 조회와 같은 순서)
+         *
+         * @param dirPrefix 디렉토리 접두사 ("dir/"처럼 '/'로 끝남, 전체는 "")
+         * @param after     이 경로 다음부터 (첫 페이지는 "")
+         * @param max       최대 개수 (음수면 제한 없음)
+         */
+        public synchronized List<FileMetadataSummary> list(String dirPrefix, String after, int max) {
+            NavigableMap<String, FileMetadataSummary> view = byPath;
+            if (!dirPrefix.isEmpty()) {
+                // "dir/"로 시작하는 경로는 모두 "dir0"('/' 다음 문자) 앞
+                String upper = dirPrefix.substring(0, dirPrefix.length() - 1) + (char) ('/' + 1);
+                view = view.subMap(dirPrefix, true, upper, false);
+            }
+            if (!after.isEmpty()) {
+                view = view.tailMap(after, false);
+            }
+            List<FileMetadataSummary> result = new ArrayList<>(max < 0 ? view.size() : Math.min(max, view.size()));
+            for (FileMetadataSummary f : view.values()) {
+                if (max >= 0 && result.size() >= max) {
+                    break;
+                }
+                result.add(f);
+            }
+            return result;
+        }
+
+        public synchronized Optional<FileMetadataSummary> get(String filePath) {
+            return Optional.ofNullable(byPath.get(filePath));
+        }
+
+        /** 가장 최근에 수정된 파일 */
+        public synchronized Optional<FileMetadataSummary> latest() {
+            return byLastModified.isEmpty() ? Optional.empty() : Optional.of(byLastModified.last());
+        }
+
+        /**
+         * path 디렉토리와 depth 단계까지의 하위 항목 (depth=1이면 바로 아래 자식만)
+         *
+         * @param path 정리된 상대 경로 (""이면 루트)
+         */
+        public synchronized Optional<FileResponse> tree(String path, int depth) {
+            DirectoryNode node = root;
+            if (!path.isEmpty()) {
+                for (String segment : path.split("/")) {
+                    if (segment.isEmpty()) {
+                        continue;
+                    }
+                    node = node.dirs.get(segment);
+                    if (node == null) {
+                        return Optional.empty();
+                    }
+                }
+            }
+            return Optional.of(node.toResponse(depth));
+        }
+
+        /**
+         * 경로 퍼지 찾기 (빠른 열기). 질의의 trigram을 절반 이상 포함한 경로를 일치율·파일명 일치 순으로
+         * 1~2글자 질의는 그 글자로 시작하는 경로 구간(디렉토리명·파일명)과 일치
+         *
+         * @param query 찾을 문자열 (대소문자 무시)
+         * @param max   최대 개수
+         */
+        public synchronized List<FileMetadataSummary> find(String query, int max) {
+            if (trigrams == null) {
+                trigrams = new PathTrigramIndex();
+                for (FileMetadataSummary f : byPath.values()) {
+                    trigrams.put(f);
+                }
+            }
+            return trigrams.find(query, max);
+        }
+
+        void put(FileMetadataSummary file) {
+            FileMetadataSummary previous = byPath.put(file.getFilePath(), file);
+            if (previous != null) {
+                byLastModified.remove(previous);
+            }
+            byLastModified.add(file);
+            root.put(file);
+            if (trigrams != null) {
+                trigrams.put(file);
+            }
+        }
+
+        void remove(String filePath) {
+            FileMetadataSummary previous = byPath.remove(filePath);
+            if (previous != null) {
+                byLastModified.remove(previous);
+                root.remove(filePath);
+                if (trigrams != null) {
+                    trigrams.remove(filePath);
+                }
+            }
+        }
+    }
+
+    /**
+     * 경로 trigram 역색인 (소문자 "/" + 경로 기준)
+     * - 경로마다 슬롯 번호를 주고 trigram별로 슬롯 번호 정렬 배열 유지 (삭제된 슬롯은 재사용)
+     * - 구간 시작 bigram("/a")도 함께 색인해 1글자 질의 처리
+     * - 질의 시 trigram별 posting을 훑어 슬롯별 일치 수를 세므로 비용은 경로 수가 아니라 일치한 posting 길이에 비례
+     */
+    private static final class PathTrigramIndex {
+        private final ArrayList<FileMetadataSummary> files = new ArrayList<>();
+        private final ArrayList<String> lowered = new ArrayList<>();
+        private final HashMap<String, Integer> slots = new HashMap<>();
+        private final HashMap<String, SlotList> postings = new HashMap<>();
+        private int[] free = new int[8];
+        private int freeCount;
+        /** 질의 중 슬롯별 일치 수. 질의마다 할당하지 않도록 재사용하고 끝나면 건드린 슬롯만 0으로 되돌림 */
+        private int[] counts = new int[0];
+
+        void put(FileMetadataSummary file) {
+            String path = file.getFilePath();
+            Integer existing = slots.get(path);
+            if (existing != null) {
+                files.set(existing, file); // 같은 경로면 trigram 동일
+                return;
+            }
+            String key = normalize(path);
+            int slot;
+            if (freeCount > 0) {
+                slot = free[--freeCount];
+                files.set(slot, file);
+                lowered.set(slot, key);
+            } else {
+                slot = files.size();
+                files.add(file);
+                lowered.add(key);
+            }
+            slots.put(path, slot);
+            for (String gram : grams(key)) {
+                postings.computeIfAbsent(gram, g -> new SlotList()).insert(slot);
+            }
+        }
+
+        void remove(String path) {
+            Integer slot = slots.remove(path);
+            if (slot == null) {
+                return;
+            }
+            for (String gram : grams(lowered.get(slot))) {
+                SlotList list = postings.get(gram);
+                if (list != null && list.delete(slot) && list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+            files.set(slot, null);
+            lowered.set(slot, null);
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount * 2);
+            }
+            free[freeCount++] = slot;
+        }
+
+        List<FileMetadataSummary> find(String query, int max) {
+            String q = query.toLowerCase(Locale.ROOT);
+            int start = 0;
+            while (start < q.length() && q.charAt(start) == '/') {
+                start++;
+            }
+            q = q.substring(start);
+            if (q.isEmpty()) {
+                return new ArrayList<>();
+            }
+            List<String> grams = new ArrayList<>();
+            if (q.length() < 3) {
+                grams.add("/" + q);
+            } else {
+                grams.addAll(grams(q));
+            }
+            int needed = grams.size() <= 2 ? 1 : (grams.size() + 1) / 2;
+
+            if (counts.length < files.size()) {
+                counts = new int[Math.max(files.size(), counts.length * 2)];
+            }
+            int[] touched = new int[16];
+            int touchedCount = 0;
+            for (String gram : grams) {
+                SlotList list = postings.get(gram);
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0; i < list.size; i++) {
+                    int slot = list.slots[i];
+                    if (counts[slot]++ == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = slot;
+                    }
+                }
+            }
+
+            // 후보는 touched 안의 위치로 다룸 (점수 배열도 일치한 슬롯 수만큼)
+            int[] hits = touched;
+            double[] scores = new double[touchedCount];
+            PriorityQueue<Integer> top = new PriorityQueue<>(max + 1, (a, b) -> scores[a] != scores[b]
+                    ? Double.compare(scores[a], scores[b])
+                    : lowered.get(hits[b]).compareTo(lowered.get(hits[a])));
+            for (int i = 0; i < touchedCount; i++) {
+                int slot = hits[i];
+                int count = counts[slot];
+                counts[slot] = 0;
+                if (count < needed) {
+                    continue;
+                }
+                scores[i] = score(lowered.get(slot), q, (double) count / grams.size());
+                top.add(i);
+                if (top.size() > max) {
+                    top.poll();
+                }
+            }
+            List<FileMetadataSummary> result = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                result.add(files.get(hits[top.poll()]));
+            }
+            Collections.reverse(result);
+            return result;
+        }
+
+        /** trigram 일치율 + 파일명 접두사 > 파일명 포함 > 경로 포함 가산, 짧은 경로 우선 */
+        private static double score(String key, String q, double coverage) {
+            String name = key.substring(key.lastIndexOf('/') + 1);
+            int at = name.indexOf(q);
+            double bonus = at == 0 ? 3 : at > 0 ? 2 : key.contains(q) ? 1 : 0;
+            return coverage + bonus - key.length() * 0.001;
+        }
+
+        private static String normalize(String path) {
+            return "/" + path.toLowerCase(Locale.ROOT);
+        }
+
+        /** 서로 다른 trigram + 구간 시작 bigram */
+        private static Set<String> grams(String s) {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + 3 <= s.length(); i++) {
+                grams.add(s.substring(i, i + 3));
+            }
+            for (int i = 0; i + 2 <= s.length(); i++) {
+                if (s.charAt(i) == '/') {
+                    grams.add(s.substring(i, i + 2));
+                }
+            }
+            return grams;
+        }
+    }
+
+    /** 오름차순 슬롯 번호 목록 */
+    private static final class SlotList {
+        private int[] slots = new int[4];
+        private int size;
+
+        void insert(int slot) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, at, slots, at + 1, size - at);
+            slots[at] = slot;
+            size++;
+        }
+
+        boolean delete(int slot) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(slots, at + 1, slots, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * 디렉토리 노드. fileCount·totalSize·lastModified는 하위 전체 집계
+     */
+    private static final class DirectoryNode {
+        private final String name;
+        private final String path;
+        private final TreeMap<String, DirectoryNode> dirs = new TreeMap<>();
+        private final TreeMap<String, FileMetadataSummary> files = new TreeMap<>();
+        private long fileCount;
+        private long totalSize;
+        private LocalDateTime lastModified;
+
+        private DirectoryNode(String name, String path) {
+            this.name = name;
+            this.path = path;
+        }
+
+        /**
+         * 파일 추가/갱신 (경로상의 디렉토리 집계 갱신)
+         * 수정 시각은 새 시각으로 최댓값만 올림. 이전 시각이 최댓값이었는데 더 이른 시각으로 바뀐 경우에만 다시 계산
+         */
+        void put(FileMetadataSummary file) {
+            String[] segments = file.getFilePath().split("/");
+            List<DirectoryNode> trail = new ArrayList<>(segments.length);
+            DirectoryNode node = this;
+            trail.add(node);
+            for (int i = 0; i < segments.length - 1; i++) {
+                String segment = segments[i];
+                DirectoryNode parent = node;
+                node = node.dirs.computeIfAbsent(segment, s -> new DirectoryNode(s,
+                        parent.path.isEmpty() ? s : parent.path + "/" + s));
+                trail.add(node);
+            }
+            FileMetadataSummary previous = node.files.put(segments[segments.length - 1], file);
+            long countDelta = previous == null ? 1 : 0;
+            long sizeDelta = size(file) - (previous == null ? 0 : size(previous));
+            for (int i = trail.size() - 1; i >= 0; i--) {
+                DirectoryNode n = trail.get(i);
+                n.fileCount += countDelta;
+                n.totalSize += sizeDelta;
+                if (previous != null && isBefore(file.getLastModified(), previous.getLastModified())
+                        && Objects.equals(n.lastModified, previous.getLastModified())) {
+                    n.recomputeLastModified();
+                } else {
+                    n.lastModified = max(n.lastModified, file.getLastModified());
+                }
+            }
+        }
+
+        /** 파일 제거 (빈 디렉토리는 정리). 제거한 파일이 최신 수정 시각을 가졌던 디렉토리만 다시 계산 */
+        void remove(String filePath) {
+            String[] segments = filePath.split("/");
+            List<DirectoryNode> trail = new ArrayList<>(segments.length);
+            DirectoryNode node = this;
+            trail.add(node);
+            for (int i = 0; i < segments.length - 1; i++) {
+                node = node.dirs.get(segments[i]);
+                if (node == null) {
+                    return;
+                }
+                trail.add(node);
+            }
+            FileMetadataSummary removed = node.files.remove(segments[segments.length - 1]);
+            if (removed == null) {
+                return;
+            }
+            for (int i = trail.size() - 1; i >= 0; i--) {
+                DirectoryNode n = trail.get(i);
+                n.fileCount -= 1;
+                n.totalSize -= size(removed);
+                if (i > 0 && n.fileCount == 0) {
+                    trail.get(i - 1).dirs.remove(n.name);
+                } else if (Objects.equals(n.lastModified, removed.getLastModified())) {
+                    n.recomputeLastModified();
+                }
+            }
+        }
+
+        FileResponse toResponse(int depth) {
+            List<FileResponse> children = null;
+            if (depth > 0) {
+                children = new ArrayList<>(dirs.size() + files.size());
+                for (DirectoryNode dir : dirs.values()) {
+                    children.add(dir.toResponse(depth - 1));
+                }
+                for (FileMetadataSummary f : files.values()) {
+                    children.add(FileResponse.fromSummary(f));
+                }
+            }
+            return FileResponse.builder()
+                    .path(path)
+                    .name(name)
+                    .type("directory")
+                    .size(totalSize)
+                    .fileCount(fileCount)
+                    .lastModified(lastModified)
+                    .children(children)
+                    .build();
+        }
+
+        private void recomputeLastModified() {
+            LocalDateTime latest = null;
+            for (DirectoryNode d : dirs.values()) {
+                latest = max(latest, d.lastModified);
+            }
+            for (FileMetadataSummary f : files.values()) {
+                latest = max(latest, f.getLastModified());
+            }
+            lastModified = latest;
+        }
+
+        private static long size(FileMetadataSummary f) {
+            return f.getFileSize() != null ? f.getFileSize() : 0L;
+        }
+
+        /** a가 b보다 이른지 (null은 가장 이른 시각) */
+        private static boolean isBefore(LocalDateTime a, LocalDateTime b) {
+            return b != null && (a == null || a.isBefore(b));
+        }
+
+        private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return a.isAfter(b) ? a : b;
+        }
+    }
+}
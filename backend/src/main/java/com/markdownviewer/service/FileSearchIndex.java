@@ -0,0 +1,615 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.entity.User;
+import com.markdownviewer.repository.FileMetadataRepository;
+import com.markdownviewer.util.HashUtil;
+import com.markdownviewer.util.SearchTokenizer;
+import com.markdownviewer.util.StoredContent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 사용자별 전문 검색 인덱스 (역색인 + BM25 순위)
+ * - 토큰은 {@link SearchTokenizer} (라틴 단어 + 한글·한자 bigram), 파일명도 본문과 함께 색인
+ * - 저장/업로드/삭제 이벤트(커밋 후)를 색인 스레드가 받아 해당 파일만 다시 읽어 증분 반영 (검색은 잠깐 뒤처질 수 있음)
+ * - 사용자 첫 검색 시 {base-path}/users/{id}/search.idx 를 읽고 DB의 내용 해시와 다른·새·사라진 파일만 반영 (파일이 없으면 전체 색인)
+ * - 변경은 주기적으로(app.search.persist-interval-ms), 메모리에서 제거할 때, 종료 시 원자적으로 기록
+ * - 삭제·갱신된 문서는 표시만 해 두고 기록 전에 문서 번호를 다시 매겨 압축 (그 전까지 df에 포함)
+ * - 검색은 질의 토큰의 posting만 훑어 점수를 누적하고, 디스크는 상위 결과의 스니펫을 만들 때만 읽음
+ * - 암호화 파일은 서버가 평문을 모르므로 색인하지 않음
+ * - 적재 사용자 수 상한(app.search.max-users) 초과 시 가장 오래 검색하지 않은 사용자부터 기록 후 제거
+ */
+@Service
+@Slf4j
+public class FileSearchIndex {
+
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+
+    private static final int FORMAT_MAGIC = 0x4D565349; // "MVSI"
+    private static final int FORMAT_VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int SNIPPET_LENGTH = 160;
+    private static final int SNIPPET_LEAD = 40;
+
+    private final FileMetadataRepository fileMetadataRepository;
+    private final AtomicFileWriter atomicFileWriter;
+    private final String basePath;
+    private final int maxUsers;
+
+    /** userId -> 사용자 인덱스 */
+    private final Map<Long, UserSearchIndex> indexes = new ConcurrentHashMap<>();
+
+    /** 이벤트 반영 전용 (요청 스레드에서 파일을 다시 읽지 않도록) */
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "search-indexer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public FileSearchIndex(FileMetadataRepository fileMetadataRepository,
+                           AtomicFileWriter atomicFileWriter,
+                           @Value("${app.file-storage-base-path:./data}") String basePath,
+                           @Value("${app.search.max-users:64}") int maxUsers) {
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.atomicFileWriter = atomicFileWriter;
+        this.basePath = basePath;
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * 검색 (점수 내림차순)
+     *
+     * @param limit 결과 수 (null이면 {@value #DEFAULT_LIMIT}, 최대 {@value #MAX_LIMIT})
+     * @throws IllegalArgumentException INVALID_QUERY (검색할 토큰이 없음)
+     */
+    public List<SearchHit> search(User user, String query, Integer limit) {
+        Set<String> terms = query != null ? new LinkedHashSet<>(SearchTokenizer.terms(query)) : Set.of();
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("INVALID_QUERY");
+        }
+        int max = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        UserSearchIndex index = get(user);
+        List<SearchHit> hits = index.search(terms, max);
+        Path dir = userFiles(user.getId());
+        for (SearchHit hit : hits) {
+            snippet(dir.resolve(hit.getPath()), terms, hit);
+        }
+        return hits;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileChanged(FileChangedEvent event) {
+        indexer.execute(() -> apply(event));
+    }
+
+    /** 적재된 사용자 수 */
+    public int size() {
+        return indexes.size();
+    }
+
+    /** 변경된 사용자 인덱스 기록 */
+    @Scheduled(fixedDelayString = "${app.search.persist-interval-ms:60000}")
+    public void persistDirty() {
+        for (Map.Entry<Long, UserSearchIndex> e : indexes.entrySet()) {
+            if (e.getValue().dirty) {
+                persist(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdown();
+        try {
+            indexer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        persistDirty();
+    }
+
+    UserSearchIndex get(User user) {
+        boolean[] loaded = {false};
+        UserSearchIndex index = indexes.computeIfAbsent(user.getId(), id -> {
+            loaded[0] = true;
+            return load(user);
+        });
+        index.lastAccess = System.nanoTime();
+        if (loaded[0]) {
+            evictIdleUsers();
+        }
+        return index;
+    }
+
+    /** 로드 중인 사용자는 computeIfPresent가 로드 완료까지 대기 후 반영, 미적재 사용자는 다음 적재 시 DB 대조로 반영 */
+    void apply(FileChangedEvent event) {
+        UserSearchIndex index = indexes.computeIfPresent(event.getUserId(), (id, idx) -> idx);
+        if (index == null) {
+            return;
+        }
+        if (event.isDeleted() || Boolean.TRUE.equals(event.getFile().getEncrypted())) {
+            index.remove(event.getFilePath());
+        } else {
+            indexFile(index, event.getUserId(), event.getFilePath());
+        }
+    }
+
+    private UserSearchIndex load(User user) {
+        Long userId = user.getId();
+        UserSearchIndex index = read(indexPath(userId));
+        boolean fresh = index == null;
+        if (fresh) {
+            index = new UserSearchIndex();
+        }
+        Map<String, String> expected = new HashMap<>();
+        for (Object[] row : fileMetadataRepository.findContentHashes(user)) {
+            if (!Boolean.TRUE.equals(row[2])) {
+                expected.put((String) row[0], (String) row[1]);
+            }
+        }
+        int changed = 0;
+        for (String path : index.paths()) {
+            if (!expected.containsKey(path)) {
+                index.remove(path);
+                changed++;
+            }
+        }
+        for (Map.Entry<String, String> e : expected.entrySet()) {
+            String indexedHash = index.contentHash(e.getKey());
+            // 내용 해시가 없는 기존 행은 이미 색인되어 있으면 그대로 둠
+            if (indexedHash == null || (e.getValue() != null && !e.getValue().equalsIgnoreCase(indexedHash))) {
+                indexFile(index, userId, e.getKey());
+                changed++;
+            }
+        }
+        log.debug("검색 인덱스 적재: userId={}, docs={}, {}={}", userId, index.liveDocs(),
+                fresh ? "indexed" : "reindexed", changed);
+        return index;
+    }
+
+    /** 디스크에서 파일을 읽어 (다시) 색인, 없으면 제거 */
+    private void indexFile(UserSearchIndex index, Long userId, String path) {
+        byte[] bytes;
+        try {
+            bytes = StoredContent.read(userFiles(userId).resolve(path));
+        } catch (NoSuchFileException e) {
+            index.remove(path);
+            return;
+        } catch (IOException e) {
+            log.warn("검색 색인용 파일 읽기 실패: userId={}, path={}", userId, path, e);
+            return;
+        }
+        Map<String, int[]> tf = new HashMap<>();
+        int[] length = {0};
+        SearchTokenizer.TokenConsumer count = (term, start, end) -> {
+            tf.computeIfAbsent(term, t -> new int[1])[0]++;
+            length[0]++;
+        };
+        SearchTokenizer.tokenize(Paths.get(path).getFileName().toString(), count);
+        SearchTokenizer.tokenize(new String(bytes, StandardCharsets.UTF_8), count);
+        index.put(path, HashUtil.sha256Hex(bytes), tf, length[0]);
+    }
+
+    /** 첫 일치 토큰 앞뒤로 스니펫을 자르고 스니펫 안의 일치 구간 표시 */
+    private static void snippet(Path file, Set<String> terms, SearchHit hit) {
+        String text;
+        try {
+            text = new String(StoredContent.read(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return; // 색인 후 삭제·변경된 파일 (다음 이벤트에서 반영)
+        }
+        List<int[]> matches = new ArrayList<>();
+        SearchTokenizer.tokenize(text, (term, start, end) -> {
+            if (terms.contains(term)) {
+                matches.add(new int[]{start, end});
+            }
+        });
+        int from = matches.isEmpty() ? 0 : Math.max(0, matches.get(0)[0] - SNIPPET_LEAD);
+        int to = Math.min(text.length(), from + SNIPPET_LENGTH);
+        if (from > 0 && Character.isLowSurrogate(text.charAt(from))) {
+            from++;
+        }
+        if (to < text.length() && Character.isHighSurrogate(text.charAt(to - 1))) {
+            to--;
+        }
+        List<int[]> highlights = new ArrayList<>();
+        for (int[] m : matches) {
+            if (m[0] >= to) {
+                break;
+            }
+            if (m[0] >= from && m[1] <= to) {
+                highlights.add(new int[]{m[0] - from, m[1] - from});
+            }
+        }
+        hit.setSnippet(text.substring(from, to).replace('\n', ' ').replace('\r', ' '));
+        hit.setHighlights(highlights);
+    }
+
+    private void evictIdleUsers() {
+        while (indexes.size() > maxUsers) {
+            Long eldest = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<Long, UserSearchIndex> e : indexes.entrySet()) {
+                if (e.getValue().lastAccess < eldestAccess) {
+                    eldestAccess = e.getValue().lastAccess;
+                    eldest = e.getKey();
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            UserSearchIndex removed = indexes.remove(eldest);
+            if (removed != null && removed.dirty) {
+                persist(eldest, removed);
+            }
+        }
+    }
+
+    private void persist(Long userId, UserSearchIndex index) {
+        Path target = indexPath(userId);
+        try {
+            Path temp = atomicFileWriter.createTempFile(target);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                index.write(out);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            atomicFileWriter.commit(temp, target);
+        } catch (IOException e) {
+            index.dirty = true;
+            log.error("검색 인덱스 기록 실패: {}", target, e);
+        }
+    }
+
+    /** 기록된 인덱스 읽기 (없거나 형식이 다르면 null → 전체 색인) */
+    private static UserSearchIndex read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return UserSearchIndex.read(in);
+        } catch (IOException | RuntimeException e) {
+            log.warn("검색 인덱스를 읽을 수 없어 다시 색인: {}", file, e);
+            return null;
+        }
+    }
+
+    private Path userFiles(Long userId) {
+        return Paths.get(basePath).resolve("users").resolve(userId.toString()).resolve("files");
+    }
+
+    private Path indexPath(Long userId) {
+        return Paths.get(basePath).resolve("users").resolve(userId.toString()).resolve("search.idx");
+    }
+
+    /** 검색 결과 (highlights는 snippet 안의 [start, end) 구간) */
+    @lombok.Data
+    @lombok.Builder
+    public static class SearchHit {
+        private String path;
+        private String name;
+        private double score;
+        private String snippet;
+        private List<int[]> highlights;
+    }
+
+    /** 색인된 문서 (docId 위치) */
+    private record Doc(String path, String contentHash, int length) {
+    }
+
+    /** 한 토큰의 posting 목록 (docId 오름차순, 같은 위치에 빈도) */
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int[] freqs = new int[2];
+        private int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    /**
+     * 한 사용자의 역색인. 검색·기록은 읽기 잠금, 색인 변경·압축은 쓰기 잠금
+     */
+    static final class UserSearchIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final ArrayList<Doc> docs = new ArrayList<>();          // docId -> 문서 (삭제되면 null)
+        private final HashMap<String, Integer> docIds = new HashMap<>(); // 경로 -> 살아 있는 docId
+        private final HashMap<String, Postings> postings = new HashMap<>();
+        private long totalLength;
+        private int deleted;
+        private volatile boolean dirty;
+        private volatile long lastAccess = System.nanoTime();
+
+        void put(String path, String contentHash, Map<String, int[]> tf, int length) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(path);
+                int docId = docs.size();
+                docs.add(new Doc(path, contentHash, length));
+                docIds.put(path, docId);
+                for (Map.Entry<String, int[]> e : tf.entrySet()) {
+                    postings.computeIfAbsent(e.getKey(), t -> new Postings()).add(docId, e.getValue()[0]);
+                }
+                totalLength += length;
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(String path) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(path);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(String path) {
+            Integer docId = docIds.remove(path);
+            if (docId != null) {
+                totalLength -= docs.get(docId).length();
+                docs.set(docId, null);
+                deleted++;
+                dirty = true;
+            }
+        }
+
+        String contentHash(String path) {
+            lock.readLock().lock();
+            try {
+                Integer docId = docIds.get(path);
+                return docId != null ? docs.get(docId).contentHash() : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<String> paths() {
+            lock.readLock().lock();
+            try {
+                return new ArrayList<>(docIds.keySet());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int liveDocs() {
+            lock.readLock().lock();
+            try {
+                return docIds.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /** BM25 상위 max개 (질의 토큰 중 하나라도 포함한 문서) */
+        List<SearchHit> search(Set<String> terms, int max) {
+            lock.readLock().lock();
+            try {
+                int live = docIds.size();
+                if (live == 0) {
+                    return new ArrayList<>();
+                }
+                double avgLength = Math.max(1.0, (double) totalLength / live);
+                float[] scores = new float[docs.size()];
+                int[] touched = new int[16];
+                int touchedCount = 0;
+                for (String term : terms) {
+                    Postings p = postings.get(term);
+                    if (p == null) {
+                        continue;
+                    }
+                    int df = Math.min(p.size, live);
+                    double idf = Math.log(1 + (live - df + 0.5) / (df + 0.5));
+                    for (int i = 0; i < p.size; i++) {
+                        int docId = p.docs[i];
+                        Doc doc = docs.get(docId);
+                        if (doc == null) {
+                            continue;
+                        }
+                        int freq = p.freqs[i];
+                        double norm = K1 * (1 - B + B * doc.length() / avgLength);
+                        if (scores[docId] == 0f) {
+                            if (touchedCount == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            }
+                            touched[touchedCount++] = docId;
+                        }
+                        scores[docId] += (float) (idf * freq * (K1 + 1) / (freq + norm));
+                    }
+                }
+                PriorityQueue<Integer> top = new PriorityQueue<>(max + 1, (a, b) -> Float.compare(scores[a], scores[b]));
+                for (int i = 0; i < touchedCount; i++) {
+                    top.add(touched[i]);
+                    if (top.size() > max) {
+                        top.poll();
+                    }
+                }
+                List<SearchHit> hits = new ArrayList<>(top.size());
+                while (!top.isEmpty()) {
+                    int docId = top.poll();
+                    String path = docs.get(docId).path();
+                    hits.add(SearchHit.builder()
+                            .path(path)
+                            .name(Paths.get(path).getFileName().toString())
+                            .score(scores[docId])
+                            .highlights(List.of())
+                            .build());
+                }
+                Collections.reverse(hits);
+                return hits;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /** 삭제 표시된 문서를 빼고 docId를 다시 매김 (쓰기 잠금 안에서) */
+        private void compactLocked() {
+            if (deleted == 0) {
+                return;
+            }
+            int[] remap = new int[docs.size()];
+            ArrayList<Doc> liveDocs = new ArrayList<>(docIds.size());
+            for (int i = 0; i < docs.size(); i++) {
+                Doc d = docs.get(i);
+                remap[i] = d == null ? -1 : liveDocs.size();
+                if (d != null) {
+                    liveDocs.add(d);
+                }
+            }
+            postings.entrySet().removeIf(e -> {
+                Postings p = e.getValue();
+                int n = 0;
+                for (int i = 0; i < p.size; i++) {
+                    int mapped = remap[p.docs[i]];
+                    if (mapped >= 0) {
+                        p.docs[n] = mapped;
+                        p.freqs[n] = p.freqs[i];
+                        n++;
+                    }
+                }
+                p.size = n;
+                return n == 0;
+            });
+            docs.clear();
+            docs.addAll(liveDocs);
+            docIds.clear();
+            for (int i = 0; i < docs.size(); i++) {
+                docIds.put(docs.get(i).path(), i);
+            }
+            deleted = 0;
+        }
+
+        /** 압축 후 읽기 잠금으로 낮춰 기록 (기록 중에도 검색 가능) */
+        void write(DataOutputStream out) throws IOException {
+            lock.writeLock().lock();
+            try {
+                compactLocked();
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                dirty = false;
+                writeLocked(out);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void writeLocked(DataOutputStream out) throws IOException {
+            out.writeInt(FORMAT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(docs.size());
+            for (Doc d : docs) {
+                out.writeUTF(d.path());
+                out.writeUTF(d.contentHash());
+                out.writeInt(d.length());
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Postings> e : postings.entrySet()) {
+                Postings p = e.getValue();
+                out.writeUTF(e.getKey());
+                writeVarInt(out, p.size);
+                int prev = 0;
+                for (int i = 0; i < p.size; i++) {
+                    writeVarInt(out, p.docs[i] - prev); // 오름차순 docId 차이
+                    writeVarInt(out, p.freqs[i]);
+                    prev = p.docs[i];
+                }
+            }
+        }
+
+        static UserSearchIndex read(DataInputStream in) throws IOException {
+            if (in.readInt() != FORMAT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("unsupported search index format");
+            }
+            UserSearchIndex index = new UserSearchIndex();
+            int docCount = in.readInt();
+            for (int i = 0; i < docCount; i++) {
+                Doc d = new Doc(in.readUTF(), in.readUTF(), in.readInt());
+                index.docs.add(d);
+                index.docIds.put(d.path(), i);
+                index.totalLength += d.length();
+            }
+            int termCount = in.readInt();
+            for (int t = 0; t < termCount; t++) {
+                String term = in.readUTF();
+                int size = readVarInt(in);
+                Postings p = new Postings();
+                p.docs = new int[Math.max(2, size)];
+                p.freqs = new int[Math.max(2, size)];
+                int doc = 0;
+                for (int i = 0; i < size; i++) {
+                    doc += readVarInt(in);
+                    p.docs[i] = doc;
+                    p.freqs[i] = readVarInt(in);
+                }
+                p.size = size;
+                index.postings.put(term, p);
+            }
+            return index;
+        }
+
+        private static void writeVarInt(DataOutputStream out, int v) throws IOException {
+            while ((v & ~0x7F) != 0) {
+                out.writeByte((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.writeByte(v);
+        }
+
+        private static int readVarInt(DataInputStream in) throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+            throw new IOException("malformed varint");
+        }
+    }
+}
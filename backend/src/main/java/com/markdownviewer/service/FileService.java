@@ -1,28 +1,68 @@
 package com.markdownviewer.service;
 
+import com.markdownviewer.config.CacheConfig;
+import com.markdownviewer.dto.request.FilePatchRequest;
+import com.markdownviewer.dto.response.FileResponse;
+import com.markdownviewer.dto.response.RenderPatch;
 import com.markdownviewer.entity.FileMetadata;
+import com.markdownviewer.entity.FileVersion;
 import com.markdownviewer.entity.User;
 import com.markdownviewer.repository.FileMetadataRepository;
+import com.markdownviewer.repository.FileMetadataSummary;
 import com.markdownviewer.repository.UserRepository;
+import com.markdownviewer.service.SaveCoalescer.PendingSave;
+import com.markdownviewer.util.HashUtil;
+import com.markdownviewer.util.StoredContent;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 
 /**
  * 파일 저장/조회 서비스
@@ -37,13 +77,58 @@ public class FileService {
 
     private final FileMetadataRepository fileMetadataRepository;
     private final UserRepository userRepository;
+    private final MarkdownRenderService markdownRenderService;
+    private final FileMetadataIndex fileMetadataIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicFileWriter atomicFileWriter;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final StorageQuotaService storageQuotaService;
+    private final SaveCoalescer saveCoalescer;
+    private final FileSearchIndex fileSearchIndex;
+    private final FileVersionService fileVersionService;
+    private final EntityManager entityManager;
 
     @Value("${app.file-storage-base-path:./data}")
     private String basePath;
 
+    /** 일괄 업로드 시 동시에 복사·교체하는 파일 수 */
+    @Value("${app.file-upload.batch-parallelism:4}")
+    private int batchParallelism;
+
+    /** 평문 파일 저장 형식: gzip(압축해 저장, {@link StoredContent}) | none */
+    @Value("${app.file-storage-compression:none}")
+    private String compression;
+
+    /** 이보다 작은 파일은 압축하지 않음 (헤더 오버헤드·파일시스템 블록 단위라 이득 없음) */
+    @Value("${app.file-storage-compression-min-size:1024}")
+    private long compressionMinSize;
+
     private static final long MAX_FILE_SIZE = 16 * 1024 * 1024; // 16MB
     private static final String ALLOWED_EXT = ".md";
     private static final String ALLOWED_EXT_ALT = ".markdown";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_TREE_DEPTH = 16;
+    private static final int DEFAULT_FIND_LIMIT = 20;
+    private static final int MAX_FIND_LIMIT = 100;
+    private static final int DEFAULT_VERSION_LIMIT = 50;
+    private static final int MAX_VERSION_LIMIT = 500;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BATCH_FILES = 1000;
+    private static final int IN_CLAUSE_CHUNK = 500;
+
+    private static final String BATCH_UPDATE_SQL =
+            "update file_metadata set file_size = ?, stored_size = ?, last_modified = ?, content_hash = ?,"
+                    + " encrypted = false, iv = null, auth_tag = null where id = ?"; // 업로드는 항상 평문
+    private static final String BATCH_INSERT_SQL =
+            "insert into file_metadata (user_id, file_path, file_name, file_size, stored_size, encrypted, mime_type,"
+                    + " last_modified, content_hash, created_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PostConstruct
+    void registerFlusher() {
+        saveCoalescer.setFlusher(this::flushPending);
+        saveCoalescer.setDropper(this::dropPending);
+    }
 
     private Path userDir(Long userId) {
         return Paths.get(basePath).resolve("users").resolve(userId.toString()).resolve("files");
@@ -58,43 +143,164 @@ public class FileService {
         if (path.startsWith("/") || path.contains("..")) {
             throw new IllegalArgumentException("INVALID_PATH");
         }
+        // 저장용 임시 파일 이름은 예약 (남은 임시 파일 정리가 사용자 파일을 지우지 않도록)
+        if (path.startsWith(AtomicFileWriter.TEMP_PREFIX) || path.contains("/" + AtomicFileWriter.TEMP_PREFIX)) {
+            throw new IllegalArgumentException("INVALID_PATH");
+        }
         return path;
     }
 
+    /**
+     * 파일 목록 조회 (경로 접두사 필터 + 키셋 페이지네이션)
+     * 메모리 인덱스가 있으면 인덱스에서, 없으면(파일 수 상한 초과 사용자) DB 프로젝션 조회
+     *
+     * @param cursor 직전 페이지의 nextCursor (첫 페이지는 null)
+     * @param limit  페이지 크기 (null이면 전체, 최대 {@value #MAX_PAGE_SIZE})
+     */
     @Transactional(readOnly = true)
-    public List<FileMetadata> listFiles(User user, String directoryPath) {
-        List<FileMetadata> all = fileMetadataRepository.findByUserOrderByFileNameAsc(user);
-        if (directoryPath == null || directoryPath.isBlank()) {
-            return all;
+    public FilePage listFiles(User user, String directoryPath, String cursor, Integer limit) {
+        String dir = "";
+        if (directoryPath != null && !directoryPath.isBlank()) {
+            dir = sanitizePath(directoryPath);
+            if (!dir.endsWith("/")) {
+                dir = dir + "/";
+            }
         }
-        String prefix = sanitizePath(directoryPath);
-        if (!prefix.endsWith("/")) {
-            prefix = prefix + "/";
+        String after = decodeCursor(cursor);
+        Pageable pageable = limit == null
+                ? Pageable.unpaged()
+                : PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)) + 1);
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+        List<FileMetadataSummary> rows = index != null
+                ? index.list(dir, after, pageable.isPaged() ? pageable.getPageSize() : -1)
+                : fileMetadataRepository.findSummaries(user, escapeLike(dir) + "%", after, pageable);
+        String nextCursor = null;
+        if (pageable.isPaged() && rows.size() >= pageable.getPageSize()) {
+            rows = rows.subList(0, pageable.getPageSize() - 1);
+            nextCursor = encodeCursor(rows.get(rows.size() - 1).getFilePath());
         }
-        String finalPrefix = prefix;
-        return all.stream()
-                .filter(f -> f.getFilePath().startsWith(finalPrefix))
-                .collect(Collectors.toList());
+        return new FilePage(rows, nextCursor);
     }
 
+    /**
+     * 디렉토리 트리 조회 (자식별 파일 수·총 크기·최신 수정 시각 집계 포함)
+     *
+     * @param depth 하위 몇 단계까지 포함할지 (1이면 바로 아래 자식만, 최대 {@value #MAX_TREE_DEPTH})
+     */
     @Transactional(readOnly = true)
-    @Cacheable(value = "fileMetadata", key = "#user.id + ':' + #filePath")
-    public Optional<FileMetadata> getMetadata(User user, String filePath) {
+    public Optional<FileResponse> getTree(User user, String directoryPath, int depth) {
+        String path = "";
+        if (directoryPath != null && !directoryPath.isBlank()) {
+            path = sanitizePath(directoryPath);
+            if (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+        }
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+        if (index == null) {
+            // 인덱스 상한 초과 사용자는 요청마다 DB에서 구성
+            index = FileMetadataIndex.UserFileIndex.of(
+                    fileMetadataRepository.findSummaries(user, "%", "", Pageable.unpaged()));
+        }
+        return index.tree(path, Math.max(0, Math.min(depth, MAX_TREE_DEPTH)));
+    }
+
+    /**
+     * 경로 퍼지 찾기 (빠른 열기). 메모리 인덱스의 경로 trigram 색인에서 상위 limit개
+     * 인덱스가 없는 사용자(파일 수 상한 초과)는 DB 부분 문자열 일치로 대체
+     *
+     * @param limit 최대 개수 (null이면 {@value #DEFAULT_FIND_LIMIT}, 최대 {@value #MAX_FIND_LIMIT})
+     * @throws IllegalArgumentException INVALID_QUERY (빈 질의)
+     */
+    @Transactional(readOnly = true)
+    public List<FileMetadataSummary> findFiles(User user, String query, Integer limit) {
+        String q = query != null ? query.strip() : "";
+        if (q.isEmpty()) {
+            throw new IllegalArgumentException("INVALID_QUERY");
+        }
+        int max = limit == null ? DEFAULT_FIND_LIMIT : Math.max(1, Math.min(limit, MAX_FIND_LIMIT));
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+        if (index != null) {
+            return index.find(q, max);
+        }
+        return fileMetadataRepository.findSummaries(user, "%" + escapeLike(q) + "%", "", PageRequest.of(0, max));
+    }
+
+    /** LIKE 패턴 이스케이프 (이스케이프 문자 '!') */
+    private static String escapeLike(String s) {
+        return s.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static String encodeCursor(String filePath) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(filePath.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return "";
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("INVALID_CURSOR");
+        }
+    }
+
+    /**
+     * 파일 메타데이터 요약 조회 (메모리 인덱스 우선, 없으면 DB)
+     * fileMetadata 캐시는 인덱스가 없는(파일 수 상한 초과) 사용자의 DB 조회에만 사용 → 인덱스의 max-age 재적재를 가리지 않음.
+     * 없는 파일(empty)은 캐시하지 않음
+     */
+    @Transactional(readOnly = true)
+    public Optional<FileMetadataSummary> getMetadata(User user, String filePath) {
         String path = sanitizePath(filePath);
-        return fileMetadataRepository.findByUserAndFilePath(user, path);
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+        if (index != null) {
+            return index.get(path);
+        }
+        Cache metadataCache = cacheManager.getCache(CacheConfig.FILE_METADATA);
+        String key = user.getId() + ":" + path;
+        FileMetadataSummary cached = metadataCache != null ? metadataCache.get(key, FileMetadataSummary.class) : null;
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<FileMetadataSummary> found = fileMetadataRepository.findByUserAndFilePath(user, path)
+                .map(FileMetadataSummary::from);
+        if (metadataCache != null) {
+            found.ifPresent(f -> metadataCache.put(key, f));
+        }
+        return found;
     }
 
-    /** 파일 내용 읽기 (디스크 + 메타데이터) */
+    /**
+     * 파일 내용 읽기 (디스크 + 메타데이터)
+     * 암호화 파일은 디스크에서 한 번만 읽으며 읽는 즉시 Base64로 인코딩 (평문 디코딩 없음)
+     */
     @Transactional(readOnly = true)
     public Optional<FileContentResult> readFile(User user, String filePath) {
         String path = sanitizePath(filePath);
+        Optional<PendingSave> buffered = saveCoalescer.peek(user.getId(), path);
+        if (buffered.isPresent()) {
+            return Optional.of(bufferedContent(user, path, buffered.get()));
+        }
         Optional<FileMetadata> metaOpt = fileMetadataRepository.findByUserAndFilePath(user, path);
         Path fullPath = userDir(user.getId()).resolve(path);
         if (!Files.isRegularFile(fullPath)) {
             return Optional.empty();
         }
         try {
-            byte[] bytes = Files.readAllBytes(fullPath);
+            if (metaOpt.isPresent() && Boolean.TRUE.equals(metaOpt.get().getEncrypted())) {
+                FileMetadata meta = metaOpt.get();
+                return Optional.of(FileContentResult.builder()
+                        .metadata(meta)
+                        .contentHash(meta.getContentHash())
+                        .encrypted(true)
+                        .encryptedData(readBase64(fullPath))
+                        .iv(meta.getIv())
+                        .authTag(meta.getAuthTag())
+                        .build());
+            }
+            byte[] bytes = StoredContent.read(fullPath);
             String content = new String(bytes, StandardCharsets.UTF_8);
             FileMetadata meta = metaOpt.orElse(FileMetadata.builder()
                     .user(user)
@@ -107,11 +313,10 @@ public class FileService {
                     .build());
             return Optional.of(FileContentResult.builder()
                     .metadata(meta)
+                    .contentHash(meta.getContentHash() != null ? meta.getContentHash() : HashUtil.sha256Hex(bytes))
                     .content(content)
-                    .encrypted(Boolean.TRUE.equals(meta.getEncrypted()))
-                    .encryptedData(meta.getIv() != null ? readEncryptedBytes(fullPath) : null)
-                    .iv(meta.getIv())
-                    .authTag(meta.getAuthTag())
+                    .html(markdownRenderService.render(user.getId(), path, bytes))
+                    .encrypted(false)
                     .build());
         } catch (IOException e) {
             log.error("파일 읽기 실패: {}", fullPath, e);
@@ -119,9 +324,99 @@ public class FileService {
         }
     }
 
-    private String readEncryptedBytes(Path p) throws IOException {
-        byte[] bytes = Files.readAllBytes(p);
-        return java.util.Base64.getEncoder().encodeToString(bytes);
+    /** 아직 디스크에 반영되지 않은 저장의 읽기 결과 (read-your-writes) */
+    private FileContentResult bufferedContent(User user, String path, PendingSave save) {
+        FileContentResult.FileContentResultBuilder result = FileContentResult.builder()
+                .metadata(bufferedMetadata(save))
+                .contentHash(save.contentHash())
+                .encrypted(save.encrypted());
+        if (save.encrypted()) {
+            return result.encryptedData(Base64.getEncoder().encodeToString(save.content()))
+                    .iv(save.iv())
+                    .authTag(save.authTag())
+                    .build();
+        }
+        return result.content(new String(save.content(), StandardCharsets.UTF_8))
+                .html(markdownRenderService.render(user.getId(), path, save.content()))
+                .build();
+    }
+
+    /**
+     * 원본 파일 스트리밍 다운로드용 조회 (내용은 읽지 않음)
+     * 호출자는 {@link #transferTo}로 디스크 → 응답 스트림 직접 전송, gzip 저장 파일은 그대로 보내거나 {@link #transferContent}로 해제하며 전송
+     */
+    @Transactional(readOnly = true)
+    public Optional<RawFileResult> openRaw(User user, String filePath) {
+        String path = sanitizePath(filePath);
+        Path fullPath = userDir(user.getId()).resolve(path);
+        try {
+            saveCoalescer.flush(user.getId(), path); // 디스크에서 직접 보내므로 버퍼링된 저장 먼저 반영
+            if (!Files.isRegularFile(fullPath)) {
+                return Optional.empty();
+            }
+            FileMetadata meta = fileMetadataRepository.findByUserAndFilePath(user, path).orElse(null);
+            boolean compressed = (meta == null || !Boolean.TRUE.equals(meta.getEncrypted()))
+                    && StoredContent.isCompressed(fullPath);
+            long storedSize = Files.size(fullPath);
+            return Optional.of(RawFileResult.builder()
+                    .metadata(meta)
+                    .path(fullPath)
+                    .size(compressed ? StoredContent.contentLength(fullPath) : storedSize)
+                    .compressed(compressed)
+                    .storedSize(storedSize)
+                    .build());
+        } catch (IOException e) {
+            log.error("파일 조회 실패: {}", fullPath, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 파일의 [position, position + count) 구간을 힙에 적재하지 않고 out으로 전송 (FileChannel.transferTo)
+     */
+    public void transferTo(Path fullPath, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel ch = FileChannel.open(fullPath, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long pos = position;
+            long remaining = count;
+            while (remaining > 0) {
+                long n = ch.transferTo(pos, remaining, target);
+                if (n <= 0) {
+                    break;
+                }
+                pos += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    /**
+     * gzip 저장 파일을 해제하며 원래 내용의 [position, position + count) 구간을 out으로 전송
+     */
+    public void transferContent(Path fullPath, long position, long count, OutputStream out) throws IOException {
+        try (InputStream in = StoredContent.open(fullPath)) {
+            in.skipNBytes(position);
+            byte[] buf = new byte[COPY_BUFFER_SIZE];
+            long remaining = count;
+            while (remaining > 0) {
+                int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+                if (n < 0) {
+                    break;
+                }
+                out.write(buf, 0, n);
+                remaining -= n;
+            }
+        }
+    }
+
+    /** 파일을 스트리밍으로 읽으며 Base64 인코딩 (원본 바이트 배열을 따로 만들지 않음) */
+    private String readBase64(Path p) throws IOException {
+        long size = Files.size(p);
+        ByteArrayOutputStream buf = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, 4 * ((size + 2) / 3)));
+        try (OutputStream encoder = Base64.getEncoder().wrap(buf)) {
+            Files.copy(p, encoder);
+        }
+        return buf.toString(StandardCharsets.US_ASCII);
     }
 
     @Transactional
@@ -131,41 +426,294 @@ public class FileService {
         String path = sanitizePath(filePath);
         Path fullPath = userDir(user.getId()).resolve(path);
         try {
-            Files.createDirectories(fullPath.getParent());
             byte[] toWrite = encrypted && encryptedDataB64 != null
-                    ? java.util.Base64.getDecoder().decode(encryptedDataB64)
+                    ? Base64.getDecoder().decode(encryptedDataB64)
                     : content.getBytes(StandardCharsets.UTF_8);
             if (toWrite.length > MAX_FILE_SIZE) {
                 throw new IllegalArgumentException("FILE_TOO_LARGE");
             }
-            Files.write(fullPath, toWrite, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-            FileMetadata meta = fileMetadataRepository.findByUserAndFilePath(user, path)
-                    .orElse(FileMetadata.builder()
-                            .user(user)
-                            .filePath(path)
-                            .fileName(Paths.get(path).getFileName().toString())
-                            .encrypted(false)
-                            .mimeType("text/markdown")
-                            .build());
-            long oldSize = meta.getFileSize() != null ? meta.getFileSize() : 0L;
-            long newSize = toWrite.length;
-            meta.updateContent(newSize, LocalDateTime.now());
-            if (encrypted && ivB64 != null && tagB64 != null) {
-                meta.updateEncrypted(ivB64, tagB64);
+            boolean markEncrypted = encrypted && ivB64 != null && tagB64 != null;
+            if (saveCoalescer.isEnabled()) {
+                PendingSave save = saveCoalescer.submit(user.getId(), path, previous -> {
+                    long previousSize = previous != null ? previous.content().length
+                            : fileMetadataRepository.findByUserAndFilePath(user, path).map(FileService::sizeOf).orElse(0L);
+                    reserveBuffered(user, previousSize, toWrite.length);
+                    return new PendingSave(user, path, toWrite, HashUtil.sha256Hex(toWrite),
+                            markEncrypted, ivB64, tagB64, LocalDateTime.now());
+                });
+                return Optional.of(bufferedMetadata(save));
             }
-            meta = fileMetadataRepository.save(meta);
+            // 행 잠금 후 디스크 교체 → 같은 파일의 PATCH 저장과 순서가 섞이지 않음
+            FileMetadata meta = fileMetadataRepository.findForUpdate(user, path).orElse(newMetadata(user, path));
+            boolean plaintext = !(encrypted && encryptedDataB64 != null) && !Boolean.TRUE.equals(meta.getEncrypted());
+            byte[] stored = plaintext ? storedForm(toWrite) : toWrite;
+            writeWithinQuota(user, toWrite.length - sizeOf(meta), () -> atomicFileWriter.write(fullPath, stored));
 
-            User u = userRepository.findById(user.getId()).orElseThrow();
-            u.addStorageUsed(newSize - oldSize);
-            userRepository.save(u);
-            return Optional.of(meta);
+            if (markEncrypted) {
+                meta.updateEncrypted(ivB64, tagB64);
+            }
+            return Optional.of(recordWrite(user, path, meta, toWrite.length, stored.length, HashUtil.sha256Hex(toWrite)));
         } catch (IOException e) {
             log.error("파일 저장 실패: {}", fullPath, e);
             return Optional.empty();
         }
     }
 
+    /**
+     * 부분 저장: baseHash 버전의 내용에 edits를 적용해 저장 (요청 크기는 문서가 아닌 변경분에 비례)
+     * 기준 버전 확인 ~ 커밋 동안 메타데이터 행을 잠가 같은 파일의 동시 저장은 직렬화
+     * 저장 병합이 켜져 있으면 버퍼 내용(없으면 디스크)을 기준 버전으로 삼고 결과도 버퍼에 둠
+     *
+     * @return 파일이 없으면 empty
+     * @throws IllegalArgumentException FILE_CONFLICT(기준 버전이 현재 내용과 다름), INVALID_PATCH, FILE_ENCRYPTED, FILE_TOO_LARGE
+     */
+    @Transactional
+    @CacheEvict(value = "fileMetadata", key = "#user.id + ':' + #filePath")
+    public Optional<PatchResult> patchFile(User user, String filePath, String baseHash,
+                                           List<FilePatchRequest.Edit> edits) {
+        String path = sanitizePath(filePath);
+        if (baseHash == null || baseHash.isBlank() || edits == null) {
+            throw new IllegalArgumentException("INVALID_PATCH");
+        }
+        if (saveCoalescer.isEnabled()) {
+            return patchBuffered(user, path, baseHash, edits);
+        }
+        Optional<FileMetadata> metaOpt = fileMetadataRepository.findForUpdate(user, path);
+        Path fullPath = userDir(user.getId()).resolve(path);
+        if (metaOpt.isEmpty() || !Files.isRegularFile(fullPath)) {
+            return Optional.empty();
+        }
+        FileMetadata meta = metaOpt.get();
+        if (Boolean.TRUE.equals(meta.getEncrypted())) {
+            // 서버는 평문을 모르므로 암호문에 텍스트 편집을 적용할 수 없음
+            throw new IllegalArgumentException("FILE_ENCRYPTED");
+        }
+        try {
+            byte[] current = StoredContent.read(fullPath);
+            String currentHash = meta.getContentHash() != null ? meta.getContentHash() : HashUtil.sha256Hex(current);
+            String content = patchContent(current, currentHash, baseHash, edits);
+            byte[] toWrite = content.getBytes(StandardCharsets.UTF_8);
+            if (toWrite.length > MAX_FILE_SIZE) {
+                throw new IllegalArgumentException("FILE_TOO_LARGE");
+            }
+            byte[] stored = storedForm(toWrite);
+            writeWithinQuota(user, toWrite.length - sizeOf(meta), () -> atomicFileWriter.write(fullPath, stored));
+            return Optional.of(PatchResult.builder()
+                    .metadata(recordWrite(user, path, meta, toWrite.length, stored.length, HashUtil.sha256Hex(toWrite)))
+                    .content(content)
+                    .build());
+        } catch (IOException e) {
+            log.error("파일 부분 저장 실패: {}", fullPath, e);
+            return Optional.empty();
+        }
+    }
+
+    private Optional<PatchResult> patchBuffered(User user, String path, String baseHash,
+                                                List<FilePatchRequest.Edit> edits) {
+        Path fullPath = userDir(user.getId()).resolve(path);
+        String[] patched = new String[1];
+        try {
+            PendingSave save = saveCoalescer.submit(user.getId(), path, previous -> {
+                byte[] current;
+                String currentHash;
+                long previousSize;
+                if (previous != null) {
+                    if (previous.encrypted()) {
+                        throw new IllegalArgumentException("FILE_ENCRYPTED");
+                    }
+                    current = previous.content();
+                    currentHash = previous.contentHash();
+                    previousSize = current.length;
+                } else {
+                    Optional<FileMetadata> metaOpt = fileMetadataRepository.findByUserAndFilePath(user, path);
+                    if (metaOpt.isEmpty() || !Files.isRegularFile(fullPath)) {
+                        return null;
+                    }
+                    FileMetadata meta = metaOpt.get();
+                    if (Boolean.TRUE.equals(meta.getEncrypted())) {
+                        throw new IllegalArgumentException("FILE_ENCRYPTED");
+                    }
+                    current = StoredContent.read(fullPath);
+                    currentHash = meta.getContentHash() != null ? meta.getContentHash() : HashUtil.sha256Hex(current);
+                    previousSize = sizeOf(meta);
+                }
+                patched[0] = patchContent(current, currentHash, baseHash, edits);
+                byte[] toWrite = patched[0].getBytes(StandardCharsets.UTF_8);
+                if (toWrite.length > MAX_FILE_SIZE) {
+                    throw new IllegalArgumentException("FILE_TOO_LARGE");
+                }
+                reserveBuffered(user, previousSize, toWrite.length);
+                return new PendingSave(user, path, toWrite, HashUtil.sha256Hex(toWrite),
+                        false, null, null, LocalDateTime.now());
+            });
+            if (save == null) {
+                return Optional.empty();
+            }
+            return Optional.of(PatchResult.builder()
+                    .metadata(bufferedMetadata(save))
+                    .content(patched[0])
+                    .build());
+        } catch (IOException e) {
+            log.error("파일 부분 저장 실패: {}", fullPath, e);
+            return Optional.empty();
+        }
+    }
+
+    /** 기준 버전 확인 후 편집 적용 (FILE_CONFLICT, INVALID_PATCH) */
+    private static String patchContent(byte[] current, String currentHash, String baseHash,
+                                       List<FilePatchRequest.Edit> edits) {
+        if (!currentHash.equalsIgnoreCase(baseHash.trim())) {
+            throw new IllegalArgumentException("FILE_CONFLICT");
+        }
+        return applyEdits(new String(current, StandardCharsets.UTF_8), edits);
+    }
+
+    /** 겹치지 않는 start 오름차순 편집을 한 번에 적용 (범위 밖·역순이면 INVALID_PATCH) */
+    static String applyEdits(String base, List<FilePatchRequest.Edit> edits) {
+        StringBuilder sb = new StringBuilder(base.length() + 64);
+        int prev = 0;
+        for (FilePatchRequest.Edit e : edits) {
+            if (e == null || e.getStart() < prev || e.getEnd() < e.getStart() || e.getEnd() > base.length()) {
+                throw new IllegalArgumentException("INVALID_PATCH");
+            }
+            sb.append(base, prev, e.getStart());
+            if (e.getText() != null) {
+                sb.append(e.getText());
+            }
+            prev = e.getEnd();
+        }
+        return sb.append(base, prev, base.length()).toString();
+    }
+
+    /**
+     * 증가분(growth &gt; 0)을 할당량에서 예약한 뒤 디스크 쓰기, 쓰기가 실패하면 예약 해제
+     *
+     * @throws IllegalArgumentException STORAGE_QUOTA_EXCEEDED (이때 디스크는 건드리지 않음)
+     */
+    private void writeWithinQuota(User user, long growth, IoAction write) throws IOException {
+        storageQuotaService.reserve(user.getId(), growth);
+        boolean written = false;
+        try {
+            write.run();
+            written = true;
+        } finally {
+            if (!written) {
+                storageQuotaService.release(user.getId(), growth);
+            }
+        }
+    }
+
+    private static long sizeOf(FileMetadata meta) {
+        return meta.getFileSize() != null ? meta.getFileSize() : 0L;
+    }
+
+    /** 평문 내용의 저장 형식: 압축 설정이 켜져 있고 최소 크기 이상이며 실제로 줄어들면 gzip, 아니면 그대로 */
+    private byte[] storedForm(byte[] content) {
+        if (!compresses(content.length)) {
+            return content;
+        }
+        byte[] compressed = StoredContent.compress(content);
+        return compressed.length < content.length ? compressed : content;
+    }
+
+    /** @param size 내용 크기 (모르면 음수 → 압축) */
+    private boolean compresses(long size) {
+        return "gzip".equalsIgnoreCase(compression) && (size < 0 || size >= compressionMinSize);
+    }
+
+    /** 디스크 교체 후 메타데이터·렌더 캐시·인덱스 반영. 증가분은 쓰기 전에 예약됨, 감소분만 여기서 반영 */
+    private FileMetadata recordWrite(User user, String path, FileMetadata meta, long newSize, long storedSize,
+                                     String contentHash) {
+        long oldSize = sizeOf(meta);
+        meta = persistWrite(user, path, meta, newSize, storedSize, contentHash, LocalDateTime.now());
+        if (newSize < oldSize) {
+            userRepository.addStorageUsed(user.getId(), newSize - oldSize);
+        }
+        return meta;
+    }
+
+    /** 메타데이터(내용·디스크 크기, 수정 시각, 내용 해시) 저장, 인덱스 갱신 이벤트 */
+    private FileMetadata persistWrite(User user, String path, FileMetadata meta, long newSize, long storedSize,
+                                      String contentHash, LocalDateTime lastModified) {
+        meta.updateContent(newSize, storedSize, lastModified, contentHash);
+        meta = fileMetadataRepository.save(meta);
+        eventPublisher.publishEvent(FileChangedEvent.saved(user.getId(), FileMetadataSummary.from(meta)));
+        return meta;
+    }
+
+    /**
+     * SaveCoalescer가 창이 끝날 때 호출 (별도 트랜잭션): 버퍼의 마지막 내용을 디스크·메타데이터에 반영
+     * 사용량은 버퍼링 시점에 이미 반영됨. 수정 시각은 마지막 저장 요청 시각
+     */
+    private void flushPending(PendingSave save) throws IOException {
+        User user = save.user();
+        String path = save.path();
+        FileMetadata meta = fileMetadataRepository.findForUpdate(user, path).orElse(newMetadata(user, path));
+        boolean plaintext = !save.encrypted() && !Boolean.TRUE.equals(meta.getEncrypted());
+        byte[] stored = plaintext ? storedForm(save.content()) : save.content();
+        atomicFileWriter.write(userDir(user.getId()).resolve(path), stored);
+        if (save.encrypted()) {
+            meta.updateEncrypted(save.iv(), save.authTag());
+        }
+        persistWrite(user, path, meta, save.content().length, stored.length, save.contentHash(), save.lastModified());
+        Cache metadataCache = cacheManager.getCache(CacheConfig.FILE_METADATA);
+        if (metadataCache != null) {
+            metadataCache.evict(user.getId() + ":" + path);
+        }
+    }
+
+    /** SaveCoalescer가 반영을 포기한 저장의 사용량 되돌림 (버퍼 내용 기준이던 사용량을 디스크 크기 기준으로) */
+    private void dropPending(PendingSave save) {
+        User user = save.user();
+        long storedSize = fileMetadataRepository.findByUserAndFilePath(user, save.path()).map(FileService::sizeOf).orElse(0L);
+        userRepository.addStorageUsed(user.getId(), storedSize - save.content().length);
+    }
+
+    /** 버퍼링 저장의 사용량 반영 (항상 버퍼 내용 기준): 직전 크기 대비 증가분은 예약, 감소분은 바로 해제 */
+    private void reserveBuffered(User user, long previousSize, long newSize) {
+        if (newSize > previousSize) {
+            storageQuotaService.reserve(user.getId(), newSize - previousSize);
+        } else if (newSize < previousSize) {
+            storageQuotaService.release(user.getId(), previousSize - newSize);
+        }
+    }
+
+    /** 버퍼 내용 기준 메타데이터 (응답용, 영속화하지 않음) */
+    private static FileMetadata bufferedMetadata(PendingSave save) {
+        return FileMetadata.builder()
+                .user(save.user())
+                .filePath(save.path())
+                .fileName(Paths.get(save.path()).getFileName().toString())
+                .fileSize((long) save.content().length)
+                .encrypted(save.encrypted())
+                .iv(save.iv())
+                .authTag(save.authTag())
+                .mimeType("text/markdown")
+                .lastModified(save.lastModified())
+                .contentHash(save.contentHash())
+                .build();
+    }
+
+    private static FileMetadata newMetadata(User user, String path) {
+        return FileMetadata.builder()
+                .user(user)
+                .filePath(path)
+                .fileName(Paths.get(path).getFileName().toString())
+                .encrypted(false)
+                .mimeType("text/markdown")
+                .build();
+    }
+
+    /** 저장된 내용의 블록 단위 HTML 패치 (직전 렌더링 대비 바뀐 블록만 렌더링) */
+    public RenderPatch renderPatch(User user, String filePath, String content) {
+        String path = sanitizePath(filePath);
+        return markdownRenderService.renderPatch(user.getId(), path, content);
+    }
+
+    /**
+     * 업로드: 멀티파트 파트를 같은 디렉토리의 임시 파일로 스트리밍 복사 → 원자적 교체 → 메타데이터 반영
+     * 복사 중 크기 상한·UTF-8 유효성·내용 해시·압축을 함께 처리하므로 업로드 크기와 무관하게 힙 사용량 일정
+     */
     @Transactional
     public Optional<FileMetadata> uploadFile(User user, MultipartFile file, String directoryPath) {
         String originalName = file.getOriginalFilename();
@@ -179,13 +727,361 @@ public class FileService {
             throw new IllegalArgumentException("FILE_TOO_LARGE");
         }
         String baseDir = (directoryPath != null && !directoryPath.isBlank()) ? sanitizePath(directoryPath) + "/" : "";
-        String filePath = baseDir + originalName;
+        String path = sanitizePath(baseDir + originalName);
+        Path fullPath = userDir(user.getId()).resolve(path);
+        Path temp = null;
         try {
-            String content = new String(file.getBytes(), StandardCharsets.UTF_8);
-            return saveFile(user, filePath, content, false, null, null, null);
+            temp = atomicFileWriter.createTempFile(fullPath);
+            StreamedContent written;
+            try (InputStream in = file.getInputStream()) {
+                written = copyValidated(in, temp, compresses(file.getSize()));
+            }
+            saveCoalescer.flush(user.getId(), path); // 버퍼링된 저장이 업로드를 덮어쓰지 않도록 먼저 반영
+            FileMetadata meta = fileMetadataRepository.findForUpdate(user, path).orElse(newMetadata(user, path));
+            Path staged = temp;
+            writeWithinQuota(user, written.size() - sizeOf(meta), () -> atomicFileWriter.commit(staged, fullPath));
+            temp = null;
+            meta.clearEncrypted(); // 업로드는 평문 (암호화 파일을 덮어써도 이전 IV·태그가 남지 않도록)
+            return Optional.of(recordWrite(user, path, meta, written.size(), written.storedSize(), written.contentHash()));
         } catch (IOException e) {
-            log.error("업로드 파일 읽기 실패", e);
+            log.error("업로드 파일 저장 실패: {}", fullPath, e);
             return Optional.empty();
+        } finally {
+            deleteTempQuietly(temp);
+        }
+    }
+
+    /**
+     * 일괄 업로드: 여러 멀티파트 파일 또는 zip 하나를 받아 파일별 결과 보고
+     * - 임시 파일 복사(크기·UTF-8 검사)와 원자적 교체는 I/O 작업자({@code app.file-upload.batch-parallelism})가 병렬 처리
+     * - 기존 메타데이터는 경로 묶음 단위 잠금 조회, 갱신/추가는 JDBC 배치, 할당량은 교체 전 배치 순증가분을 1회 예약
+     * - 형식·경로·크기·인코딩 오류는 해당 파일만 실패로 보고하고 나머지는 저장
+     *
+     * @param files   멀티파트 파일 목록 (원본 파일명에 하위 경로 허용)
+     * @param archive zip 파일 (엔트리 경로 유지, 디렉토리·__MACOSX 제외)
+     * @throws IllegalArgumentException TOO_MANY_FILES, FILE_INVALID_FORMAT(zip이 아님), INVALID_PATH
+     */
+    @Transactional
+    public BatchUploadResult uploadBatch(User user, List<MultipartFile> files, MultipartFile archive,
+                                         String directoryPath) throws IOException {
+        String baseDir = (directoryPath != null && !directoryPath.isBlank()) ? sanitizePath(directoryPath) + "/" : "";
+        Path zipTemp = null;
+        try {
+            List<BatchSource> sources = new ArrayList<>();
+            if (files != null) {
+                for (MultipartFile f : files) {
+                    sources.add(new BatchSource(f.getOriginalFilename(), f.getSize(), f::getInputStream));
+                }
+            }
+            if (archive != null && !archive.isEmpty()) {
+                zipTemp = Files.createTempFile("upload-", ".zip");
+                archive.transferTo(zipTemp);
+                try (ZipFile zip = openZip(zipTemp)) {
+                    for (ZipEntry entry : Collections.list(zip.entries())) {
+                        if (!entry.isDirectory() && !entry.getName().startsWith("__MACOSX/")) {
+                            sources.add(new BatchSource(entry.getName(), entry.getSize(), () -> zip.getInputStream(entry)));
+                        }
+                    }
+                    return uploadBatch(user, baseDir, sources);
+                }
+            }
+            return uploadBatch(user, baseDir, sources);
+        } finally {
+            deleteTempQuietly(zipTemp);
+        }
+    }
+
+    private static ZipFile openZip(Path zipTemp) throws IOException {
+        try {
+            return new ZipFile(zipTemp.toFile(), StandardCharsets.UTF_8);
+        } catch (ZipException e) {
+            throw new IllegalArgumentException("FILE_INVALID_FORMAT");
+        }
+    }
+
+    private BatchUploadResult uploadBatch(User user, String baseDir, List<BatchSource> sources) throws IOException {
+        if (sources.size() > MAX_BATCH_FILES) {
+            throw new IllegalArgumentException("TOO_MANY_FILES");
+        }
+        int n = sources.size();
+        BatchItem[] items = new BatchItem[n];
+        StagedFile[] staged = new StagedFile[n];
+        Map<String, FileMetadata> existing = new HashMap<>();
+        long reserved = 0;
+        try (ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(batchParallelism, n)))) {
+            // 1) 임시 파일로 스트리밍 복사 (병렬)
+            runAll(workers, n, i -> {
+                BatchSource source = sources.get(i);
+                String path = source.name();
+                try {
+                    path = batchPath(baseDir, source.name());
+                    staged[i] = stage(user, path, source);
+                } catch (IllegalArgumentException e) {
+                    items[i] = BatchItem.failed(path, e.getMessage());
+                } catch (IOException | RuntimeException e) {
+                    log.error("일괄 업로드 복사 실패: {}", path, e);
+                    items[i] = BatchItem.failed(path, "SERVER_ERROR");
+                }
+            });
+            // 같은 경로가 여러 번 오면 마지막 것만 저장
+            Map<String, Integer> lastIndex = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                if (staged[i] != null) {
+                    Integer previous = lastIndex.put(staged[i].path(), i);
+                    if (previous != null) {
+                        deleteTempQuietly(staged[previous].temp());
+                        items[previous] = BatchItem.failed(staged[previous].path(), "DUPLICATE_PATH");
+                        staged[previous] = null;
+                    }
+                }
+            }
+
+            // 2) 기존 메타데이터 잠금 조회 후 3) 원자적 교체 (병렬, batched fsync면 그룹 커밋으로 묶임)
+            List<String> paths = new ArrayList<>(lastIndex.keySet());
+            for (String path : paths) {
+                saveCoalescer.flush(user.getId(), path);
+            }
+            for (int from = 0; from < paths.size(); from += IN_CLAUSE_CHUNK) {
+                List<String> chunk = paths.subList(from, Math.min(paths.size(), from + IN_CLAUSE_CHUNK));
+                for (FileMetadata m : fileMetadataRepository.findAllForUpdate(user, chunk)) {
+                    existing.put(m.getFilePath(), m);
+                }
+            }
+            // 배치 전체 순증가분을 한 번에 예약, 초과면 남은 파일 모두 실패
+            long growth = 0;
+            for (StagedFile s : staged) {
+                if (s != null) {
+                    FileMetadata old = existing.get(s.path());
+                    growth += s.size() - (old != null ? sizeOf(old) : 0L);
+                }
+            }
+            try {
+                storageQuotaService.reserve(user.getId(), growth);
+                reserved = Math.max(0, growth);
+            } catch (IllegalArgumentException e) {
+                for (int i = 0; i < n; i++) {
+                    if (staged[i] != null) {
+                        deleteTempQuietly(staged[i].temp());
+                        items[i] = BatchItem.failed(staged[i].path(), e.getMessage());
+                        staged[i] = null;
+                    }
+                }
+            }
+            runAll(workers, n, i -> {
+                StagedFile s = staged[i];
+                if (s == null) {
+                    return;
+                }
+                try {
+                    atomicFileWriter.commit(s.temp(), s.target());
+                } catch (IOException | RuntimeException e) {
+                    log.error("일괄 업로드 교체 실패: {}", s.target(), e);
+                    items[i] = BatchItem.failed(s.path(), "SERVER_ERROR");
+                    staged[i] = null;
+                }
+            });
+        } finally {
+            for (StagedFile s : staged) {
+                if (s != null) {
+                    deleteTempQuietly(s.temp()); // 교체된 파일은 이미 없음
+                }
+            }
+        }
+        return recordBatch(user, items, staged, existing, reserved);
+    }
+
+    /** 4) 메타데이터 JDBC 배치 갱신/추가, 예약분과 실제 변화량 차이 1회 정산, 캐시·인덱스 반영 */
+    private BatchUploadResult recordBatch(User user, BatchItem[] items, StagedFile[] staged,
+                                          Map<String, FileMetadata> existing, long reserved) {
+        List<String> paths = new ArrayList<>();
+        for (StagedFile s : staged) {
+            if (s != null) {
+                paths.add(s.path());
+            }
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        long delta = 0;
+        long bytesWritten = 0;
+        for (int i = 0; i < staged.length; i++) {
+            StagedFile s = staged[i];
+            if (s == null) {
+                continue;
+            }
+            FileMetadata old = existing.get(s.path());
+            if (old != null) {
+                updates.add(new Object[]{s.size(), s.storedSize(), now, s.contentHash(), old.getId()});
+                delta += s.size() - sizeOf(old);
+            } else {
+                inserts.add(new Object[]{user.getId(), s.path(), Paths.get(s.path()).getFileName().toString(),
+                        s.size(), s.storedSize(), false, "text/markdown", now, s.contentHash(), now});
+                delta += s.size();
+            }
+            bytesWritten += s.size();
+            items[i] = BatchItem.saved(s.path(), s.size());
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(BATCH_UPDATE_SQL, updates);
+            // JDBC로 바꾼 행은 영속성 컨텍스트의 엔티티와 달라지므로 분리 (같은 트랜잭션의 이후 조회는 DB에서 다시 읽음)
+            existing.values().forEach(entityManager::detach);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(BATCH_INSERT_SQL, inserts);
+        }
+        // 예약분과 실제 변화량의 차이만 반영 (교체 실패분 해제, 순감소분 차감)
+        if (delta != reserved) {
+            userRepository.addStorageUsed(user.getId(), delta - reserved);
+        }
+
+        Cache metadataCache = cacheManager.getCache(CacheConfig.FILE_METADATA);
+        if (metadataCache != null) {
+            for (String path : paths) {
+                metadataCache.evict(user.getId() + ":" + path);
+            }
+        }
+        for (int from = 0; from < paths.size(); from += IN_CLAUSE_CHUNK) {
+            for (FileMetadataSummary f : fileMetadataRepository.findSummariesByPaths(user,
+                    paths.subList(from, Math.min(paths.size(), from + IN_CLAUSE_CHUNK)))) {
+                eventPublisher.publishEvent(FileChangedEvent.saved(user.getId(), f));
+            }
+        }
+        int saved = 0;
+        for (BatchItem item : items) {
+            if (item.isSuccess()) {
+                saved++;
+            }
+        }
+        return BatchUploadResult.builder()
+                .saved(saved)
+                .failed(items.length - saved)
+                .bytesWritten(bytesWritten)
+                .items(List.of(items))
+                .build();
+    }
+
+    private String batchPath(String baseDir, String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("INVALID_PATH");
+        }
+        if (!name.endsWith(ALLOWED_EXT) && !name.endsWith(ALLOWED_EXT_ALT)) {
+            throw new IllegalArgumentException("FILE_INVALID_FORMAT");
+        }
+        return sanitizePath(baseDir + name);
+    }
+
+    private StagedFile stage(User user, String path, BatchSource source) throws IOException {
+        Path target = userDir(user.getId()).resolve(path);
+        Path temp = atomicFileWriter.createTempFile(target);
+        try (InputStream in = source.opener().open()) {
+            StreamedContent written = copyValidated(in, temp, compresses(source.size()));
+            return new StagedFile(path, target, temp, written.size(), written.storedSize(), written.contentHash());
+        } catch (IOException | RuntimeException e) {
+            deleteTempQuietly(temp);
+            throw e;
+        }
+    }
+
+    /** 0..n-1 작업을 병렬 실행하고 모두 끝날 때까지 대기 (작업은 자체적으로 예외 처리) */
+    private static void runAll(ExecutorService workers, int n, IntConsumer task) throws IOException {
+        List<Callable<Void>> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int index = i;
+            tasks.add(() -> {
+                task.accept(index);
+                return null;
+            });
+        }
+        try {
+            workers.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted during batch upload", e);
+        }
+    }
+
+    /** 일괄 업로드 입력 (이름 + 크기(모르면 -1) + 내용 스트림) */
+    private record BatchSource(String name, long size, InputOpener opener) {
+    }
+
+    @FunctionalInterface
+    private interface InputOpener {
+        InputStream open() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    /** 임시 파일까지 복사된 일괄 업로드 항목 */
+    private record StagedFile(String path, Path target, Path temp, long size, long storedSize, String contentHash) {
+    }
+
+    /** 스트리밍 복사 결과 (내용 바이트 수 + 디스크 바이트 수 + 내용 SHA-256 hex) */
+    private record StreamedContent(long size, long storedSize, String contentHash) {
+    }
+
+    /**
+     * in을 temp로 복사하며 크기 상한({@value #MAX_FILE_SIZE}바이트)과 UTF-8 유효성 검사, SHA-256 계산
+     * 버퍼 경계에 걸친 멀티바이트 문자는 다음 읽기와 이어서 디코딩
+     *
+     * @param compress true면 gzip 저장 형식으로 기록 (크기 상한·해시는 압축 전 기준)
+     * @throws IllegalArgumentException FILE_TOO_LARGE, FILE_INVALID_ENCODING
+     */
+    private static StreamedContent copyValidated(InputStream in, Path temp, boolean compress) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        MessageDigest digest = HashUtil.sha256();
+        ByteBuffer bytes = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(COPY_BUFFER_SIZE);
+        long total = 0;
+        try (OutputStream file = Files.newOutputStream(temp, StandardOpenOption.WRITE);
+             OutputStream out = compress ? new GZIPOutputStream(file, COPY_BUFFER_SIZE) : file) {
+            int n;
+            while ((n = in.read(bytes.array(), bytes.position(), bytes.remaining())) != -1) {
+                int start = bytes.position();
+                total += n;
+                if (total > MAX_FILE_SIZE) {
+                    throw new IllegalArgumentException("FILE_TOO_LARGE");
+                }
+                out.write(bytes.array(), start, n);
+                digest.update(bytes.array(), start, n);
+                bytes.position(start + n).flip();
+                decodeChecked(decoder, bytes, chars, false);
+                bytes.compact(); // 끝에 걸친 미완성 문자 바이트만 남김
+            }
+            bytes.flip();
+            decodeChecked(decoder, bytes, chars, true);
+            chars.clear();
+            if (decoder.flush(chars).isError()) {
+                throw new IllegalArgumentException("FILE_INVALID_ENCODING");
+            }
+        }
+        return new StreamedContent(total, Files.size(temp), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /** 검사용 디코딩 (문자 결과는 버림) */
+    private static void decodeChecked(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars, boolean endOfInput) {
+        CoderResult result;
+        do {
+            chars.clear();
+            result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isError()) {
+                throw new IllegalArgumentException("FILE_INVALID_ENCODING");
+            }
+        } while (result.isOverflow());
+    }
+
+    private static void deleteTempQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("임시 파일 삭제 실패: {}", temp);
         }
     }
 
@@ -245,8 +1141,15 @@ public class FileService {
     @CacheEvict(value = "fileMetadata", key = "#user.id + ':' + #filePath")
     public boolean deleteFile(User user, String filePath, boolean secure) {
         String path = sanitizePath(filePath);
+        // 버퍼링된 저장은 반영하지 않고 버림 (사용량은 버퍼 내용 기준이었으므로 그 크기만큼 차감)
+        Optional<PendingSave> buffered = saveCoalescer.discard(user.getId(), path);
         Optional<FileMetadata> metaOpt = fileMetadataRepository.findByUserAndFilePath(user, path);
         if (metaOpt.isEmpty()) {
+            if (buffered.isPresent()) {
+                // 아직 디스크에 반영되지 않은 새 파일
+                userRepository.addStorageUsed(user.getId(), -buffered.get().content().length);
+                return true;
+            }
             return false;
         }
         FileMetadata meta = metaOpt.get();
@@ -263,11 +1166,11 @@ public class FileService {
                 }
                 Files.delete(fullPath);
             }
-            long size = meta.getFileSize() != null ? meta.getFileSize() : 0L;
+            long size = buffered.map(b -> (long) b.content().length).orElse(sizeOf(meta));
             fileMetadataRepository.delete(meta);
-            User u = userRepository.findById(user.getId()).orElseThrow();
-            u.subtractStorageUsed(size);
-            userRepository.save(u);
+            markdownRenderService.remove(user.getId(), path);
+            eventPublisher.publishEvent(FileChangedEvent.deleted(user.getId(), path, secure));
+            userRepository.addStorageUsed(user.getId(), -size);
             return true;
         } catch (IOException e) {
             log.error("파일 삭제 실패: {}", fullPath, e);
@@ -275,17 +1178,150 @@ public class FileService {
         }
     }
 
+    /** 마지막으로 수정한 파일 (메모리 인덱스 우선, 없으면 DB) */
+    @Transactional(readOnly = true)
+    public Optional<FileMetadataSummary> getLastModifiedFile(User user) {
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+        if (index != null) {
+            return index.latest();
+        }
+        return fileMetadataRepository.findTopByUserOrderByLastModifiedDesc(user).map(FileMetadataSummary::from);
+    }
+
+    /**
+     * 전문 검색 (BM25 순위, 스니펫 포함). 암호화 파일은 제외, 버퍼링된 저장은 반영 후 검색됨
+     *
+     * @throws IllegalArgumentException INVALID_QUERY
+     */
+    public List<FileSearchIndex.SearchHit> search(User user, String query, Integer limit) {
+        return fileSearchIndex.search(user, query, limit);
+    }
+
+    /**
+     * 파일 버전 목록 (최신순, 삭제된 파일도 보관 중인 버전은 조회 가능)
+     *
+     * @param limit 최대 개수 (null이면 {@value #DEFAULT_VERSION_LIMIT}, 최대 {@value #MAX_VERSION_LIMIT})
+     */
     @Transactional(readOnly = true)
-    public Optional<FileMetadata> getLastModifiedFile(User user) {
-        return fileMetadataRepository.findTopByUserOrderByLastModifiedDesc(user);
+    public List<FileVersion> listVersions(User user, String filePath, Integer limit) {
+        int max = limit == null ? DEFAULT_VERSION_LIMIT : Math.max(1, Math.min(limit, MAX_VERSION_LIMIT));
+        return fileVersionService.list(user, sanitizePath(filePath), max);
+    }
+
+    /** 버전 내용 (없거나 읽을 수 없으면 empty). 암호화 버전은 Base64 암호문 + 저장 당시 iv·authTag */
+    @Transactional(readOnly = true)
+    public Optional<VersionContentResult> readVersion(User user, String filePath, Long versionId) {
+        String path = sanitizePath(filePath);
+        Optional<FileVersion> version = fileVersionService.find(user, path, versionId);
+        if (version.isEmpty()) {
+            return Optional.empty();
+        }
+        FileVersion v = version.get();
+        try {
+            byte[] bytes = fileVersionService.content(user, v);
+            VersionContentResult.VersionContentResultBuilder result = VersionContentResult.builder().version(v);
+            if (Boolean.TRUE.equals(v.getEncrypted())) {
+                result.encryptedData(Base64.getEncoder().encodeToString(bytes));
+            } else {
+                result.content(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return Optional.of(result.build());
+        } catch (IOException e) {
+            log.error("버전 읽기 실패: userId={}, path={}, version={}", user.getId(), path, versionId, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 버전 복원 (그 버전의 내용으로 저장 → 새 버전으로 기록됨, 할당량·병합 저장 동일 적용)
+     *
+     * @throws IllegalArgumentException VERSION_NOT_FOUND (없거나 읽을 수 없는 버전)
+     */
+    @Transactional
+    @CacheEvict(value = "fileMetadata", key = "#user.id + ':' + #filePath")
+    public Optional<FileMetadata> restoreVersion(User user, String filePath, Long versionId) {
+        VersionContentResult version = readVersion(user, filePath, versionId)
+                .orElseThrow(() -> new IllegalArgumentException("VERSION_NOT_FOUND"));
+        FileVersion v = version.getVersion();
+        return saveFile(user, filePath, version.getContent(), Boolean.TRUE.equals(v.getEncrypted()),
+                version.getEncryptedData(), v.getIv(), v.getAuthTag());
+    }
+
+    /** 목록 조회 결과 (nextCursor가 null이면 마지막 페이지) */
+    @lombok.Getter
+    @lombok.AllArgsConstructor
+    public static class FilePage {
+        private final List<FileMetadataSummary> files;
+        private final String nextCursor;
+    }
+
+    /**
+     * 원본 스트리밍 조회 결과 (경로 + 내용 크기 + 메타, 메타는 DB에 없으면 null)
+     * compressed면 디스크 파일은 gzip(storedSize 바이트)이고 size는 해제한 내용 크기
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class RawFileResult {
+        private FileMetadata metadata;
+        private Path path;
+        private long size;
+        private boolean compressed;
+        private long storedSize;
+    }
+
+    /** 일괄 업로드 결과 (items는 요청 순서) */
+    @lombok.Data
+    @lombok.Builder
+    public static class BatchUploadResult {
+        private int saved;
+        private int failed;
+        private long bytesWritten;
+        private List<BatchItem> items;
+    }
+
+    /** 일괄 업로드 파일별 결과 (실패 시 error에 코드) */
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    public static class BatchItem {
+        private String path;
+        private boolean success;
+        private Long size;
+        private String error;
+
+        static BatchItem saved(String path, long size) {
+            return new BatchItem(path, true, size, null);
+        }
+
+        static BatchItem failed(String path, String error) {
+            return new BatchItem(path, false, null, error);
+        }
+    }
+
+    /** 부분 저장 결과 (메타 + 적용 후 내용) */
+    @lombok.Data
+    @lombok.Builder
+    public static class PatchResult {
+        private FileMetadata metadata;
+        private String content;
+    }
+
+    /** 버전 읽기 결과 (암호화 버전이면 encryptedData, 아니면 content) */
+    @lombok.Data
+    @lombok.Builder
+    public static class VersionContentResult {
+        private FileVersion version;
+        private String content;
+        private String encryptedData;
     }
 
-    /** 읽기 결과 (내용 + 메타) */
+    /** 읽기 결과 (내용 + 메타, contentHash는 PATCH 저장의 기준 버전) */
     @lombok.Data
     @lombok.Builder
     public static class FileContentResult {
         private FileMetadata metadata;
+        private String contentHash;
         private String content;
+        private String html;
         private boolean encrypted;
         private String encryptedData;
         private String iv;
@@ -0,0 +1,255 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.entity.FileMetadata;
+import com.markdownviewer.entity.FileVersion;
+import com.markdownviewer.entity.User;
+import com.markdownviewer.repository.FileMetadataRepository;
+import com.markdownviewer.repository.FileVersionRepository;
+import com.markdownviewer.repository.UserRepository;
+import com.markdownviewer.util.HashUtil;
+import com.markdownviewer.util.StoredContent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 파일 버전 기록·보관
+ * - 저장/업로드 이벤트(커밋 후)를 기록 스레드가 받아 디스크 내용을(gzip 저장이면 해제해) 읽고 직전 버전과 다르면 버전 한 행 + 저장소 객체 기록
+ *   (병합 저장이면 반영된 내용마다 한 버전, 기록 전에 다음 저장이 커밋되면 메타데이터 해시가 달라 건너뛰고 다음 이벤트에서 기록)
+ * - 직전 버전이 min-interval-ms보다 최근이면 새 행 대신 그 행의 내용을 교체 → 자동 저장이 잦아도 경로별 행은 간격당 하나,
+ *   각 행은 그 간격의 마지막 내용 (교체된 객체는 새 객체의 델타 기준으로 남음)
+ * - 내용은 {@link VersionStore}에 직전 버전 대비 델타로 저장. 암호화 파일은 델타 효과가 없으므로 전체 저장
+ * - 파일을 삭제해도 버전은 남아 복원 가능 (정리 작업이 보관 기준에 따라 제거). 안전 삭제면 그 경로의 버전과 객체도 바로 삭제
+ * - 정리(app.versions.compact-cron): 경로별 최신 keep-per-file개 중 keep-days 안의 버전만 보관
+ *   (현재 있는 파일의 최신 버전은 항상 보관), 남은 버전이 참조하지 않는 객체 삭제. 기록과 같은 스레드에서 실행
+ */
+@Service
+@Slf4j
+public class FileVersionService {
+
+    private static final int DELETE_CHUNK = 500;
+
+    private final FileVersionRepository fileVersionRepository;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final UserRepository userRepository;
+    private final VersionStore versionStore;
+    private final String basePath;
+    private final int keepPerFile;
+    private final int keepDays;
+    private final long minIntervalMs;
+
+    /** 버전 기록·정리 전용 (같은 스레드에서 실행해 정리가 기록 중인 객체를 지우지 않도록) */
+    private final ExecutorService recorder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "version-recorder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public FileVersionService(FileVersionRepository fileVersionRepository,
+                              FileMetadataRepository fileMetadataRepository,
+                              UserRepository userRepository,
+                              VersionStore versionStore,
+                              @Value("${app.file-storage-base-path:./data}") String basePath,
+                              @Value("${app.versions.keep-per-file:50}") int keepPerFile,
+                              @Value("${app.versions.keep-days:30}") int keepDays,
+                              @Value("${app.versions.min-interval-ms:60000}") long minIntervalMs) {
+        this.fileVersionRepository = fileVersionRepository;
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.userRepository = userRepository;
+        this.versionStore = versionStore;
+        this.basePath = basePath;
+        this.keepPerFile = keepPerFile;
+        this.keepDays = keepDays;
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileChanged(FileChangedEvent event) {
+        if (event.isDeleted() && !event.isSecure()) {
+            return;
+        }
+        try {
+            recorder.execute(event.isDeleted()
+                    ? () -> purge(event.getUserId(), event.getFilePath())
+                    : () -> record(event.getUserId(), event.getFilePath()));
+        } catch (RejectedExecutionException e) {
+            log.debug("종료 중이라 버전 기록 생략: {}", event.getFilePath());
+        }
+    }
+
+    /** 경로의 버전 목록 (최신순) */
+    public List<FileVersion> list(User user, String path, int limit) {
+        return fileVersionRepository.findVersions(user, path, PageRequest.of(0, limit));
+    }
+
+    public Optional<FileVersion> find(User user, String path, Long versionId) {
+        return fileVersionRepository.findByIdAndUserAndFilePath(versionId, user, path);
+    }
+
+    /** 버전 내용 (암호화 버전은 암호문) */
+    public byte[] content(User user, FileVersion version) throws IOException {
+        return versionStore.read(user.getId(), version.getContentHash());
+    }
+
+    /** 보관 기준 정리 (기록 스레드에서 실행하고 끝날 때까지 대기) */
+    @Scheduled(cron = "${app.versions.compact-cron:0 0 5 * * *}")
+    public void compact() {
+        try {
+            int removed = recorder.submit(this::compactNow).get();
+            log.info("버전 정리 완료: removed={}", removed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            log.error("버전 정리 실패", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recorder.shutdown();
+        try {
+            recorder.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** 디스크의 현재 내용을 버전으로 기록 (직전 버전과 같거나 메타데이터와 어긋나면 생략, 직전 버전이 최소 간격 안이면 교체) */
+    void record(Long userId, String path) {
+        try {
+            User user = userRepository.getReferenceById(userId);
+            Optional<FileMetadata> metaOpt = fileMetadataRepository.findByUserAndFilePath(user, path);
+            if (metaOpt.isEmpty()) {
+                return;
+            }
+            FileMetadata meta = metaOpt.get();
+            boolean encrypted = Boolean.TRUE.equals(meta.getEncrypted());
+            Path file = userFiles(userId).resolve(path);
+            byte[] bytes;
+            try {
+                bytes = encrypted ? Files.readAllBytes(file) : StoredContent.read(file);
+            } catch (NoSuchFileException e) {
+                return;
+            }
+            String hash = HashUtil.sha256Hex(bytes);
+            if (meta.getContentHash() != null && !meta.getContentHash().equalsIgnoreCase(hash)) {
+                return; // 다음 저장이 이미 커밋됨 → 그 이벤트에서 기록
+            }
+            Optional<FileVersion> latest = fileVersionRepository.findTopByUserAndFilePathOrderByIdDesc(user, path);
+            if (latest.isPresent() && latest.get().getContentHash().equals(hash)) {
+                return;
+            }
+            String base = latest.filter(v -> !encrypted && !Boolean.TRUE.equals(v.getEncrypted()))
+                    .map(FileVersion::getContentHash)
+                    .orElse(null);
+            versionStore.put(userId, hash, bytes, base);
+            if (latest.isPresent() && isRecent(latest.get())) {
+                FileVersion version = latest.get();
+                version.replaceContent(hash, bytes.length, encrypted,
+                        encrypted ? meta.getIv() : null, encrypted ? meta.getAuthTag() : null);
+                fileVersionRepository.save(version);
+                return;
+            }
+            fileVersionRepository.save(FileVersion.builder()
+                    .user(user)
+                    .filePath(path)
+                    .contentHash(hash)
+                    .fileSize((long) bytes.length)
+                    .encrypted(encrypted)
+                    .iv(encrypted ? meta.getIv() : null)
+                    .authTag(encrypted ? meta.getAuthTag() : null)
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            log.error("버전 기록 실패: userId={}, path={}", userId, path, e);
+        }
+    }
+
+    private boolean isRecent(FileVersion version) {
+        return minIntervalMs > 0 && version.getCreatedAt() != null
+                && version.getCreatedAt().isAfter(LocalDateTime.now().minusNanos(minIntervalMs * 1_000_000));
+    }
+
+    /** 경로의 버전 삭제 후 더 이상 참조되지 않는 객체 삭제 (다른 경로와 공유하는 객체는 유지) */
+    void purge(Long userId, String path) {
+        try {
+            int versions = fileVersionRepository.deleteByPath(userId, path);
+            Set<String> live = new HashSet<>();
+            for (Object[] row : fileVersionRepository.findRetentionRows(userId)) {
+                live.add((String) row[2]);
+            }
+            int objects = versionStore.sweep(userId, live);
+            log.debug("버전 삭제: userId={}, path={}, versions={}, objects={}", userId, path, versions, objects);
+        } catch (IOException | RuntimeException e) {
+            log.error("버전 삭제 실패: userId={}, path={}", userId, path, e);
+        }
+    }
+
+    /** @return 삭제한 버전 수 */
+    int compactNow() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(keepDays);
+        int removed = 0;
+        for (Long userId : fileVersionRepository.findUserIds()) {
+            try {
+                User user = userRepository.getReferenceById(userId);
+                Set<String> existing = new HashSet<>();
+                for (Object[] row : fileMetadataRepository.findContentHashes(user)) {
+                    existing.add((String) row[0]);
+                }
+                List<Long> expired = new ArrayList<>();
+                Set<String> live = new HashSet<>();
+                String previousPath = null;
+                int rank = 0;
+                for (Object[] row : fileVersionRepository.findRetentionRows(userId)) {
+                    String path = (String) row[1];
+                    if (!path.equals(previousPath)) {
+                        previousPath = path;
+                        rank = 0;
+                    }
+                    LocalDateTime createdAt = (LocalDateTime) row[3];
+                    boolean keep = rank < keepPerFile
+                            && ((createdAt != null && createdAt.isAfter(cutoff)) || (rank == 0 && existing.contains(path)));
+                    rank++;
+                    if (keep) {
+                        live.add((String) row[2]);
+                    } else {
+                        expired.add((Long) row[0]);
+                    }
+                }
+                for (int i = 0; i < expired.size(); i += DELETE_CHUNK) {
+                    fileVersionRepository.deleteAllByIdInBatch(expired.subList(i, Math.min(i + DELETE_CHUNK, expired.size())));
+                }
+                int objects = versionStore.sweep(userId, live);
+                removed += expired.size();
+                log.debug("버전 정리: userId={}, versions={}, objects={}", userId, expired.size(), objects);
+            } catch (IOException | RuntimeException e) {
+                log.error("버전 정리 실패: userId={}", userId, e);
+            }
+        }
+        return removed;
+    }
+
+    private Path userFiles(Long userId) {
+        return Paths.get(basePath).resolve("users").resolve(userId.toString()).resolve("files");
+    }
+}
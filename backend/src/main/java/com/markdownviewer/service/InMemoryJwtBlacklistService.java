@@ -1,41 +1,126 @@
 package com.markdownviewer.service;
 
+import com.markdownviewer.util.HashUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 /**
  * JWT 블랙리스트 - 인메모리 구현 (Redis 미사용 시)
- * 토큰 만료 시점(expireAt)까지 보관 후 조회 시 만료된 항목은 제거
+ * - 키는 토큰 전체가 아닌 SHA-256 다이제스트(고정 64자) → 로그아웃이 몰려도 항목당 메모리 일정
+ * - 만료 시각(초) 단위 버킷의 타임 휠로 만료 항목 제거: 추가는 버킷에 O(1), 정리는 지난 초의 버킷만 통째로 제거
+ *   (초가 바뀐 뒤 첫 추가·조회 때만 정리). 다시 제시되지 않는 토큰도 만료 후 제거됨
  */
 @Service
 @ConditionalOnMissingBean(RedisConnectionFactory.class)
 @Slf4j
 public class InMemoryJwtBlacklistService implements JwtBlacklistService {
 
-    /** token -> 만료 시점(epoch ms) */
+    /** 토큰 다이제스트 -> 만료 시점(epoch ms) */
     private final ConcurrentHashMap<String, Long> blacklist = new ConcurrentHashMap<>();
 
+    /** 정리할 초(epoch s) -> 그 초에 만료되는 항목 (buckets 자체로 동기화) */
+    private final HashMap<Long, List<Expiry>> buckets = new HashMap<>();
+
+    private final LongSupplier clock;
+
+    /** 이 초까지의 버킷은 정리됨 */
+    private long sweptSecond;
+
+    /** 다음 정리가 필요한 시점(epoch ms, 잠금 없이 판단) */
+    private volatile long nextSweepAt;
+
+    private record Expiry(long expireAt, String key) {
+    }
+
+    public InMemoryJwtBlacklistService() {
+        this(System::currentTimeMillis);
+    }
+
+    InMemoryJwtBlacklistService(LongSupplier clock) {
+        this.clock = clock;
+        this.sweptSecond = clock.getAsLong() / 1000;
+        this.nextSweepAt = (sweptSecond + 1) * 1000;
+    }
+
     @Override
     public void add(String token, long ttlMs) {
         if (token == null || ttlMs <= 0) return;
-        long expireAt = System.currentTimeMillis() + ttlMs;
-        blacklist.put(token, expireAt);
+        long now = clock.getAsLong();
+        long expireAt = now + ttlMs;
+        String key = digest(token);
+        blacklist.merge(key, expireAt, Math::max);
+        synchronized (buckets) {
+            // 만료 시점이 완전히 지난 다음 초의 버킷
+            buckets.computeIfAbsent(expireAt / 1000 + 1, s -> new ArrayList<>()).add(new Expiry(expireAt, key));
+            sweep(now);
+        }
         log.debug("JWT 블랙리스트 추가 (인메모리), 만료: {} ms 후", ttlMs);
     }
 
     @Override
     public boolean contains(String token) {
         if (token == null) return false;
-        Long expireAt = blacklist.get(token);
-        if (expireAt == null) return false;
-        if (System.currentTimeMillis() >= expireAt) {
-            blacklist.remove(token);
-            return false;
+        long now = clock.getAsLong();
+        if (now >= nextSweepAt) {
+            synchronized (buckets) {
+                sweep(now);
+            }
         }
-        return true;
+        Long expireAt = blacklist.get(digest(token));
+        return expireAt != null && now < expireAt;
+    }
+
+    /** 보관 중인 항목 수 */
+    int size() {
+        return blacklist.size();
+    }
+
+    /**
+     * 지난 초의 버킷 제거 (항목당 한 번, 호출자가 buckets 잠금 보유)
+     * 오래 호출이 없었으면 빈 초를 하나씩 보지 않고 남은 버킷만 확인
+     */
+    private void sweep(long now) {
+        long second = now / 1000;
+        if (second <= sweptSecond) {
+            return;
+        }
+        if (second - sweptSecond > buckets.size()) {
+            buckets.entrySet().removeIf(e -> {
+                if (e.getKey() > second) {
+                    return false;
+                }
+                expire(e.getValue());
+                return true;
+            });
+        } else {
+            for (long s = sweptSecond + 1; s <= second; s++) {
+                List<Expiry> expired = buckets.remove(s);
+                if (expired != null) {
+                    expire(expired);
+                }
+            }
+        }
+        sweptSecond = second;
+        nextSweepAt = (second + 1) * 1000;
+    }
+
+    private void expire(List<Expiry> expired) {
+        for (Expiry e : expired) {
+            // 같은 토큰이 더 긴 만료로 다시 추가된 경우는 남김
+            blacklist.remove(e.key(), e.expireAt());
+        }
+    }
+
+    private static String digest(String token) {
+        return HashUtil.sha256Hex(token.getBytes(StandardCharsets.UTF_8));
     }
 }
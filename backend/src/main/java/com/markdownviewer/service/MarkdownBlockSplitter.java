@@ -0,0 +1,90 @@
+package com.markdownviewer.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 마크다운 문서를 최상위 블록 단위로 분할 (증분 렌더링용)
+ * 각 블록을 독립적으로 렌더링해 이어 붙인 결과가 전체 렌더링과 같도록 보수적으로 분할
+ * - 빈 줄 다음, 들여쓰기 없이 시작하는 줄에서만 분할 (들여쓰기 줄은 목록 항목/코드의 연속)
+ * - 펜스 코드 블록 내부, 목록을 포함한 블록 뒤의 목록 항목(느슨한 목록)은 분할하지 않음
+ * - 블록 경계를 넘어 영향을 주는 구문(링크 참조 정의, 빈 줄을 포함할 수 있는 HTML 블록)이 있으면 null 반환 → 전체 렌더링
+ */
+public final class MarkdownBlockSplitter {
+
+    private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,})");
+    private static final Pattern LIST_MARKER = Pattern.compile("^ {0,3}([-*+]|\\d{1,9}[.)])(\\s|$)");
+    private static final Pattern LINK_REFERENCE_DEFINITION = Pattern.compile("(?m)^ {0,3}\\[[^\\]]+\\]:");
+    private static final Pattern MULTILINE_HTML_BLOCK =
+            Pattern.compile("(?im)^ {0,3}<(script|pre|style|textarea|!--|\\?|![a-z]|!\\[CDATA\\[)");
+
+    private MarkdownBlockSplitter() {
+    }
+
+    /**
+     * @return 블록 원문 목록 (이어 붙이면 원문과 동일), 블록 단위 렌더링이 안전하지 않으면 null
+     */
+    public static List<String> split(String content) {
+        if (LINK_REFERENCE_DEFINITION.matcher(content).find() || MULTILINE_HTML_BLOCK.matcher(content).find()) {
+            return null;
+        }
+        List<String> blocks = new ArrayList<>();
+        int blockStart = 0;
+        int lineStart = 0;
+        boolean prevBlank = false;
+        boolean containsList = false;
+        char fenceChar = 0;
+        int fenceLength = 0;
+        int length = content.length();
+        while (lineStart < length) {
+            int newline = content.indexOf('\n', lineStart);
+            int lineEnd = newline < 0 ? length : newline;
+            String line = content.substring(lineStart, lineEnd);
+            boolean blank = line.isBlank();
+
+            if (fenceChar != 0) {
+                if (isClosingFence(line, fenceChar, fenceLength)) {
+                    fenceChar = 0;
+                }
+                prevBlank = false;
+            } else {
+                boolean listItem = LIST_MARKER.matcher(line).find();
+                boolean splittable = prevBlank && !blank && !Character.isWhitespace(line.charAt(0))
+                        && !(listItem && containsList);
+                if (splittable && lineStart > blockStart) {
+                    blocks.add(content.substring(blockStart, lineStart));
+                    blockStart = lineStart;
+                    containsList = false;
+                }
+                if (listItem) {
+                    containsList = true;
+                }
+                var fence = FENCE.matcher(line);
+                if (fence.find()) {
+                    fenceChar = fence.group(1).charAt(0);
+                    fenceLength = fence.group(1).length();
+                }
+                prevBlank = blank;
+            }
+            lineStart = newline < 0 ? length : newline + 1;
+        }
+        if (blockStart < length) {
+            blocks.add(content.substring(blockStart));
+        }
+        return blocks;
+    }
+
+    private static boolean isClosingFence(String line, char fenceChar, int fenceLength) {
+        String trimmed = line.strip();
+        if (trimmed.length() < fenceLength || line.length() - line.stripLeading().length() > 3) {
+            return false;
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (trimmed.charAt(i) != fenceChar) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
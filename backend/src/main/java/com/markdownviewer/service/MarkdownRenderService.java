@@ -0,0 +1,233 @@
+package com.markdownviewer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.markdownviewer.dto.response.RenderPatch;
+import com.markdownviewer.util.HashUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.commonmark.Extension;
+import org.commonmark.ext.autolink.AutolinkExtension;
+import org.commonmark.ext.gfm.strikethrough.StrikethroughExtension;
+import org.commonmark.ext.gfm.tables.TablesExtension;
+import org.commonmark.ext.task.list.items.TaskListItemsExtension;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 마크다운 → HTML 서버 렌더링 서비스
+ * CommonMark + GFM(표, 취소선, 자동 링크, 작업 목록) 렌더링, 결과는 내용 바이트의 SHA-256 해시로 캐시
+ * - 같은 내용은 사용자·경로와 무관하게 한 번만 렌더링 (공유 문서 동시 조회 시 파싱 1회)
+ * - 키가 내용 해시이므로 저장해도 무효화하지 않음 (바뀐 내용은 새 키, 이전 결과는 제거 정책으로 밀려남)
+ * - 문서를 최상위 블록으로 나눠 블록 해시별로도 캐시 → 저장 후에는 바뀐 블록만 다시 파싱·렌더링
+ * - 경로별 블록 트리(블록 해시 목록)를 보관해 저장 시 블록 단위 패치(RenderPatch) 생성
+ * - Caffeine 캐시: HTML 크기 합계 기준 최대 가중치 (app.render.cache-max-bytes), 블록 트리는 문서 수 상한 (app.render.max-trees)
+ * - 원시 HTML은 이스케이프, 링크 URL은 정화 (XSS 방지)
+ * @see docs/20_backend/20_API_SPECIFICATION.md - GET /api/files/{path} (html)
+ */
+@Service
+@Slf4j
+public class MarkdownRenderService {
+
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+    private final long maxCacheBytes;
+
+    /** 내용(문서 또는 블록) 해시 -> HTML (가중치 = 추정 바이트) */
+    private final Cache<String, String> cache;
+
+    /** userId:path -> 마지막으로 렌더링한 블록 트리 */
+    private final Cache<String, RenderTree> trees;
+
+    /**
+     * 문서의 블록 구성. blockHashes가 null이면 블록 단위로 나눌 수 없는 문서(전체 렌더링)
+     */
+    private record RenderTree(String contentHash, List<String> blockHashes) {
+    }
+
+    public MarkdownRenderService(@Value("${app.render.cache-max-bytes:67108864}") long maxCacheBytes,
+                                 @Value("${app.render.max-trees:1024}") int maxTrees) {
+        List<Extension> extensions = List.of(
+                TablesExtension.create(),
+                StrikethroughExtension.create(),
+                AutolinkExtension.create(),
+                TaskListItemsExtension.create());
+        this.parser = Parser.builder().extensions(extensions).build();
+        this.renderer = HtmlRenderer.builder()
+                .extensions(extensions)
+                .escapeHtml(true)
+                .sanitizeUrls(true)
+                .build();
+        this.maxCacheBytes = maxCacheBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxCacheBytes)
+                .weigher((String hash, String html) -> (int) Math.min(Integer.MAX_VALUE, weigh(html)))
+                .executor(Runnable::run)
+                .build();
+        this.trees = Caffeine.newBuilder()
+                .maximumSize(maxTrees)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * 파일 내용(UTF-8 바이트)을 HTML로 렌더링. 동일 내용이 캐시에 있으면 파싱 없이 반환,
+     * 없으면 캐시에 없는 블록만 렌더링해 조립
+     */
+    public String render(Long userId, String path, byte[] content) {
+        String hash = HashUtil.sha256Hex(content);
+        String cached = getCached(hash);
+        if (cached != null) {
+            return cached;
+        }
+        String key = pathKey(userId, path);
+        String text = new String(content, StandardCharsets.UTF_8);
+        List<String> blocks = MarkdownBlockSplitter.split(text);
+        String html;
+        if (blocks == null) {
+            html = renderFull(content);
+            putTree(key, new RenderTree(hash, null));
+        } else {
+            List<String> blockHashes = new ArrayList<>(blocks.size());
+            StringBuilder sb = new StringBuilder(text.length() + text.length() / 4);
+            for (String block : blocks) {
+                String blockHash = HashUtil.sha256Hex(block.getBytes(StandardCharsets.UTF_8));
+                blockHashes.add(blockHash);
+                sb.append(renderBlock(blockHash, block));
+            }
+            html = sb.toString();
+            putTree(key, new RenderTree(hash, blockHashes));
+        }
+        putCached(hash, html);
+        return html;
+    }
+
+    /**
+     * 저장된 새 내용에 대해 직전 블록 트리와 비교한 블록 단위 패치 생성
+     * 앞뒤로 같은 블록을 제외한 가운데 구간만 렌더링하므로 비용은 편집 크기에 비례
+     */
+    public RenderPatch renderPatch(Long userId, String path, String content) {
+        String key = pathKey(userId, path);
+        String hash = HashUtil.sha256Hex(content.getBytes(StandardCharsets.UTF_8));
+        RenderTree previous = getTree(key);
+        List<String> blocks = MarkdownBlockSplitter.split(content);
+        if (blocks == null) {
+            String html = renderer.render(parser.parse(content));
+            putTree(key, new RenderTree(hash, null));
+            return RenderPatch.builder()
+                    .hash(hash)
+                    .full(true)
+                    .blocks(List.of(html))
+                    .blockCount(1)
+                    .build();
+        }
+        List<String> blockHashes = new ArrayList<>(blocks.size());
+        for (String block : blocks) {
+            blockHashes.add(HashUtil.sha256Hex(block.getBytes(StandardCharsets.UTF_8)));
+        }
+        putTree(key, new RenderTree(hash, blockHashes));
+
+        boolean full = previous == null || previous.blockHashes() == null;
+        int start = 0;
+        int deleteCount = 0;
+        int insertEnd = blocks.size();
+        if (!full) {
+            List<String> old = previous.blockHashes();
+            int max = Math.min(old.size(), blockHashes.size());
+            while (start < max && old.get(start).equals(blockHashes.get(start))) {
+                start++;
+            }
+            int suffix = 0;
+            while (suffix < max - start
+                    && old.get(old.size() - 1 - suffix).equals(blockHashes.get(blockHashes.size() - 1 - suffix))) {
+                suffix++;
+            }
+            deleteCount = old.size() - start - suffix;
+            insertEnd = blockHashes.size() - suffix;
+        }
+        List<String> inserted = new ArrayList<>(insertEnd - start);
+        for (int i = start; i < insertEnd; i++) {
+            inserted.add(renderBlock(blockHashes.get(i), blocks.get(i)));
+        }
+        return RenderPatch.builder()
+                .baseHash(full ? null : previous.contentHash())
+                .hash(hash)
+                .full(full)
+                .start(start)
+                .deleteCount(deleteCount)
+                .blocks(inserted)
+                .blockCount(blocks.size())
+                .build();
+    }
+
+    /**
+     * 삭제 시 블록 트리 제거 (렌더링 결과는 같은 내용의 다른 문서가 쓸 수 있으므로 LRU에 맡김)
+     */
+    public void remove(Long userId, String path) {
+        trees.invalidate(pathKey(userId, path));
+    }
+
+    /** 캐시된 HTML 크기 합계(추정 바이트) */
+    public long getCachedBytes() {
+        cache.cleanUp();
+        return cache.policy().eviction().orElseThrow().weightedSize().orElse(0L);
+    }
+
+    private String renderBlock(String blockHash, String block) {
+        String html = getCached(blockHash);
+        if (html == null) {
+            html = renderer.render(parser.parse(block));
+            putCached(blockHash, html);
+        }
+        return html;
+    }
+
+    private String renderFull(byte[] content) {
+        // 바이트에서 바로 스트리밍 파싱 (String 사본 생성 없이 한 줄씩 읽음)
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)) {
+            return renderer.render(parser.parseReader(reader));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RenderTree getTree(String key) {
+        return trees.getIfPresent(key);
+    }
+
+    private void putTree(String key, RenderTree tree) {
+        trees.put(key, tree);
+    }
+
+    private String getCached(String hash) {
+        return cache.getIfPresent(hash);
+    }
+
+    private void putCached(String hash, String html) {
+        long weight = weigh(html);
+        if (weight > maxCacheBytes) {
+            log.debug("렌더링 결과가 캐시 한도보다 커서 캐시하지 않음: {} bytes", weight);
+            return;
+        }
+        cache.put(hash, html);
+    }
+
+    /** Java String 1자 = 2바이트로 추정 */
+    private static long weigh(String html) {
+        return (long) html.length() * 2;
+    }
+
+    private static String pathKey(Long userId, String path) {
+        return userId + ":" + path;
+    }
+}
@@ -1,27 +1,71 @@
 package com.markdownviewer.service;
 
-import lombok.RequiredArgsConstructor;
+import com.markdownviewer.util.BloomFilter;
+import com.markdownviewer.util.HashUtil;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * JWT 블랙리스트 - Redis 구현 (Redis 사용 시)
  * 키: jwt:blacklist:{token}, TTL = 토큰 만료까지 남은 시간
+ * - 블랙리스트 토큰 다이제스트(SHA-256)의 로컬 블룸 필터를 두어, 필터가 "없음"이면 Redis 조회 생략
+ *   (대부분의 요청은 메모리 조회만으로 끝나고 "있을 수도 있음"일 때만 hasKey)
+ * - 추가 시 채널 {@value #CHANNEL}로 다이제스트를 발행해 다른 노드 필터에 반영
+ * - 시작 시 SCAN으로 필터 구성, 주기적으로 재구성(만료 토큰 정리·통지 유실 보정, app.jwt-blacklist.rebuild-interval-ms)
+ * - 필터 구성 전이거나 구성 실패 시에는 항상 Redis 조회
  */
 @Service
 @ConditionalOnBean(RedisConnectionFactory.class)
-@RequiredArgsConstructor
 @Slf4j
-public class RedisJwtBlacklistService implements JwtBlacklistService {
+public class RedisJwtBlacklistService implements JwtBlacklistService, MessageListener {
 
     private static final String KEY_PREFIX = "jwt:blacklist:";
+    static final String CHANNEL = "jwt:blacklist:added";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
 
     private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long expectedTokens;
+
+    /** 조회용 필터 (null이면 아직 구성되지 않음 → Redis 조회) */
+    private volatile BloomFilter filter;
+    /** 재구성 중 추가된 다이제스트 (교체 직후 새 필터에 반영, 재구성 중이 아니면 null) */
+    private volatile Queue<byte[]> addedDuringRebuild;
+
+    public RedisJwtBlacklistService(StringRedisTemplate redisTemplate,
+                                    RedisMessageListenerContainer listenerContainer,
+                                    @Value("${app.jwt-blacklist.expected-tokens:100000}") long expectedTokens) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.expectedTokens = expectedTokens;
+    }
+
+    @PostConstruct
+    void init() {
+        // 구독을 먼저 시작해 SCAN과 구독 사이에 추가된 토큰도 놓치지 않음
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        rebuild();
+    }
 
     @Override
     public void add(String token, long ttlMs) {
@@ -29,14 +73,80 @@ public class RedisJwtBlacklistService implements JwtBlacklistService {
         String key = KEY_PREFIX + token;
         Duration ttl = Duration.ofMillis(ttlMs);
         redisTemplate.opsForValue().set(key, "1", ttl);
+        byte[] digest = digest(token);
+        putLocal(digest);
+        redisTemplate.convertAndSend(CHANNEL, HexFormat.of().formatHex(digest));
         log.debug("JWT 블랙리스트 추가 (Redis), TTL: {} ms", ttlMs);
     }
 
     @Override
     public boolean contains(String token) {
         if (token == null) return false;
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(digest(token))) {
+            return false;
+        }
         String key = KEY_PREFIX + token;
         Boolean has = redisTemplate.hasKey(key);
         return Boolean.TRUE.equals(has);
     }
+
+    /** 다른 노드의 블랙리스트 추가 통지 */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            putLocal(HexFormat.of().parseHex(new String(message.getBody(), StandardCharsets.US_ASCII)));
+        } catch (IllegalArgumentException e) {
+            log.warn("잘못된 블랙리스트 통지 무시");
+        }
+    }
+
+    /**
+     * Redis의 블랙리스트 키를 SCAN해 필터를 새로 구성 (만료된 토큰은 빠짐)
+     * 실패 시 기존 필터 유지, 최초 구성 실패면 계속 Redis 조회
+     */
+    @Scheduled(fixedDelayString = "${app.jwt-blacklist.rebuild-interval-ms:300000}",
+            initialDelayString = "${app.jwt-blacklist.rebuild-interval-ms:300000}")
+    public synchronized void rebuild() {
+        Queue<byte[]> added = new ConcurrentLinkedQueue<>();
+        addedDuringRebuild = added;
+        try {
+            List<String> tokens = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    tokens.add(cursor.next().substring(KEY_PREFIX.length()));
+                }
+            }
+            BloomFilter next = new BloomFilter(Math.max(expectedTokens, 2L * tokens.size()), FALSE_POSITIVE_RATE);
+            for (String token : tokens) {
+                next.put(digest(token));
+            }
+            filter = next;
+            for (byte[] digest; (digest = added.poll()) != null; ) {
+                next.put(digest);
+            }
+            log.debug("JWT 블랙리스트 필터 구성: {}건", tokens.size());
+        } catch (RuntimeException e) {
+            log.warn("JWT 블랙리스트 필터 구성 실패 (Redis 조회로 동작)", e);
+        } finally {
+            addedDuringRebuild = null;
+        }
+    }
+
+    /** 로컬 필터 반영. 재구성 큐에 먼저 넣어 교체 시점과 겹쳐도 새 필터에서 누락되지 않음 */
+    private void putLocal(byte[] digest) {
+        Queue<byte[]> added = addedDuringRebuild;
+        if (added != null) {
+            added.offer(digest);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(digest);
+        }
+    }
+
+    private static byte[] digest(String token) {
+        return HashUtil.sha256(token.getBytes(StandardCharsets.UTF_8));
+    }
 }
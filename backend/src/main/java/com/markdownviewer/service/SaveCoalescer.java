@@ -0,0 +1,249 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.entity.User;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 저장 write-behind 병합 (사용자·경로별)
+ * - 자동 저장·여러 탭의 저장이 같은 파일에 몰리면 창(app.file-save.coalesce-window-ms) 동안 마지막 내용만 버퍼에 두고
+ *   창이 끝날 때 디스크·DB에 한 번 반영. 창은 첫 버퍼링 시점부터 재므로 계속 저장해도 반영 지연은 창 길이 이내
+ * - 반영(커밋)이 끝난 뒤에 버퍼에서 제거 → 읽기는 항상 버퍼 또는 반영된 내용을 봄 (read-your-writes)
+ * - 같은 키의 버퍼링·반영은 키 잠금으로 직렬화, 반영은 별도 트랜잭션. 실패하면 버퍼를 유지하고 재시도,
+ *   재시도가 MAX_FLUSH_RETRIES번 모두 실패하면(디스크 가득 참 등) 저장을 버리고 예약분 해제 (에러 로그)
+ * - 버퍼 내용은 readFile(peek)만 봄. 목록·메타데이터·인덱스·검색은 반영 전까지 이전 크기·해시
+ * - 종료 시 남은 버퍼 모두 반영. 창이 0(기본)이면 비활성 (저장 즉시 반영)
+ * 켜면 저장 응답이 디스크·DB 반영 전에 나가므로 fsync 정책과 관계없이 창 안의 저장은 프로세스가 죽으면 유실됨.
+ * 버퍼는 프로세스 메모리에 있으므로 여러 인스턴스 운영 시 사용자별 고정 라우팅(sticky)이 아니면 켜지 말 것
+ */
+@Component
+@Slf4j
+public class SaveCoalescer {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int FLUSH_THREADS = 2;
+    private static final long RETRY_DELAY_MS = 1000;
+    private static final int MAX_FLUSH_RETRIES = 10;
+
+    private final long windowMs;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentHashMap<Key, PendingSave> pending = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final ScheduledThreadPoolExecutor scheduler;
+    private volatile Flusher flusher;
+    private volatile Dropper dropper = save -> { };
+    private long retryDelayMs = RETRY_DELAY_MS;
+    private int maxRetries = MAX_FLUSH_RETRIES;
+
+    public record Key(Long userId, String path) {
+    }
+
+    /** 버퍼에 있는 마지막 저장 (encrypted면 content는 암호문, iv·authTag 포함) */
+    public record PendingSave(User user, String path, byte[] content, String contentHash,
+                              boolean encrypted, String iv, String authTag, LocalDateTime lastModified) {
+    }
+
+    /** 버퍼 내용을 디스크·메타데이터에 반영 (트랜잭션 안에서 호출) */
+    @FunctionalInterface
+    public interface Flusher {
+        void flush(PendingSave save) throws IOException;
+    }
+
+    /** 재시도 끝에 버린 버퍼의 뒷정리 (예약분 해제 등, 트랜잭션 안에서 호출) */
+    @FunctionalInterface
+    public interface Dropper {
+        void drop(PendingSave save);
+    }
+
+    /** 직전 버퍼(없으면 null)로 새 버퍼 내용 생성. null을 돌려주면 버퍼 변경 없음 */
+    @FunctionalInterface
+    public interface Update {
+        PendingSave apply(PendingSave previous) throws IOException;
+    }
+
+    public SaveCoalescer(@Value("${app.file-save.coalesce-window-ms:0}") long windowMs,
+                         PlatformTransactionManager transactionManager) {
+        this.windowMs = windowMs;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        if (windowMs > 0) {
+            AtomicInteger seq = new AtomicInteger();
+            scheduler = new ScheduledThreadPoolExecutor(FLUSH_THREADS, r -> {
+                Thread t = new Thread(r, "save-coalescer-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    public void setFlusher(Flusher flusher) {
+        this.flusher = flusher;
+    }
+
+    public void setDropper(Dropper dropper) {
+        this.dropper = dropper;
+    }
+
+    public boolean isEnabled() {
+        return windowMs > 0;
+    }
+
+    /** 아직 반영되지 않은 버퍼 내용 */
+    public Optional<PendingSave> peek(Long userId, String path) {
+        return Optional.ofNullable(pending.get(new Key(userId, path)));
+    }
+
+    /** 사용자에게 아직 반영되지 않은 버퍼가 있는지 (사용량 재계산 제외용) */
+    public boolean hasPending(Long userId) {
+        for (Key key : pending.keySet()) {
+            if (key.userId().equals(userId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 키 잠금 안에서 update로 만든 내용을 버퍼에 둠 (update가 예외를 던지면 버퍼는 그대로)
+     * 새로 버퍼링된 키는 창이 끝날 때 반영 예약
+     *
+     * @return 버퍼에 둔 내용 (update가 null이면 null)
+     */
+    public PendingSave submit(Long userId, String path, Update update) throws IOException {
+        Key key = new Key(userId, path);
+        synchronized (lock(key)) {
+            PendingSave previous = pending.get(key);
+            PendingSave next = update.apply(previous);
+            if (next == null) {
+                return null;
+            }
+            pending.put(key, next);
+            if (previous == null) {
+                schedule(key, windowMs, 0);
+            }
+            return next;
+        }
+    }
+
+    /** 버퍼에 있으면 호출 스레드에서 바로 반영 (원본 스트리밍·업로드처럼 디스크를 직접 다루기 전) */
+    public void flush(Long userId, String path) throws IOException {
+        flush(new Key(userId, path));
+    }
+
+    /** 반영하지 않고 버퍼 제거 (파일 삭제 시) */
+    public Optional<PendingSave> discard(Long userId, String path) {
+        Key key = new Key(userId, path);
+        synchronized (lock(key)) {
+            return Optional.ofNullable(pending.remove(key));
+        }
+    }
+
+    /** 버퍼에 있는 파일 수 */
+    int size() {
+        return pending.size();
+    }
+
+    private void flush(Key key) throws IOException {
+        synchronized (lock(key)) {
+            PendingSave save = pending.get(key);
+            if (save == null) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try {
+                        flusher.flush(save);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            pending.remove(key);
+        }
+    }
+
+    private void flushScheduled(Key key, int retries) {
+        try {
+            flush(key);
+        } catch (IOException | RuntimeException e) {
+            if (retries >= maxRetries) {
+                log.error("버퍼링된 저장 반영 {}회 재시도 실패, 저장을 버림: userId={}, path={}",
+                        retries, key.userId(), key.path(), e);
+                drop(key);
+                return;
+            }
+            log.error("버퍼링된 저장 반영 실패, {}ms 후 재시도: userId={}, path={}", retryDelayMs, key.userId(), key.path(), e);
+            schedule(key, retryDelayMs, retries + 1);
+        }
+    }
+
+    private void drop(Key key) {
+        synchronized (lock(key)) {
+            PendingSave save = pending.remove(key);
+            if (save == null) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> dropper.drop(save));
+            } catch (RuntimeException e) {
+                log.error("버린 저장의 예약분 해제 실패 (사용량 재계산에서 보정): userId={}, path={}", key.userId(), key.path(), e);
+            }
+        }
+    }
+
+    private void schedule(Key key, long delayMs, int retries) {
+        try {
+            scheduler.schedule(() -> flushScheduled(key, retries), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("종료 중이라 반영 예약 생략 (종료 시 일괄 반영): {}", key.path());
+        }
+    }
+
+    private Object lock(Key key) {
+        return locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Key key : new ArrayList<>(pending.keySet())) {
+            try {
+                flush(key);
+            } catch (IOException | RuntimeException e) {
+                log.error("종료 시 버퍼링된 저장 반영 실패: userId={}, path={}", key.userId(), key.path(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 저장 공간 할당량 관리
+ * - 쓰기 전 증가분을 조건부 단일 UPDATE로 예약 (사용량 + 증가분 <= 할당량일 때만 반영, 0행이면 초과)
+ *   호출자(저장) 트랜잭션 안에서 실행 → 저장이 롤백되면 예약도 함께 롤백, 커넥션도 추가로 쓰지 않음
+ * - 쓰기 실패 시 예약 해제, 그 밖의 어긋남(장애 등)은 주기적 재계산으로 보정 (app.storage.reconcile-cron)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StorageQuotaService {
+
+    private final UserRepository userRepository;
+    private final SaveCoalescer saveCoalescer;
+
+    /**
+     * bytes만큼 사용량 예약 (0 이하면 무시)
+     *
+     * @throws IllegalArgumentException STORAGE_QUOTA_EXCEEDED
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Long userId, long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        if (userRepository.reserveStorage(userId, bytes) == 0) {
+            throw new IllegalArgumentException("STORAGE_QUOTA_EXCEEDED");
+        }
+    }
+
+    /** 예약 해제 (쓰기 실패 시) */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long userId, long bytes) {
+        if (bytes > 0) {
+            userRepository.addStorageUsed(userId, -bytes);
+        }
+    }
+
+    /**
+     * 사용자별 storage_used를 file_metadata 크기 합계로 재계산 (장애 등으로 생긴 어긋남 보정)
+     * 사용자마다 합계 계산과 갱신을 UPDATE 한 문장으로 실행해 그 사이 예약이 덮이지 않음.
+     * 병합 버퍼에 반영 전 저장이 있는 사용자는 예약분이 아직 file_size에 없으므로 건너뜀
+     *
+     * @return 보정한 사용자 수
+     */
+    @Scheduled(cron = "${app.storage.reconcile-cron:0 30 4 * * *}")
+    public int reconcile() {
+        int corrected = 0;
+        int skipped = 0;
+        for (Long userId : userRepository.findAllIds()) {
+            if (saveCoalescer.hasPending(userId)) {
+                skipped++;
+                continue;
+            }
+            if (userRepository.reconcileStorageUsed(userId) > 0) {
+                corrected++;
+                log.debug("저장 공간 사용량 보정: userId={}", userId);
+            }
+        }
+        if (corrected > 0 || skipped > 0) {
+            log.info("저장 공간 사용량 재계산: {}명 보정, 반영 전 저장이 있어 {}명 건너뜀", corrected, skipped);
+        }
+        return corrected;
+    }
+}
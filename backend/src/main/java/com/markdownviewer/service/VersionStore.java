@@ -0,0 +1,229 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.util.HashUtil;
+import com.markdownviewer.util.LineDelta;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 버전 내용 저장소 (사용자별, 내용 주소 지정)
+ * - 객체 이름은 내용의 SHA-256 hex: {base-path}/users/{id}/versions/{앞 2자}/{hash}. 같은 내용은 한 번만 저장, 한 번 쓴 객체는 바꾸지 않음
+ * - 직전 버전 객체가 있으면 그에 대한 줄 단위 델타({@link LineDelta})로 저장해 편집량만큼만 차지, 델타가 원본보다 크면 전체 저장
+ * - 델타 사슬 길이 상한(app.versions.max-chain)에 이르면 전체 저장 → 읽기는 최대 상한만큼의 객체만 읽음
+ * - 형식: magic, 종류(전체/델타), 사슬 깊이, [기준 객체 hash], deflate 압축된 본문
+ * - 읽을 때 복원한 내용의 해시를 확인 (손상 시 IOException)
+ * - 정리(sweep)의 삭제와 읽기는 읽기/쓰기 잠금으로 분리 → 복원 중인 델타 사슬의 객체를 읽는 도중에 지우지 않음
+ */
+@Component
+@Slf4j
+public class VersionStore {
+
+    private static final int MAGIC = 0x4D56564F; // "MVVO"
+    private static final int KIND_FULL = 0;
+    private static final int KIND_DELTA = 1;
+    /** 손상된 객체가 사슬을 이루어도 끝나도록 */
+    private static final int MAX_HOPS = 1000;
+    private static final Pattern OBJECT_NAME = Pattern.compile("[0-9a-f]{64}");
+
+    private final AtomicFileWriter atomicFileWriter;
+    private final String basePath;
+    private final int maxChain;
+    /** 읽기(공유) ↔ sweep 삭제(배타) */
+    private final ReadWriteLock sweepLock = new ReentrantReadWriteLock();
+
+    /** 객체 헤더 (base는 전체 저장이면 null) */
+    private record Header(int kind, int depth, String base) {
+    }
+
+    public VersionStore(AtomicFileWriter atomicFileWriter,
+                        @Value("${app.file-storage-base-path:./data}") String basePath,
+                        @Value("${app.versions.max-chain:20}") int maxChain) {
+        this.atomicFileWriter = atomicFileWriter;
+        this.basePath = basePath;
+        this.maxChain = maxChain;
+    }
+
+    /**
+     * 객체 저장 (이미 있으면 그대로)
+     *
+     * @param baseHash 델타 기준 객체 (없거나 null이면 전체 저장)
+     */
+    public void put(Long userId, String hash, byte[] content, String baseHash) throws IOException {
+        Path target = objectPath(userId, hash);
+        if (Files.exists(target)) {
+            return;
+        }
+        int kind = KIND_FULL;
+        int depth = 0;
+        byte[] body = content;
+        if (baseHash != null && !baseHash.equals(hash)) {
+            try {
+                Header baseHeader = readHeader(userId, baseHash);
+                if (baseHeader.depth() < maxChain) {
+                    byte[] delta = LineDelta.encode(read(userId, baseHash), content);
+                    if (delta.length < content.length) {
+                        kind = KIND_DELTA;
+                        depth = baseHeader.depth() + 1;
+                        body = delta;
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("델타 기준 버전을 읽을 수 없어 전체 저장: userId={}, base={}", userId, baseHash, e);
+            }
+        }
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(body.length / 2 + 64);
+        DataOutputStream out = new DataOutputStream(buf);
+        out.writeInt(MAGIC);
+        out.writeByte(kind);
+        out.writeShort(depth);
+        if (kind == KIND_DELTA) {
+            out.writeUTF(baseHash);
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream compressed = new DeflaterOutputStream(out, deflater)) {
+            compressed.write(body);
+        } finally {
+            deflater.end();
+        }
+        atomicFileWriter.write(target, buf.toByteArray());
+    }
+
+    /**
+     * 객체 내용 복원 (델타면 사슬을 따라 전체 객체부터 적용)
+     *
+     * @throws NoSuchFileException 객체 없음
+     */
+    public byte[] read(Long userId, String hash) throws IOException {
+        sweepLock.readLock().lock();
+        try {
+            return readChain(userId, hash);
+        } finally {
+            sweepLock.readLock().unlock();
+        }
+    }
+
+    private byte[] readChain(Long userId, String hash) throws IOException {
+        Deque<byte[]> deltas = new ArrayDeque<>();
+        String current = hash;
+        for (int hop = 0; hop < MAX_HOPS; hop++) {
+            Path file = objectPath(userId, current);
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+                Header header = readHeader(in);
+                byte[] body = inflate(in);
+                if (header.kind() == KIND_DELTA) {
+                    deltas.push(body);
+                    current = header.base();
+                    continue;
+                }
+                byte[] content = body;
+                try {
+                    while (!deltas.isEmpty()) {
+                        content = LineDelta.apply(content, deltas.pop());
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("corrupt version object: " + hash, e);
+                }
+                if (!HashUtil.sha256Hex(content).equals(hash)) {
+                    throw new IOException("version object hash mismatch: " + hash);
+                }
+                return content;
+            }
+        }
+        throw new IOException("version delta chain too long: " + hash);
+    }
+
+    /**
+     * live 객체와 그 델타 기준 객체를 뺀 나머지 삭제
+     *
+     * @return 삭제한 객체 수
+     */
+    public int sweep(Long userId, Set<String> live) throws IOException {
+        Path root = versionsDir(userId);
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        Set<String> reachable = new HashSet<>();
+        for (String hash : live) {
+            String current = hash;
+            for (int hop = 0; hop < MAX_HOPS && current != null && reachable.add(current); hop++) {
+                try {
+                    current = readHeader(userId, current).base();
+                } catch (IOException e) {
+                    current = null; // 없는·손상된 객체: 이 버전은 읽을 수 없으므로 더 따라가지 않음
+                }
+            }
+        }
+        List<Path> objects;
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            objects = files.filter(p -> OBJECT_NAME.matcher(p.getFileName().toString()).matches()).toList();
+        }
+        int deleted = 0;
+        sweepLock.writeLock().lock();
+        try {
+            for (Path object : objects) {
+                if (!reachable.contains(object.getFileName().toString()) && Files.deleteIfExists(object)) {
+                    deleted++;
+                }
+            }
+        } finally {
+            sweepLock.writeLock().unlock();
+        }
+        return deleted;
+    }
+
+    private Header readHeader(Long userId, String hash) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(objectPath(userId, hash)))) {
+            return readHeader(in);
+        }
+    }
+
+    private static Header readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a version object");
+        }
+        int kind = in.readUnsignedByte();
+        int depth = in.readUnsignedShort();
+        String base = kind == KIND_DELTA ? in.readUTF() : null;
+        return new Header(kind, depth, base);
+    }
+
+    private static byte[] inflate(InputStream in) throws IOException {
+        try (InflaterInputStream inflater = new InflaterInputStream(in)) {
+            return inflater.readAllBytes();
+        }
+    }
+
+    private Path versionsDir(Long userId) {
+        return Paths.get(basePath).resolve("users").resolve(userId.toString()).resolve("versions");
+    }
+
+    private Path objectPath(Long userId, String hash) {
+        if (!OBJECT_NAME.matcher(hash).matches()) {
+            throw new IllegalArgumentException("INVALID_VERSION");
+        }
+        return versionsDir(userId).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
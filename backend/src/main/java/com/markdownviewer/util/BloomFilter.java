@@ -0,0 +1,66 @@
+package com.markdownviewer.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 블룸 필터 (SHA-256 등 균일한 다이제스트 입력 전용)
+ * 다이제스트 앞 16바이트를 두 해시로 나눠 이중 해싱(h1 + i*h2)으로 k개 비트 위치 계산
+ * mightContain이 false면 확실히 없음, true면 있을 수도 있음 (오탐률은 생성 시 지정)
+ * 비트 설정은 원자적이므로 여러 스레드에서 동시에 put/mightContain 가능
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    /**
+     * @param expectedInsertions 예상 원소 수
+     * @param fpp                목표 오탐률 (0 &lt; fpp &lt; 1)
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, Math.min(m, (long) Integer.MAX_VALUE * 64));
+        this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+        this.numBits = (long) bits.length() * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    public void put(byte[] digest) {
+        long h1 = toLong(digest, 0);
+        long h2 = toLong(digest, 8);
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(h1 + i * h2, numBits);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(byte[] digest) {
+        long h1 = toLong(digest, 0);
+        long h2 = toLong(digest, 8);
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long toLong(byte[] b, int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[offset + i] & 0xFF);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,40 @@
+package com.markdownviewer.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 해시 유틸리티
+ * 내용 주소(content-addressed) 캐시 키 등에 사용하는 SHA-256 해시
+ */
+public final class HashUtil {
+
+    private HashUtil() {
+    }
+
+    /**
+     * SHA-256 MessageDigest 생성
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 바이트 배열의 SHA-256 다이제스트 (32바이트)
+     */
+    public static byte[] sha256(byte[] bytes) {
+        return sha256().digest(bytes);
+    }
+
+    /**
+     * 바이트 배열의 SHA-256 해시 (소문자 hex, 64자)
+     */
+    public static String sha256Hex(byte[] bytes) {
+        return HexFormat.of().formatHex(sha256().digest(bytes));
+    }
+}
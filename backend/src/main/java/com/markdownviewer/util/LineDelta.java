@@ -0,0 +1,186 @@
+package com.markdownviewer.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 줄 단위 바이트 델타 (버전 저장용)
+ * - base의 줄을 색인해 두고 target을 줄마다 훑으며 base에 있는 줄은 COPY(오프셋·길이), 없는 줄은 INSERT(바이트)
+ * - 직전 COPY 다음 줄을 먼저 비교하므로 한 구간을 고친 편집은 COPY·INSERT·COPY 세 개 안팎
+ * - 형식: varint(target 길이) + [0, varint 오프셋, varint 길이] | [1, varint 길이, 바이트] 반복
+ */
+public final class LineDelta {
+
+    private static final int OP_COPY = 0;
+    private static final int OP_INSERT = 1;
+    /** 이어지는 COPY가 아니면 이보다 짧은 줄(빈 줄 등)은 그대로 INSERT (COPY가 더 큼) */
+    private static final int MIN_COPY_LINE = 4;
+
+    private LineDelta() {
+    }
+
+    public static byte[] encode(byte[] base, byte[] target) {
+        int[] lineStarts = lineStarts(base);
+        int lineCount = lineStarts.length - 1;
+        Map<ByteBuffer, Integer> firstLine = new HashMap<>(lineCount * 2);
+        for (int i = lineCount - 1; i >= 0; i--) {
+            firstLine.put(ByteBuffer.wrap(base, lineStarts[i], lineStarts[i + 1] - lineStarts[i]), i);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(16, target.length / 8));
+        writeVarInt(out, target.length);
+        int copyStart = -1;  // base 오프셋
+        int copyLength = 0;
+        int nextLine = -1;   // 이어서 비교할 base 줄
+        int insertStart = -1;
+        int t = 0;
+        while (t < target.length) {
+            int end = lineEnd(target, t);
+            int length = end - t;
+            int line = -1;
+            if (nextLine >= 0 && nextLine < lineCount && sameLine(base, lineStarts, nextLine, target, t, length)) {
+                line = nextLine;
+            } else if (length >= MIN_COPY_LINE) {
+                line = firstLine.getOrDefault(ByteBuffer.wrap(target, t, length), -1);
+            }
+            if (line >= 0) {
+                if (insertStart >= 0) {
+                    writeInsert(out, target, insertStart, t);
+                    insertStart = -1;
+                }
+                if (copyStart >= 0 && lineStarts[line] == copyStart + copyLength) {
+                    copyLength += length;
+                } else {
+                    writeCopy(out, copyStart, copyLength);
+                    copyStart = lineStarts[line];
+                    copyLength = length;
+                }
+                nextLine = line + 1;
+            } else {
+                writeCopy(out, copyStart, copyLength);
+                copyStart = -1;
+                copyLength = 0;
+                if (insertStart < 0) {
+                    insertStart = t;
+                }
+                if (nextLine >= 0) {
+                    nextLine++; // 고친 줄로 보고 다음 줄과 비교
+                }
+            }
+            t = end;
+        }
+        if (insertStart >= 0) {
+            writeInsert(out, target, insertStart, target.length);
+        }
+        writeCopy(out, copyStart, copyLength);
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException 델타가 base와 맞지 않거나 손상됨
+     */
+    public static byte[] apply(byte[] base, byte[] delta) {
+        int[] pos = {0};
+        int length = readVarInt(delta, pos);
+        byte[] result = new byte[length];
+        int written = 0;
+        while (pos[0] < delta.length) {
+            int op = delta[pos[0]++];
+            if (op == OP_COPY) {
+                int offset = readVarInt(delta, pos);
+                int n = readVarInt(delta, pos);
+                check(offset >= 0 && n >= 0 && offset + n <= base.length && written + n <= length);
+                System.arraycopy(base, offset, result, written, n);
+                written += n;
+            } else if (op == OP_INSERT) {
+                int n = readVarInt(delta, pos);
+                check(n >= 0 && pos[0] + n <= delta.length && written + n <= length);
+                System.arraycopy(delta, pos[0], result, written, n);
+                pos[0] += n;
+                written += n;
+            } else {
+                check(false);
+            }
+        }
+        check(written == length);
+        return result;
+    }
+
+    /** 줄 시작 오프셋 (마지막 원소는 전체 길이) */
+    private static int[] lineStarts(byte[] data) {
+        int[] starts = new int[16];
+        int count = 0;
+        int i = 0;
+        while (i < data.length) {
+            if (count + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[count++] = i;
+            i = lineEnd(data, i);
+        }
+        starts = Arrays.copyOf(starts, count + 1);
+        starts[count] = data.length;
+        return starts;
+    }
+
+    /** from부터 줄바꿈을 포함한 줄 끝 (없으면 데이터 끝) */
+    private static int lineEnd(byte[] data, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return data.length;
+    }
+
+    private static boolean sameLine(byte[] base, int[] lineStarts, int line, byte[] target, int from, int length) {
+        int start = lineStarts[line];
+        return lineStarts[line + 1] - start == length
+                && Arrays.equals(base, start, start + length, target, from, from + length);
+    }
+
+    private static void writeCopy(ByteArrayOutputStream out, int offset, int length) {
+        if (offset < 0 || length == 0) {
+            return;
+        }
+        out.write(OP_COPY);
+        writeVarInt(out, offset);
+        writeVarInt(out, length);
+    }
+
+    private static void writeInsert(ByteArrayOutputStream out, byte[] data, int from, int to) {
+        out.write(OP_INSERT);
+        writeVarInt(out, to - from);
+        out.write(data, from, to - from);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static int readVarInt(byte[] data, int[] pos) {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            check(pos[0] < data.length);
+            int b = data[pos[0]++] & 0xFF;
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("malformed delta");
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalArgumentException("malformed delta");
+        }
+    }
+}
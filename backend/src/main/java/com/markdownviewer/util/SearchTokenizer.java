@@ -0,0 +1,92 @@
+package com.markdownviewer.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 검색 색인·질의 공용 토크나이저
+ * - 라틴 문자·숫자 등 연속 구간은 소문자 단어 하나
+ * - 한글·한자·가나는 조사·어미가 붙어 띄어쓰기로 나눌 수 없으므로 연속 구간을 두 글자씩 겹쳐 자름 (1글자 구간은 그대로)
+ *   "파일을 검색" → [파일, 일을, 검색] → "파일" 질의가 "파일을"·"파일은"과 모두 일치
+ * - 그 밖의 문자(공백·문장부호·마크다운 기호)는 구분자
+ */
+public final class SearchTokenizer {
+
+    /** 이보다 긴 단어는 색인하지 않음 (Base64·해시 등) */
+    public static final int MAX_TOKEN_LENGTH = 64;
+
+    private SearchTokenizer() {
+    }
+
+    @FunctionalInterface
+    public interface TokenConsumer {
+        /** start·end: 원문에서의 [start, end) 위치 (UTF-16 인덱스) */
+        void accept(String term, int start, int end);
+    }
+
+    public static List<String> terms(CharSequence text) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, (term, start, end) -> terms.add(term));
+        return terms;
+    }
+
+    public static void tokenize(CharSequence text, TokenConsumer out) {
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            int cp = Character.codePointAt(text, i);
+            if (isCjk(cp)) {
+                i = bigrams(text, i, out);
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < n) {
+                    cp = Character.codePointAt(text, i);
+                    if (!Character.isLetterOrDigit(cp) || isCjk(cp)) {
+                        break;
+                    }
+                    i += Character.charCount(cp);
+                }
+                if (i - start <= MAX_TOKEN_LENGTH) {
+                    out.accept(text.subSequence(start, i).toString().toLowerCase(Locale.ROOT), start, i);
+                }
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    /** start부터 이어지는 한글·한자·가나 구간을 bigram으로 내보내고 구간 끝 위치 반환 */
+    private static int bigrams(CharSequence text, int start, TokenConsumer out) {
+        int n = text.length();
+        int prev = start;
+        int i = start + Character.charCount(Character.codePointAt(text, start));
+        boolean single = true;
+        while (i < n) {
+            int cp = Character.codePointAt(text, i);
+            if (!isCjk(cp)) {
+                break;
+            }
+            int end = i + Character.charCount(cp);
+            out.accept(text.subSequence(prev, end).toString(), prev, end);
+            single = false;
+            prev = i;
+            i = end;
+        }
+        if (single) {
+            out.accept(text.subSequence(start, i).toString(), start, i);
+        }
+        return i;
+    }
+
+    private static boolean isCjk(int cp) {
+        if (cp < 0x1100) {
+            return false; // ASCII·라틴 빠른 경로
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HANGUL
+                || script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+}
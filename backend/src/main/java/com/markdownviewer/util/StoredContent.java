@@ -0,0 +1,104 @@
+package com.markdownviewer.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 사용자 파일의 디스크 저장 형식
+ * - 평문 마크다운은 그대로(UTF-8) 또는 gzip 스트림 하나로 저장. 파일 앞 gzip 헤더(1F 8B 08)로 구분하며
+ *   0x8B는 UTF-8 연속 바이트라 평문 UTF-8 파일이 이 헤더로 시작할 수 없음 → 기존 파일은 그대로 읽힘
+ * - gzip 파일은 그대로 Content-Encoding: gzip 응답 본문으로 보낼 수 있음
+ * - 암호문은 압축하지 않으며 헤더로 판별하지도 않음 (호출자가 메타데이터로 구분)
+ */
+public final class StoredContent {
+
+    private static final int GZIP_MAGIC_1 = 0x1F;
+    private static final int GZIP_MAGIC_2 = 0x8B;
+    private static final int GZIP_DEFLATE = 0x08;
+    private static final int HEADER_LENGTH = 3;
+    private static final int BUFFER_SIZE = 8192;
+
+    private StoredContent() {
+    }
+
+    /** 바이트 배열이 gzip 저장 형식인지 */
+    public static boolean isCompressed(byte[] stored) {
+        return stored.length >= HEADER_LENGTH
+                && (stored[0] & 0xFF) == GZIP_MAGIC_1
+                && (stored[1] & 0xFF) == GZIP_MAGIC_2
+                && (stored[2] & 0xFF) == GZIP_DEFLATE;
+    }
+
+    /** 파일이 gzip 저장 형식인지 (앞 3바이트만 읽음) */
+    public static boolean isCompressed(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return isCompressed(in.readNBytes(HEADER_LENGTH));
+        }
+    }
+
+    /** gzip 저장 형식으로 압축 */
+    public static byte[] compress(byte[] content) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(content.length / 3 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buf, BUFFER_SIZE)) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new IllegalStateException("in-memory gzip failed", e); // ByteArrayOutputStream은 IOException 없음
+        }
+        return buf.toByteArray();
+    }
+
+    /** 저장된 파일의 원래 내용 (gzip이면 해제) */
+    public static byte[] read(Path file) throws IOException {
+        try (InputStream in = open(file)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** 원래 내용을 읽는 스트림 (gzip이면 읽으면서 해제) */
+    public static InputStream open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        try {
+            in.mark(HEADER_LENGTH);
+            boolean compressed = isCompressed(in.readNBytes(HEADER_LENGTH));
+            in.reset();
+            return compressed ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 원래 내용의 바이트 수. gzip이면 끝 4바이트(ISIZE, 해제 크기 mod 2^32)만 읽음
+     * (단일 gzip 멤버로만 기록하고 파일 크기 상한이 4GB보다 작으므로 정확)
+     */
+    public static long contentLength(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            ByteBuffer head = ByteBuffer.allocate(HEADER_LENGTH);
+            readAt(ch, head, 0);
+            if (size < 18 || !isCompressed(head.array())) { // gzip 최소 크기: 헤더 10 + 빈 블록 + 트레일러 8
+                return size;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            readAt(ch, trailer, size - 4);
+            return Integer.toUnsignedLong(trailer.getInt(0));
+        }
+    }
+
+    private static void readAt(FileChannel ch, ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining() && ch.read(dst, position + dst.position()) > 0) {
+            // 짧은 읽기면 이어서
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.markdownviewer.config;
+
+import com.markdownviewer.repository.FileMetadataSummary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Redis 캐시 값 직렬화 벤치마크 (바이너리 vs 기존 JSON)
+ * 값 크기와 인코딩·디코딩 시간 비교. 일반 test에서는 제외, ./gradlew benchmark로 실행
+ */
+@Tag("benchmark")
+class MetadataRedisSerializerBenchmark {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    private final FileMetadataSummary sample = new FileMetadataSummary(123456L, "projects/2026/notes/회의록-0202.md",
+            "회의록-0202.md", 48_213L, false, LocalDateTime.of(2026, 2, 2, 14, 5, 9));
+
+    @Test
+    @DisplayName("바이너리 형식이 JSON보다 작고 빠름")
+    void compareWithJson() {
+        Result binary = measure(new MetadataRedisSerializer());
+        Result json = measure(new GenericJackson2JsonRedisSerializer());
+
+        System.out.printf("binary: %d bytes, encode %.0f ns/op, decode %.0f ns/op%n",
+                binary.size, binary.encodeNanos, binary.decodeNanos);
+        System.out.printf("json  : %d bytes, encode %.0f ns/op, decode %.0f ns/op%n",
+                json.size, json.encodeNanos, json.decodeNanos);
+        assertThat(binary.size).isLessThan(json.size);
+    }
+
+    private Result measure(RedisSerializer<Object> serializer) {
+        byte[] bytes = serializer.serialize(sample);
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += serializer.serialize(sample).length;
+            sink += serializer.deserialize(bytes) != null ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += serializer.serialize(sample).length;
+        }
+        long encode = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += serializer.deserialize(bytes) != null ? 1 : 0;
+        }
+        long decode = System.nanoTime() - start;
+        assertThat(sink).isPositive();
+        return new Result(bytes.length, (double) encode / ITERATIONS, (double) decode / ITERATIONS);
+    }
+
+    private record Result(int size, double encodeNanos, double decodeNanos) {
+    }
+}
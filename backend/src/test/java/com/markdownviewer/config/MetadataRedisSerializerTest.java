@@ -0,0 +1,53 @@
+package com.markdownviewer.config;
+
+import com.markdownviewer.repository.FileMetadataSummary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MetadataRedisSerializer 단위 테스트
+ * 바이너리 왕복, 널 필드, 모르는 버전(캐시 미스), JSON 대체 형식 검증
+ */
+class MetadataRedisSerializerTest {
+
+    private final MetadataRedisSerializer serializer = new MetadataRedisSerializer();
+
+    @Test
+    @DisplayName("FileMetadataSummary - 바이너리로 왕복")
+    void summary_roundTrip() {
+        FileMetadataSummary f = new FileMetadataSummary(42L, "docs/가이드.md", "가이드.md", 1234L, true,
+                LocalDateTime.of(2026, 2, 2, 12, 30, 15, 123_000_000));
+
+        byte[] bytes = serializer.serialize(f);
+
+        assertThat(bytes[0]).isEqualTo(MetadataRedisSerializer.FORMAT_SUMMARY_V1);
+        assertThat(serializer.deserialize(bytes)).usingRecursiveComparison().isEqualTo(f);
+    }
+
+    @Test
+    @DisplayName("FileMetadataSummary - 널 필드 유지")
+    void summary_nullFields_roundTrip() {
+        FileMetadataSummary f = new FileMetadataSummary(null, "a.md", null, null, null, null);
+
+        assertThat(serializer.deserialize(serializer.serialize(f))).usingRecursiveComparison().isEqualTo(f);
+    }
+
+    @Test
+    @DisplayName("모르는 형식 버전은 null (캐시 미스)")
+    void unknownVersion_returnsNull() {
+        assertThat(serializer.deserialize(new byte[]{99, 0})).isNull();
+    }
+
+    @Test
+    @DisplayName("그 밖의 값은 JSON으로 저장")
+    void otherValue_usesJson() {
+        byte[] bytes = serializer.serialize("value");
+
+        assertThat(bytes[0]).isEqualTo(MetadataRedisSerializer.FORMAT_JSON);
+        assertThat(serializer.deserialize(bytes)).isEqualTo("value");
+    }
+}
@@ -0,0 +1,81 @@
+package com.markdownviewer.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TwoLevelCache 단위 테스트
+ * L1 적중·L2 적중 시 L1 채움, 조회 채움은 통지하지 않음, 덮어쓰기/제거 통지, 원격 통지 수신 시 L1만 제거 검증
+ */
+class TwoLevelCacheTest {
+
+    private ConcurrentMapCache remote;
+    private List<String> published;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCache("fileMetadata");
+        published = new ArrayList<>();
+        cache = new TwoLevelCache("fileMetadata", Caffeine.newBuilder().build(), remote,
+                (name, key) -> published.add(name + ":" + key));
+    }
+
+    @Test
+    @DisplayName("get - L2 적중 시 L1에 채워 다음 조회는 L2를 거치지 않음")
+    void get_remoteHit_populatesLocal() {
+        remote.put("1:a.md", "meta");
+
+        assertThat(cache.get("1:a.md").get()).isEqualTo("meta");
+        remote.evict("1:a.md");
+
+        assertThat(cache.get("1:a.md").get()).isEqualTo("meta");
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    @DisplayName("evict - L1·L2 모두 제거하고 다른 노드에 통지")
+    void evict_removesBothAndPublishes() {
+        cache.put("1:a.md", "meta");
+
+        cache.evict("1:a.md");
+
+        assertThat(cache.get("1:a.md")).isNull();
+        assertThat(remote.get("1:a.md")).isNull();
+        assertThat(published).containsExactly("fileMetadata:1:a.md");
+    }
+
+    @Test
+    @DisplayName("put - 조회 실패 후 채움은 다른 노드에 통지하지 않고, 기존 값 덮어쓰기만 통지")
+    void put_fillStaysLocal_overwritePublishes() {
+        cache.put("1:a.md", "meta");
+        assertThat(cache.get("1:b.md", () -> "loaded")).isEqualTo("loaded");
+        assertThat(published).isEmpty();
+        assertThat(remote.get("1:b.md").get()).isEqualTo("loaded");
+
+        cache.put("1:a.md", "changed");
+
+        assertThat(remote.get("1:a.md").get()).isEqualTo("changed");
+        assertThat(cache.get("1:a.md").get()).isEqualTo("changed");
+        assertThat(published).containsExactly("fileMetadata:1:a.md");
+    }
+
+    @Test
+    @DisplayName("evictLocal - 다른 노드 통지 수신 시 L1만 제거 → 다음 조회는 L2 값")
+    void evictLocal_dropsOnlyLocal() {
+        cache.put("1:a.md", "old");
+        remote.put("1:a.md", "new");
+
+        cache.evictLocal("1:a.md");
+
+        assertThat(cache.get("1:a.md").get()).isEqualTo("new");
+    }
+}
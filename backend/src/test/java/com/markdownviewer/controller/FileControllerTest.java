@@ -2,8 +2,12 @@ package com.markdownviewer.controller;
 
 import com.markdownviewer.config.JwtAuthenticationFilter;
 import com.markdownviewer.entity.FileMetadata;
+import com.markdownviewer.entity.FileVersion;
 import com.markdownviewer.entity.User;
+import com.markdownviewer.repository.FileMetadataSummary;
 import com.markdownviewer.service.AuthService;
+import com.markdownviewer.service.CompressedContentCache;
+import com.markdownviewer.service.FileSearchIndex;
 import com.markdownviewer.service.FileService;
 import com.markdownviewer.service.JwtBlacklistService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,20 +18,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -38,6 +51,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * 파일 목록/읽기/저장/삭제 API 검증 (인증 컨텍스트 모킹)
  */
 @WebMvcTest(controllers = FileController.class)
+@Import(CompressedContentCache.class)
 @AutoConfigureMockMvc(addFilters = false)
 @ActiveProfiles("test")
 @TestPropertySource(properties = {"app.frontend-url=http://localhost:5173", "app.file-storage-base-path=./data/test"})
@@ -75,20 +89,15 @@ class FileControllerTest {
                 .storageUsed(0L)
                 .createdAt(LocalDateTime.now())
                 .build();
-        when(authService.findById(1L)).thenReturn(user);
+        when(authService.getReference(1L)).thenReturn(user);
     }
 
     @Test
     @DisplayName("GET /files - 200 및 files 배열 반환")
     void listFiles_returns200WithFiles() throws Exception {
-        FileMetadata meta = FileMetadata.builder()
-                .user(user)
-                .filePath("doc.md")
-                .fileName("doc.md")
-                .fileSize(100L)
-                .lastModified(LocalDateTime.now())
-                .build();
-        when(fileService.listFiles(eq(user), eq(null))).thenReturn(List.of(meta));
+        FileMetadataSummary meta = new FileMetadataSummary(1L, "doc.md", "doc.md", 100L, false, LocalDateTime.now());
+        when(fileService.listFiles(eq(user), eq(null), eq(null), eq(null)))
+                .thenReturn(new FileService.FilePage(List.of(meta), null));
 
         mockMvc.perform(get("/files")
                         .header("Authorization", "Bearer dummy-token"))
@@ -96,20 +105,16 @@ class FileControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.files").isArray())
-                .andExpect(jsonPath("$.data.files[0].path").value("doc.md"));
+                .andExpect(jsonPath("$.data.files[0].path").value("doc.md"))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
     }
 
     @Test
     @DisplayName("GET /files?path=dir - path 파라미터로 필터 조회")
     void listFiles_withPath_returnsFiltered() throws Exception {
-        FileMetadata meta = FileMetadata.builder()
-                .user(user)
-                .filePath("dir/sub.md")
-                .fileName("sub.md")
-                .fileSize(50L)
-                .lastModified(LocalDateTime.now())
-                .build();
-        when(fileService.listFiles(eq(user), eq("dir"))).thenReturn(List.of(meta));
+        FileMetadataSummary meta = new FileMetadataSummary(1L, "dir/sub.md", "sub.md", 50L, false, LocalDateTime.now());
+        when(fileService.listFiles(eq(user), eq("dir"), eq(null), eq(null)))
+                .thenReturn(new FileService.FilePage(List.of(meta), null));
 
         mockMvc.perform(get("/files").param("path", "dir")
                         .header("Authorization", "Bearer dummy-token"))
@@ -117,15 +122,25 @@ class FileControllerTest {
                 .andExpect(jsonPath("$.data.files[0].path").value("dir/sub.md"));
     }
 
+    @Test
+    @DisplayName("GET /files?limit=1 - 다음 페이지가 있으면 nextCursor 반환")
+    void listFiles_withLimit_returnsNextCursor() throws Exception {
+        FileMetadataSummary meta = new FileMetadataSummary(1L, "a.md", "a.md", 10L, false, LocalDateTime.now());
+        when(fileService.listFiles(eq(user), eq(null), eq(null), eq(1)))
+                .thenReturn(new FileService.FilePage(List.of(meta), "YS5tZA"));
+
+        mockMvc.perform(get("/files").param("limit", "1")
+                        .header("Authorization", "Bearer dummy-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.files[0].path").value("a.md"))
+                .andExpect(jsonPath("$.data.nextCursor").value("YS5tZA"));
+    }
+
     @Test
     @DisplayName("GET /files/{path}/check - 304 Not Modified (동일 lastModified)")
     void checkFileModified_sameModified_returns304() throws Exception {
-        FileMetadata meta = FileMetadata.builder()
-                .user(user)
-                .filePath("a.md")
-                .fileName("a.md")
-                .lastModified(LocalDateTime.of(2026, 2, 2, 12, 0, 0))
-                .build();
+        FileMetadataSummary meta = new FileMetadataSummary(1L, "a.md", "a.md", 0L, false,
+                LocalDateTime.of(2026, 2, 2, 12, 0, 0));
         when(fileService.getMetadata(eq(user), eq("a.md"))).thenReturn(Optional.of(meta));
 
         mockMvc.perform(get("/files/a.md/check")
@@ -137,12 +152,8 @@ class FileControllerTest {
     @Test
     @DisplayName("GET /files/{path}/check - 200 (변경됨)")
     void checkFileModified_changed_returns200() throws Exception {
-        FileMetadata meta = FileMetadata.builder()
-                .user(user)
-                .filePath("b.md")
-                .fileName("b.md")
-                .lastModified(LocalDateTime.of(2026, 2, 2, 14, 0, 0))
-                .build();
+        FileMetadataSummary meta = new FileMetadataSummary(1L, "b.md", "b.md", 0L, false,
+                LocalDateTime.of(2026, 2, 2, 14, 0, 0));
         when(fileService.getMetadata(eq(user), eq("b.md"))).thenReturn(Optional.of(meta));
 
         mockMvc.perform(get("/files/b.md/check")
@@ -152,6 +163,168 @@ class FileControllerTest {
                 .andExpect(jsonPath("$.data.lastModified").exists());
     }
 
+    @Test
+    @DisplayName("GET /files/{path} - gzip을 받으면 미리 압축한 JSON 본문을 Content-Encoding: gzip으로 반환")
+    void getFile_acceptsGzip_returnsCompressedEnvelope() throws Exception {
+        String content = "# 문서\n" + "본문 줄 lorem ipsum\n".repeat(200);
+        FileMetadata meta = FileMetadata.builder().user(user).filePath("doc.md").fileName("doc.md")
+                .fileSize((long) content.length()).lastModified(LocalDateTime.now()).build();
+        when(fileService.readFile(eq(user), eq("doc.md"))).thenReturn(Optional.of(FileService.FileContentResult.builder()
+                .metadata(meta).contentHash("abc").content(content).html("<h1>문서</h1>").build()));
+
+        for (int i = 0; i < 2; i++) {
+            byte[] body = mockMvc.perform(get("/files/doc.md")
+                            .header("Authorization", "Bearer dummy-token")
+                            .header("Accept-Encoding", "gzip, deflate, br"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Encoding", "gzip"))
+                    .andExpect(header().string("Vary", "Accept-Encoding"))
+                    .andExpect(header().string("ETag", "\"abc-gzip\""))
+                    .andReturn().getResponse().getContentAsByteArray();
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                String json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertThat(objectMapper.readTree(json).at("/data/content").asText()).isEqualTo(content);
+            }
+        }
+
+        mockMvc.perform(get("/files/doc.md")
+                        .header("Authorization", "Bearer dummy-token"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(jsonPath("$.data.content").value(content));
+    }
+
+    @Test
+    @DisplayName("GET /files/{path}/raw - Range 요청이면 206 및 Content-Range")
+    void getRawFile_range_returns206() throws Exception {
+        FileService.RawFileResult raw = FileService.RawFileResult.builder()
+                .path(Path.of("raw.md"))
+                .size(100L)
+                .build();
+        when(fileService.openRaw(eq(user), eq("raw.md"))).thenReturn(Optional.of(raw));
+        doAnswer(inv -> {
+            inv.getArgument(3, OutputStream.class).write("0123456789".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(fileService).transferTo(eq(Path.of("raw.md")), eq(10L), eq(10L), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/files/raw.md/raw")
+                        .header("Authorization", "Bearer dummy-token")
+                        .header("Range", "bytes=10-19"))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 10-19/100"))
+                .andExpect(header().string("Content-Length", "10"))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    @DisplayName("GET /files/{path}/raw - 암호화 파일은 암호문 바이트를 octet-stream으로, IV·인증 태그는 헤더로 전송")
+    void getRawFile_encrypted_streamsCiphertextWithHeaders() throws Exception {
+        byte[] ciphertext = {(byte) 0x8f, 0x00, (byte) 0xff, 0x12, 0x7e, (byte) 0xc3, 0x01, 0x40};
+        FileMetadata meta = FileMetadata.builder().user(user).filePath("secret.md").fileName("secret.md")
+                .fileSize((long) ciphertext.length).encrypted(true).iv("aXYtYmFzZTY0").authTag("dGFnLWJhc2U2NA==").build();
+        FileService.RawFileResult raw = FileService.RawFileResult.builder()
+                .path(Path.of("secret.md"))
+                .size(ciphertext.length)
+                .metadata(meta)
+                .build();
+        when(fileService.openRaw(eq(user), eq("secret.md"))).thenReturn(Optional.of(raw));
+        doAnswer(inv -> {
+            inv.getArgument(3, OutputStream.class).write(ciphertext);
+            return null;
+        }).when(fileService).transferTo(eq(Path.of("secret.md")), eq(0L), eq((long) ciphertext.length), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/files/secret.md/raw")
+                        .header("Authorization", "Bearer dummy-token"))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_OCTET_STREAM_VALUE))
+                .andExpect(header().string("Content-Length", String.valueOf(ciphertext.length)))
+                .andExpect(header().string("X-Encrypted", "true"))
+                .andExpect(header().string("X-Encryption-IV", "aXYtYmFzZTY0"))
+                .andExpect(header().string("X-Encryption-Tag", "dGFnLWJhc2U2NA=="))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(content().bytes(ciphertext));
+    }
+
+    @Test
+    @DisplayName("GET /files/{path}/raw - gzip 저장 파일은 gzip을 받는 클라이언트에 Content-Encoding: gzip으로 그대로 전송")
+    void getRawFile_compressed_passesThroughGzip() throws Exception {
+        FileService.RawFileResult raw = FileService.RawFileResult.builder()
+                .path(Path.of("raw.md"))
+                .size(1000L)
+                .compressed(true)
+                .storedSize(120L)
+                .build();
+        when(fileService.openRaw(eq(user), eq("raw.md"))).thenReturn(Optional.of(raw));
+        byte[] stored = new byte[120];
+        stored[0] = 0x1f;
+        stored[1] = (byte) 0x8b;
+        doAnswer(inv -> {
+            inv.getArgument(3, OutputStream.class).write(stored);
+            return null;
+        }).when(fileService).transferTo(eq(Path.of("raw.md")), eq(0L), eq(120L), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/files/raw.md/raw")
+                        .header("Authorization", "Bearer dummy-token")
+                        .header("Accept-Encoding", "br;q=1.0, gzip;q=0.8"))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Content-Length", "120"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(content().bytes(stored)); // 디스크의 gzip 바이트 그대로
+
+        mockMvc.perform(get("/files/raw.md/raw")
+                        .header("Authorization", "Bearer dummy-token")
+                        .header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("Content-Length", "1000"));
+    }
+
+    @Test
+    @DisplayName("GET /files/{path}/raw - 범위가 파일 크기를 벗어나면 416")
+    void getRawFile_unsatisfiableRange_returns416() throws Exception {
+        FileService.RawFileResult raw = FileService.RawFileResult.builder()
+                .path(Path.of("raw.md"))
+                .size(100L)
+                .build();
+        when(fileService.openRaw(eq(user), eq("raw.md"))).thenReturn(Optional.of(raw));
+
+        mockMvc.perform(get("/files/raw.md/raw")
+                        .header("Authorization", "Bearer dummy-token")
+                        .header("Range", "bytes=200-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */100"));
+
+        mockMvc.perform(get("/files/raw.md/raw")
+                        .header("Authorization", "Bearer dummy-token")
+                        .header("Range", "bytes=100-150"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */100"));
+    }
+
+    @Test
+    @DisplayName("GET /files/{path}/raw - 파일이 없으면 404 (ApiResponse JSON)")
+    void getRawFile_notFound_returns404() throws Exception {
+        when(fileService.openRaw(eq(user), eq("missing.md"))).thenReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(get("/files/missing.md/raw")
+                        .header("Authorization", "Bearer dummy-token"))
+                .andExpect(status().isNotFound())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.error.code").value("FILE_NOT_FOUND"));
+    }
+
     @Test
     @DisplayName("DELETE /files/{path} - 200 및 성공 메시지")
     void deleteFile_returns200() throws Exception {
@@ -185,4 +358,110 @@ class FileControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.success").value(false));
     }
+
+    @Test
+    @DisplayName("PATCH /files/{path} - 편집 적용 후 200, 새 해시를 ETag로 반환")
+    void patchFile_returns200WithETag() throws Exception {
+        FileMetadata meta = FileMetadata.builder()
+                .user(user)
+                .filePath("doc.md")
+                .fileName("doc.md")
+                .fileSize(9L)
+                .contentHash("newhash")
+                .build();
+        when(fileService.patchFile(eq(user), eq("doc.md"), eq("basehash"), any()))
+                .thenReturn(Optional.of(FileService.PatchResult.builder().metadata(meta).content("Hi World!").build()));
+
+        mockMvc.perform(patch("/files/doc.md").with(csrf())
+                        .header("Authorization", "Bearer dummy-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseHash\":\"basehash\",\"edits\":[{\"start\":0,\"end\":5,\"text\":\"Hi\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"newhash\""))
+                .andExpect(jsonPath("$.data.contentHash").value("newhash"));
+    }
+
+    @Test
+    @DisplayName("PATCH /files/{path} - If-Match 기준 버전이 오래되면 409 FILE_CONFLICT")
+    void patchFile_staleBase_returns409() throws Exception {
+        when(fileService.patchFile(eq(user), eq("doc.md"), eq("stale"), any()))
+                .thenThrow(new IllegalArgumentException("FILE_CONFLICT"));
+
+        mockMvc.perform(patch("/files/doc.md").with(csrf())
+                        .header("Authorization", "Bearer dummy-token")
+                        .header("If-Match", "\"stale\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"edits\":[]}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error.code").value("FILE_CONFLICT"));
+    }
+
+    @Test
+    @DisplayName("POST /files/{path} - 저장 공간 할당량 초과면 413 STORAGE_QUOTA_EXCEEDED")
+    void saveFile_quotaExceeded_returns413() throws Exception {
+        when(fileService.saveFile(eq(user), eq("big.md"), eq("# big"), eq(false), any(), any(), any()))
+                .thenThrow(new IllegalArgumentException("STORAGE_QUOTA_EXCEEDED"));
+
+        mockMvc.perform(post("/files/big.md").with(csrf())
+                        .header("Authorization", "Bearer dummy-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"# big\",\"encrypted\":false}"))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error.code").value("STORAGE_QUOTA_EXCEEDED"));
+    }
+
+    @Test
+    @DisplayName("GET /files/search - 관련도 순 결과와 스니펫 반환")
+    void search_returnsRankedHits() throws Exception {
+        FileSearchIndex.SearchHit hit = FileSearchIndex.SearchHit.builder()
+                .path("docs/a.md").name("a.md").score(1.5).snippet("apple pie").highlights(List.of(new int[]{0, 5}))
+                .build();
+        when(fileService.search(eq(user), eq("apple"), eq(null))).thenReturn(List.of(hit));
+
+        mockMvc.perform(get("/files/search").param("q", "apple")
+                        .header("Authorization", "Bearer dummy-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.results[0].path").value("docs/a.md"))
+                .andExpect(jsonPath("$.data.results[0].snippet").value("apple pie"))
+                .andExpect(jsonPath("$.data.results[0].highlights[0][1]").value(5));
+    }
+
+    @Test
+    @DisplayName("GET /files/search - 검색할 단어가 없으면 400 INVALID_QUERY")
+    void search_blankQuery_returns400() throws Exception {
+        when(fileService.search(eq(user), eq(" "), eq(null)))
+                .thenThrow(new IllegalArgumentException("INVALID_QUERY"));
+
+        mockMvc.perform(get("/files/search").param("q", " ")
+                        .header("Authorization", "Bearer dummy-token"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error.code").value("INVALID_QUERY"));
+    }
+
+    @Test
+    @DisplayName("GET /files/find - 경로 퍼지 찾기 결과를 files 배열로 반환")
+    void findFiles_returnsMatches() throws Exception {
+        FileMetadataSummary meta = new FileMetadataSummary(1L, "docs/readme.md", "readme.md", 100L, false, LocalDateTime.now());
+        when(fileService.findFiles(eq(user), eq("readme"), eq(5))).thenReturn(List.of(meta));
+
+        mockMvc.perform(get("/files/find").param("q", "readme").param("limit", "5")
+                        .header("Authorization", "Bearer dummy-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.files[0].path").value("docs/readme.md"))
+                .andExpect(jsonPath("$.data.files[0].name").value("readme.md"));
+    }
+
+    @Test
+    @DisplayName("GET /files/{path}/versions - 버전 목록을 versions 배열로 반환")
+    void listVersions_returnsVersions() throws Exception {
+        FileVersion version = FileVersion.builder().id(7L).user(user).filePath("doc.md").contentHash("h")
+                .fileSize(5L).createdAt(LocalDateTime.now()).build();
+        when(fileService.listVersions(eq(user), eq("doc.md"), eq(null))).thenReturn(List.of(version));
+
+        mockMvc.perform(get("/files/doc.md/versions")
+                        .header("Authorization", "Bearer dummy-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.versions[0].versionId").value(7))
+                .andExpect(jsonPath("$.data.versions[0].name").value("doc.md"));
+    }
 }
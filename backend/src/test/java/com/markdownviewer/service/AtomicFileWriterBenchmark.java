@@ -0,0 +1,66 @@
+package com.markdownviewer.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * fsync 정책별 저장 처리량 벤치마크 (saves/sec)
+ * 동시 저장 스레드 수를 바꿔가며 always / batched / none 비교. ./gradlew benchmark로 실행
+ */
+@Tag("benchmark")
+class AtomicFileWriterBenchmark {
+
+    private static final int SAVES_PER_THREAD = 200;
+    private static final byte[] DOCUMENT = "# 제목\n\n본문 문단입니다.\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("fsync 정책별 saves/sec")
+    void savesPerSecond() throws Exception {
+        for (int threads : new int[]{1, 8, 32}) {
+            for (String policy : new String[]{"always", "batched", "none"}) {
+                double rate = measure(policy, threads);
+                System.out.printf("policy=%-7s threads=%2d  %,10.0f saves/sec%n", policy, threads, rate);
+            }
+        }
+    }
+
+    private double measure(String policy, int threads) throws Exception {
+        AtomicFileWriter writer = new AtomicFileWriter(policy, 2);
+        Path dir = tempDir.resolve(policy + "-" + threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                Path target = dir.resolve("doc-" + t + ".md");
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < SAVES_PER_THREAD; i++) {
+                        writer.write(target, DOCUMENT);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return threads * SAVES_PER_THREAD / seconds;
+        } finally {
+            pool.shutdown();
+            writer.shutdown();
+        }
+    }
+}
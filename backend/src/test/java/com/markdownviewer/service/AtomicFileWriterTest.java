@@ -0,0 +1,96 @@
+package com.markdownviewer.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AtomicFileWriter 단위 테스트
+ * 정책별 기록·덮어쓰기, 임시 파일 정리, 남은 임시 파일 정리, 그룹 커밋 동시 쓰기 검증
+ */
+class AtomicFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"always", "batched", "none"})
+    @DisplayName("write - 새 파일 생성·덮어쓰기 후 임시 파일이 남지 않음")
+    void write_createsAndReplaces(String policy) throws Exception {
+        AtomicFileWriter writer = new AtomicFileWriter(policy, 2);
+        Path target = tempDir.resolve("docs").resolve("a.md");
+        try {
+            writer.write(target, "first".getBytes(StandardCharsets.UTF_8));
+            writer.write(target, "second".getBytes(StandardCharsets.UTF_8));
+        } finally {
+            writer.shutdown();
+        }
+
+        assertThat(Files.readString(target)).isEqualTo("second");
+        try (Stream<Path> files = Files.list(target.getParent())) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    @DisplayName("write - 디렉토리에 처음 쓸 때 이전 프로세스가 남긴 오래된 임시 파일만 삭제 (사용자 파일은 유지)")
+    void write_sweepsStaleTempFiles() throws Exception {
+        Path stale = Files.writeString(tempDir.resolve(AtomicFileWriter.TEMP_PREFIX + "123.tmp"), "partial");
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        Path recent = Files.writeString(tempDir.resolve(AtomicFileWriter.TEMP_PREFIX + "456.tmp"), "in flight");
+        Path userFile = Files.writeString(tempDir.resolve(".notes.tmp"), "user file");
+        Files.setLastModifiedTime(userFile, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        AtomicFileWriter writer = new AtomicFileWriter("none", 0);
+
+        writer.write(tempDir.resolve("a.md"), "doc".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(stale).doesNotExist();
+        assertThat(recent).exists();
+        assertThat(userFile).exists();
+        assertThat(Files.readString(tempDir.resolve("a.md"))).isEqualTo("doc");
+    }
+
+    @Test
+    @DisplayName("그룹 커밋 - 동시 쓰기가 모두 반영")
+    void groupCommit_concurrentWrites() throws Exception {
+        AtomicFileWriter writer = new AtomicFileWriter("batched", 5);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                int n = i;
+                futures.add(pool.submit(() -> {
+                    writer.write(tempDir.resolve("f" + n + ".md"), ("doc " + n).getBytes(StandardCharsets.UTF_8));
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+            writer.shutdown();
+        }
+
+        for (int i = 0; i < 32; i++) {
+            assertThat(Files.readString(tempDir.resolve("f" + i + ".md"))).isEqualTo("doc " + i);
+        }
+    }
+}
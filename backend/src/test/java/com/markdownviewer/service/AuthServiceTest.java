@@ -49,6 +49,7 @@ class AuthServiceTest {
     void setUp() {
         when(jwtProperties.getSecret()).thenReturn(JWT_SECRET);
         when(jwtProperties.getExpiration()).thenReturn(JWT_EXPIRATION);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
     }
 
     @Test
@@ -62,6 +63,33 @@ class AuthServiceTest {
         assertThat(decoded).isEqualTo(userId);
     }
 
+    @Test
+    @DisplayName("서명 키는 한 번만 생성하고 같은 토큰 재검증은 캐시 사용")
+    void signingKeyBuiltOnce_andVerifiedTokenCached() {
+        String token = authService.generateToken(7L);
+
+        assertThat(authService.getUserIdFromToken(token)).isEqualTo(7L);
+        assertThat(authService.getUserIdFromToken(token)).isEqualTo(7L);
+        assertThat(authService.getTtlMsFromToken(token)).isPositive().isLessThanOrEqualTo(JWT_EXPIRATION);
+
+        verify(jwtProperties, times(1)).getSecret();
+        verify(userRepository, times(1)).existsById(7L);
+    }
+
+    @Test
+    @DisplayName("getUserIdFromToken - 발급 후 삭제된 사용자의 토큰이면 USER_NOT_FOUND, 캐시하지 않음")
+    void getUserIdFromToken_deletedUser_throws() {
+        String token = authService.generateToken(9L);
+        when(userRepository.existsById(9L)).thenReturn(false);
+
+        assertThatThrownBy(() -> authService.getUserIdFromToken(token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("USER_NOT_FOUND");
+        assertThatThrownBy(() -> authService.getUserIdFromToken(token))
+                .hasMessage("USER_NOT_FOUND");
+        verify(userRepository, times(2)).existsById(9L);
+    }
+
     @Test
     @DisplayName("getUserIdFromToken - 잘못된 토큰이면 예외")
     void getUserIdFromToken_invalidToken_throws() {
@@ -0,0 +1,66 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.util.StoredContent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CompressedContentCache 단위 테스트
+ * 같은 키는 한 번만 압축, 작은 본문은 압축 생략, 압축 바이트 합계 기준 제거 검증
+ */
+class CompressedContentCacheTest {
+
+    private static final byte[] BODY = "{\"data\":\"lorem ipsum dolor sit amet\"}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("gzip - 같은 키는 본문을 한 번만 만들고 압축 결과 재사용")
+    void gzip_sameKey_compressesOnce() throws Exception {
+        CompressedContentCache cache = new CompressedContentCache(1024 * 1024, 1024);
+        AtomicInteger writes = new AtomicInteger();
+
+        byte[] first = cache.gzip("hash:1", () -> {
+            writes.incrementAndGet();
+            return BODY;
+        });
+        byte[] second = cache.gzip("hash:1", () -> {
+            writes.incrementAndGet();
+            return BODY;
+        });
+
+        assertThat(writes).hasValue(1);
+        assertThat(second).isSameAs(first);
+        assertThat(first.length).isLessThan(BODY.length / 10);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first))) {
+            assertThat(in.readAllBytes()).isEqualTo(BODY);
+        }
+    }
+
+    @Test
+    @DisplayName("gzip - min-size 미만 본문은 null(그대로 전송), 압축 바이트 합계가 한도를 넘으면 제거")
+    void gzip_smallBodyAndEviction() throws Exception {
+        long one = StoredContent.compress(BODY).length;
+        CompressedContentCache cache = new CompressedContentCache(one + one / 2, 1024);
+        assertThat(cache.gzip("small", () -> "{}".getBytes(StandardCharsets.UTF_8))).isNull();
+
+        cache.gzip("a", () -> BODY);
+        cache.gzip("b", () -> BODY);
+        assertThat(cache.cachedBytes()).isEqualTo(one);
+
+        AtomicInteger writes = new AtomicInteger();
+        for (String key : new String[]{"a", "b"}) {
+            cache.gzip(key, () -> {
+                writes.incrementAndGet();
+                return BODY;
+            });
+        }
+        assertThat(writes.get()).isGreaterThanOrEqualTo(1); // 둘 중 제거된 표현은 다시 압축
+        assertThat(cache.cachedBytes()).isLessThanOrEqualTo(one + one / 2);
+    }
+}
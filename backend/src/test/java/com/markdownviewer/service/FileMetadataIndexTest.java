@@ -0,0 +1,247 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.dto.response.FileResponse;
+import com.markdownviewer.entity.User;
+import com.markdownviewer.repository.FileMetadataRepository;
+import com.markdownviewer.repository.FileMetadataSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * FileMetadataIndex 단위 테스트
+ * 지연 로드, 목록·마지막 문서·디렉토리 집계, 경로 퍼지 찾기, 저장/삭제 이벤트 반영, max-age 재적재,
+ * 사용자 수 상한 제거, 파일 수 상한 검증
+ */
+@ExtendWith(MockitoExtension.class)
+class FileMetadataIndexTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2026, 1, 1, 10, 0);
+    private static final LocalDateTime T2 = LocalDateTime.of(2026, 1, 2, 10, 0);
+    private static final LocalDateTime T3 = LocalDateTime.of(2026, 1, 3, 10, 0);
+
+    @Mock
+    private FileMetadataRepository fileMetadataRepository;
+
+    private FileMetadataIndex fileMetadataIndex;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        fileMetadataIndex = new FileMetadataIndex(fileMetadataRepository, 2, 100, 60_000);
+        user = User.builder().id(1L).googleSub("sub-1").email("test@example.com").build();
+    }
+
+    private void givenFiles(User u) {
+        when(fileMetadataRepository.findSummaries(eq(u), eq("%"), eq(""), any(Pageable.class))).thenReturn(List.of(
+                new FileMetadataSummary(1L, "root.md", "root.md", 10L, false, T1),
+                new FileMetadataSummary(2L, "docs/a.md", "a.md", 100L, false, T1),
+                new FileMetadataSummary(3L, "docs/guide/b.md", "b.md", 200L, false, T2)));
+    }
+
+    @Test
+    @DisplayName("tree - 루트의 자식 디렉토리에 하위 전체 집계 포함")
+    void tree_root_aggregatesPerDirectory() {
+        givenFiles(user);
+
+        FileResponse root = fileMetadataIndex.get(user).tree("", 1).orElseThrow();
+
+        assertThat(root.getFileCount()).isEqualTo(3L);
+        assertThat(root.getSize()).isEqualTo(310L);
+        assertThat(root.getChildren()).extracting(FileResponse::getName).containsExactly("docs", "root.md");
+        FileResponse docs = root.getChildren().get(0);
+        assertThat(docs.getType()).isEqualTo("directory");
+        assertThat(docs.getFileCount()).isEqualTo(2L);
+        assertThat(docs.getSize()).isEqualTo(300L);
+        assertThat(docs.getLastModified()).isEqualTo(T2);
+        assertThat(docs.getChildren()).isNull();
+    }
+
+    @Test
+    @DisplayName("list/get/latest - 접두사·커서 목록, 경로 조회, 마지막 수정 파일")
+    void list_prefixAndCursor() {
+        givenFiles(user);
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+
+        assertThat(index.list("docs/", "", -1)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("docs/a.md", "docs/guide/b.md");
+        assertThat(index.list("", "docs/a.md", 1)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("docs/guide/b.md");
+        assertThat(index.get("root.md")).isPresent();
+        assertThat(index.get("missing.md")).isEmpty();
+        assertThat(index.latest().orElseThrow().getFilePath()).isEqualTo("docs/guide/b.md");
+        assertThat(index.tree("nope", 1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("list - 경로는 코드 포인트 순 (대문자 먼저, 보조 평면 문자는 U+FFFF 뒤), 디렉토리 접두사 범위 유지")
+    void list_codePointOrder() {
+        String emoji = "docs/\uD83D\uDCDD.md"; // U+1F4DD
+        String privateUse = "docs/\uE000.md";
+        LocalDateTime t = LocalDateTime.now();
+        FileMetadataIndex.UserFileIndex index = FileMetadataIndex.UserFileIndex.of(List.of(
+                new FileMetadataSummary(1L, "docs/b.md", "b.md", 1L, false, t),
+                new FileMetadataSummary(2L, emoji, "e.md", 1L, false, t),
+                new FileMetadataSummary(3L, privateUse, "p.md", 1L, false, t),
+                new FileMetadataSummary(4L, "docs/B.md", "B.md", 1L, false, t),
+                new FileMetadataSummary(5L, "docs0.md", "docs0.md", 1L, false, t)));
+
+        assertThat(index.list("docs/", "", -1)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("docs/B.md", "docs/b.md", privateUse, emoji);
+        assertThat(index.list("docs/", privateUse, -1)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly(emoji);
+    }
+
+    @Test
+    @DisplayName("onFileChanged - 저장/삭제가 적재된 인덱스에 반영되고 DB는 한 번만 조회")
+    void onFileChanged_updatesLoadedIndex() {
+        givenFiles(user);
+        fileMetadataIndex.get(user);
+
+        fileMetadataIndex.onFileChanged(FileChangedEvent.saved(1L,
+                new FileMetadataSummary(4L, "docs/c.md", "c.md", 5L, false, T3)));
+        fileMetadataIndex.onFileChanged(FileChangedEvent.deleted(1L, "docs/guide/b.md"));
+
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+        FileResponse docs = index.tree("docs", 1).orElseThrow();
+        assertThat(docs.getFileCount()).isEqualTo(2L);
+        assertThat(docs.getSize()).isEqualTo(105L);
+        assertThat(docs.getLastModified()).isEqualTo(T3);
+        assertThat(docs.getChildren()).extracting(FileResponse::getPath).containsExactly("docs/a.md", "docs/c.md");
+        assertThat(index.latest().orElseThrow().getFilePath()).isEqualTo("docs/c.md");
+        verify(fileMetadataRepository, times(1)).findSummaries(eq(user), eq("%"), eq(""), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("tree - 덮어쓰기·삭제 후 디렉토리 최신 수정 시각 (최신 파일이 빠지거나 이전 시각으로 바뀐 경우만 재계산)")
+    void tree_lastModifiedAfterOverwriteAndRemove() {
+        givenFiles(user);
+        fileMetadataIndex.get(user);
+
+        fileMetadataIndex.onFileChanged(FileChangedEvent.saved(1L,
+                new FileMetadataSummary(2L, "docs/a.md", "a.md", 100L, false, T3)));
+        assertThat(fileMetadataIndex.get(user).tree("", 0).orElseThrow().getLastModified()).isEqualTo(T3);
+
+        fileMetadataIndex.onFileChanged(FileChangedEvent.saved(1L,
+                new FileMetadataSummary(2L, "docs/a.md", "a.md", 100L, false, T1)));
+        FileResponse docs = fileMetadataIndex.get(user).tree("docs", 0).orElseThrow();
+        assertThat(docs.getLastModified()).isEqualTo(T2);
+
+        fileMetadataIndex.onFileChanged(FileChangedEvent.deleted(1L, "docs/guide/b.md"));
+        assertThat(fileMetadataIndex.get(user).tree("docs", 0).orElseThrow().getLastModified()).isEqualTo(T1);
+        assertThat(fileMetadataIndex.get(user).tree("", 0).orElseThrow().getLastModified()).isEqualTo(T1);
+    }
+
+    @Test
+    @DisplayName("find - 경로 trigram 일치(오타 허용), 1글자는 구간 시작, 파일명 일치·짧은 경로 우선")
+    void find_fuzzyPathMatches() {
+        givenFiles(user);
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+
+        assertThat(index.find("guide", 10)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("docs/guide/b.md");
+        assertThat(index.find("GUIDR", 10)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("docs/guide/b.md");
+        assertThat(index.find("d", 10)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("docs/a.md", "docs/guide/b.md");
+        assertThat(index.find("root", 10)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("root.md");
+        assertThat(index.find("zzz", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("find - 일치 수 배열을 재사용해도 이전 질의의 일치 수가 남지 않음")
+    void find_repeatedQueries_doNotCarryCounts() {
+        givenFiles(user);
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+
+        assertThat(index.find("guide", 10)).hasSize(1);
+        assertThat(index.find("guixx", 10)).isEmpty(); // gui 하나만 일치 → 기준(2개) 미달
+        assertThat(index.find("guide", 10)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("docs/guide/b.md");
+    }
+
+    @Test
+    @DisplayName("find - 첫 찾기 이후 저장/삭제 이벤트가 경로 색인에 반영")
+    void find_reflectsEvents() {
+        givenFiles(user);
+        FileMetadataIndex.UserFileIndex index = fileMetadataIndex.get(user);
+        assertThat(index.find("root", 10)).hasSize(1);
+
+        fileMetadataIndex.onFileChanged(FileChangedEvent.saved(1L,
+                new FileMetadataSummary(4L, "notes/roadmap.md", "roadmap.md", 5L, false, T3)));
+        fileMetadataIndex.onFileChanged(FileChangedEvent.deleted(1L, "root.md"));
+
+        assertThat(index.find("root", 10)).isEmpty();
+        assertThat(index.find("roadmap", 10)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("notes/roadmap.md");
+    }
+
+    @Test
+    @DisplayName("onFileChanged - 적재되지 않은 사용자는 무시")
+    void onFileChanged_notLoaded_ignored() {
+        fileMetadataIndex.onFileChanged(FileChangedEvent.deleted(1L, "a.md"));
+
+        assertThat(fileMetadataIndex.size()).isZero();
+        verifyNoInteractions(fileMetadataRepository);
+    }
+
+    @Test
+    @DisplayName("get - max-age가 지나면 DB에서 다시 적재해 다른 인스턴스의 변경 반영")
+    void get_afterMaxAge_reloads() throws Exception {
+        FileMetadataIndex expiring = new FileMetadataIndex(fileMetadataRepository, 2, 100, 1);
+        when(fileMetadataRepository.findSummaries(eq(user), eq("%"), eq(""), any(Pageable.class)))
+                .thenReturn(List.of(new FileMetadataSummary(1L, "root.md", "root.md", 10L, false, T1)))
+                .thenReturn(List.of(new FileMetadataSummary(1L, "root.md", "root.md", 10L, false, T1),
+                        new FileMetadataSummary(2L, "other-node.md", "other-node.md", 5L, false, T2)));
+
+        assertThat(expiring.get(user).list("", "", -1)).hasSize(1);
+        Thread.sleep(10);
+
+        FileMetadataIndex.UserFileIndex reloaded = expiring.get(user);
+        assertThat(reloaded.list("", "", -1)).extracting(FileMetadataSummary::getFilePath)
+                .containsExactly("other-node.md", "root.md");
+        assertThat(reloaded.latest().orElseThrow().getFilePath()).isEqualTo("other-node.md");
+        assertThat(expiring.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("사용자 수 상한 초과 시 가장 오래 접근하지 않은 사용자 제거")
+    void get_overMaxUsers_evictsIdleUser() {
+        User u2 = User.builder().id(2L).googleSub("sub-2").email("b@example.com").build();
+        User u3 = User.builder().id(3L).googleSub("sub-3").email("c@example.com").build();
+        when(fileMetadataRepository.findSummaries(any(User.class), eq("%"), eq(""), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        fileMetadataIndex.get(user);
+        fileMetadataIndex.get(u2);
+        fileMetadataIndex.get(user);
+        fileMetadataIndex.get(u3);
+        fileMetadataIndex.get(user);
+
+        assertThat(fileMetadataIndex.size()).isEqualTo(2);
+        verify(fileMetadataRepository, times(1)).findSummaries(eq(user), eq("%"), eq(""), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("파일 수 상한 초과 사용자는 null (DB 조회로 처리)")
+    void get_tooManyFiles_returnsNull() {
+        FileMetadataIndex small = new FileMetadataIndex(fileMetadataRepository, 2, 2, 60_000);
+        givenFiles(user);
+
+        assertThat(small.get(user)).isNull();
+    }
+}
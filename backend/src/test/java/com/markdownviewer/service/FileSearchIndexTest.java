@@ -0,0 +1,157 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.entity.User;
+import com.markdownviewer.repository.FileMetadataRepository;
+import com.markdownviewer.repository.FileMetadataSummary;
+import com.markdownviewer.util.HashUtil;
+import com.markdownviewer.util.SearchTokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * FileSearchIndex 단위 테스트
+ * 토큰화, BM25 순위·스니펫, 한글 bigram 일치, 저장/삭제 이벤트 반영, 기록 후 다시 적재 시 변경분만 색인 검증
+ */
+@ExtendWith(MockitoExtension.class)
+class FileSearchIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private FileMetadataRepository fileMetadataRepository;
+
+    private FileSearchIndex fileSearchIndex;
+
+    private User user;
+
+    private Path files;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileSearchIndex = newIndex();
+        user = User.builder().id(1L).googleSub("sub-1").email("test@example.com").build();
+        files = Files.createDirectories(tempDir.resolve("users").resolve("1").resolve("files"));
+    }
+
+    private FileSearchIndex newIndex() {
+        return new FileSearchIndex(fileMetadataRepository, new AtomicFileWriter("none", 0), tempDir.toString(), 4);
+    }
+
+    /** 디스크에 파일을 쓰고 DB 대조 결과 행 반환 */
+    private Object[] file(String path, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Path target = files.resolve(path);
+        Files.createDirectories(target.getParent());
+        Files.write(target, bytes);
+        return new Object[]{path, HashUtil.sha256Hex(bytes), false};
+    }
+
+    private void givenRows(Object[]... rows) {
+        when(fileMetadataRepository.findContentHashes(user)).thenReturn(new ArrayList<>(List.of(rows)));
+    }
+
+    @Test
+    @DisplayName("tokenize - 라틴 단어는 소문자 단어, 한글은 bigram, 1글자 한글 구간은 그대로")
+    void tokenize_latinWordsAndHangulBigrams() {
+        assertThat(SearchTokenizer.terms("Spring-Boot 파일을 검색 a 뷰"))
+                .containsExactly("spring", "boot", "파일", "일을", "검색", "a", "뷰");
+    }
+
+    @Test
+    @DisplayName("search - 질의 토큰을 더 많이·자주 포함한 파일이 위, 스니펫 안 강조 구간 포함")
+    void search_ranksByBm25WithSnippet() throws IOException {
+        givenRows(file("a.md", "apple banana apple"),
+                file("docs/b.md", "banana cherry"),
+                file("c.md", "kiwi"));
+
+        List<FileSearchIndex.SearchHit> hits = fileSearchIndex.search(user, "Apple banana", null);
+
+        assertThat(hits).extracting(FileSearchIndex.SearchHit::getPath).containsExactly("a.md", "docs/b.md");
+        assertThat(hits.get(0).getScore()).isGreaterThan(hits.get(1).getScore());
+        assertThat(hits.get(1).getName()).isEqualTo("b.md");
+        assertThat(hits.get(0).getSnippet()).isEqualTo("apple banana apple");
+        assertThat(hits.get(0).getHighlights()).containsExactly(new int[]{0, 5}, new int[]{6, 12}, new int[]{13, 18});
+    }
+
+    @Test
+    @DisplayName("search - 한글은 조사가 붙어도 두 글자 단위로 일치, 파일명도 검색 대상")
+    void search_hangulBigramsAndFileName() throws IOException {
+        givenRows(file("notes.md", "업로드한 파일을 검색합니다"), file("회의록.md", "agenda"));
+
+        assertThat(fileSearchIndex.search(user, "파일", null))
+                .extracting(FileSearchIndex.SearchHit::getPath).containsExactly("notes.md");
+        assertThat(fileSearchIndex.search(user, "회의록", null))
+                .extracting(FileSearchIndex.SearchHit::getPath).containsExactly("회의록.md");
+    }
+
+    @Test
+    @DisplayName("search - 검색할 토큰이 없으면 INVALID_QUERY")
+    void search_blankQuery_throws() {
+        assertThatThrownBy(() -> fileSearchIndex.search(user, " !? ", null)).hasMessage("INVALID_QUERY");
+    }
+
+    @Test
+    @DisplayName("apply - 저장 이벤트는 해당 파일만 다시 색인, 삭제·암호화 이벤트는 제거")
+    void apply_savedAndDeletedEvents() throws IOException {
+        givenRows(file("a.md", "old text"));
+        assertThat(fileSearchIndex.search(user, "old", null)).hasSize(1);
+
+        file("a.md", "new text");
+        fileSearchIndex.apply(FileChangedEvent.saved(1L, summary("a.md", false)));
+        assertThat(fileSearchIndex.search(user, "old", null)).isEmpty();
+        assertThat(fileSearchIndex.search(user, "new", null)).hasSize(1);
+
+        fileSearchIndex.apply(FileChangedEvent.saved(1L, summary("a.md", true)));
+        assertThat(fileSearchIndex.search(user, "new", null)).isEmpty();
+
+        file("b.md", "fresh");
+        fileSearchIndex.apply(FileChangedEvent.saved(1L, summary("b.md", false)));
+        fileSearchIndex.apply(FileChangedEvent.deleted(1L, "b.md"));
+        assertThat(fileSearchIndex.search(user, "fresh", null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("persist - 기록한 인덱스를 다시 적재하면 해시가 바뀐·새 파일만 색인, 사라진 파일은 제거")
+    void persistAndReload_reindexesOnlyChanged() throws IOException {
+        Object[] kept = file("kept.md", "stable words");
+        givenRows(kept, file("changed.md", "before"), file("gone.md", "removed"));
+        fileSearchIndex.search(user, "stable", null);
+        fileSearchIndex.apply(FileChangedEvent.deleted(1L, "gone.md")); // 압축 후 기록되는지
+        fileSearchIndex.persistDirty();
+        assertThat(tempDir.resolve("users/1/search.idx")).exists();
+
+        // kept.md를 디스크에서 지워도 기록된 인덱스에서 찾아야 함 (다시 읽지 않음)
+        Files.delete(files.resolve("kept.md"));
+        FileSearchIndex reloaded = newIndex();
+        givenRows(kept, file("changed.md", "after"), file("added.md", "after"));
+
+        assertThat(reloaded.search(user, "stable", null))
+                .extracting(FileSearchIndex.SearchHit::getPath).containsExactly("kept.md");
+        assertThat(reloaded.search(user, "before", null)).isEmpty();
+        assertThat(reloaded.search(user, "after", null))
+                .extracting(FileSearchIndex.SearchHit::getPath).containsExactlyInAnyOrder("changed.md", "added.md");
+        assertThat(reloaded.search(user, "removed", null)).isEmpty();
+    }
+
+    private static FileMetadataSummary summary(String path, boolean encrypted) {
+        return new FileMetadataSummary(1L, path, path, 10L, encrypted, LocalDateTime.now());
+    }
+}
@@ -1,9 +1,15 @@
 package com.markdownviewer.service;
 
+import com.markdownviewer.config.CacheConfig;
+import com.markdownviewer.dto.request.FilePatchRequest;
 import com.markdownviewer.entity.FileMetadata;
+import com.markdownviewer.entity.FileVersion;
 import com.markdownviewer.entity.User;
 import com.markdownviewer.repository.FileMetadataRepository;
+import com.markdownviewer.repository.FileMetadataSummary;
 import com.markdownviewer.repository.UserRepository;
+import com.markdownviewer.util.HashUtil;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,24 +17,42 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
  * FileService 단위 테스트
- * listFiles, getMetadata, readFile, saveFile, deleteFile(일반/안전삭제) 검증
+ * listFiles, getMetadata, readFile, saveFile, uploadFile, uploadBatch, patchFile, deleteFile(일반/안전삭제) 검증
  */
 @ExtendWith(MockitoExtension.class)
 class FileServiceTest {
@@ -42,6 +66,39 @@ class FileServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private MarkdownRenderService markdownRenderService;
+
+    @Mock
+    private FileMetadataIndex fileMetadataIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private AtomicFileWriter atomicFileWriter = new AtomicFileWriter("none", 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private StorageQuotaService storageQuotaService;
+
+    @Mock
+    private SaveCoalescer saveCoalescer;
+
+    @Mock
+    private FileSearchIndex fileSearchIndex;
+
+    @Mock
+    private FileVersionService fileVersionService;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private FileService fileService;
 
@@ -50,6 +107,7 @@ class FileServiceTest {
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(fileService, "basePath", tempDir.toString());
+        ReflectionTestUtils.setField(fileService, "batchParallelism", 2);
         user = User.builder()
                 .id(1L)
                 .googleSub("sub-1")
@@ -63,42 +121,50 @@ class FileServiceTest {
     @Test
     @DisplayName("listFiles - path null이면 전체 목록 반환")
     void listFiles_nullPath_returnsAll() {
-        FileMetadata meta = FileMetadata.builder()
-                .user(user)
-                .filePath("a.md")
-                .fileName("a.md")
-                .fileSize(10L)
-                .lastModified(LocalDateTime.now())
-                .build();
-        when(fileMetadataRepository.findByUserOrderByFileNameAsc(user)).thenReturn(List.of(meta));
+        FileMetadataSummary meta = new FileMetadataSummary(1L, "a.md", "a.md", 10L, false, LocalDateTime.now());
+        when(fileMetadataRepository.findSummaries(eq(user), eq("%"), eq(""), any(Pageable.class))).thenReturn(List.of(meta));
 
-        List<FileMetadata> result = fileService.listFiles(user, null);
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getFilePath()).isEqualTo("a.md");
+        FileService.FilePage result = fileService.listFiles(user, null, null, null);
+        assertThat(result.getFiles()).hasSize(1);
+        assertThat(result.getFiles().get(0).getFilePath()).isEqualTo("a.md");
+        assertThat(result.getNextCursor()).isNull();
     }
 
     @Test
-    @DisplayName("listFiles - path 지정 시 해당 디렉토리 하위만 반환")
-    void listFiles_withPath_returnsFiltered() {
-        FileMetadata inDir = FileMetadata.builder()
-                .user(user)
-                .filePath("docs/readme.md")
-                .fileName("readme.md")
-                .fileSize(100L)
-                .lastModified(LocalDateTime.now())
-                .build();
-        FileMetadata root = FileMetadata.builder()
-                .user(user)
-                .filePath("root.md")
-                .fileName("root.md")
-                .fileSize(50L)
-                .lastModified(LocalDateTime.now())
-                .build();
-        when(fileMetadataRepository.findByUserOrderByFileNameAsc(user)).thenReturn(List.of(inDir, root));
+    @DisplayName("listFiles - path 지정 시 해당 디렉토리 접두사로 DB 조회")
+    void listFiles_withPath_queriesByPrefix() {
+        FileMetadataSummary inDir = new FileMetadataSummary(1L, "docs/readme.md", "readme.md", 100L, false, LocalDateTime.now());
+        when(fileMetadataRepository.findSummaries(eq(user), eq("docs/%"), eq(""), any(Pageable.class))).thenReturn(List.of(inDir));
+
+        FileService.FilePage result = fileService.listFiles(user, "docs", null, null);
+        assertThat(result.getFiles()).hasSize(1);
+        assertThat(result.getFiles().get(0).getFilePath()).isEqualTo("docs/readme.md");
+    }
 
-        List<FileMetadata> result = fileService.listFiles(user, "docs");
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getFilePath()).isEqualTo("docs/readme.md");
+    @Test
+    @DisplayName("listFiles - LIKE 특수문자는 이스케이프")
+    void listFiles_escapesLikeWildcards() {
+        when(fileMetadataRepository.findSummaries(eq(user), eq("a!_b!%/%"), eq(""), any(Pageable.class))).thenReturn(List.of());
+
+        assertThat(fileService.listFiles(user, "a_b%", null, null).getFiles()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("listFiles - limit 지정 시 다음 페이지 커서 반환, 커서로 이어서 조회")
+    void listFiles_withLimit_returnsNextCursor() {
+        FileMetadataSummary a = new FileMetadataSummary(1L, "a.md", "a.md", 1L, false, LocalDateTime.now());
+        FileMetadataSummary b = new FileMetadataSummary(2L, "b.md", "b.md", 1L, false, LocalDateTime.now());
+        FileMetadataSummary c = new FileMetadataSummary(3L, "c.md", "c.md", 1L, false, LocalDateTime.now());
+        when(fileMetadataRepository.findSummaries(user, "%", "", PageRequest.of(0, 3))).thenReturn(List.of(a, b, c));
+        when(fileMetadataRepository.findSummaries(user, "%", "b.md", PageRequest.of(0, 3))).thenReturn(List.of(c));
+
+        FileService.FilePage first = fileService.listFiles(user, null, null, 2);
+        assertThat(first.getFiles()).extracting(FileMetadataSummary::getFilePath).containsExactly("a.md", "b.md");
+        assertThat(first.getNextCursor()).isNotNull();
+
+        FileService.FilePage second = fileService.listFiles(user, null, first.getNextCursor(), 2);
+        assertThat(second.getFiles()).extracting(FileMetadataSummary::getFilePath).containsExactly("c.md");
+        assertThat(second.getNextCursor()).isNull();
     }
 
     @Test
@@ -113,7 +179,7 @@ class FileServiceTest {
                 .build();
         when(fileMetadataRepository.findByUserAndFilePath(user, "x.md")).thenReturn(Optional.of(meta));
 
-        Optional<FileMetadata> result = fileService.getMetadata(user, "x.md");
+        Optional<FileMetadataSummary> result = fileService.getMetadata(user, "x.md");
         assertThat(result).isPresent();
         assertThat(result.get().getFilePath()).isEqualTo("x.md");
     }
@@ -123,10 +189,40 @@ class FileServiceTest {
     void getMetadata_notFound_returnsEmpty() {
         when(fileMetadataRepository.findByUserAndFilePath(user, "missing.md")).thenReturn(Optional.empty());
 
-        Optional<FileMetadata> result = fileService.getMetadata(user, "missing.md");
+        Optional<FileMetadataSummary> result = fileService.getMetadata(user, "missing.md");
         assertThat(result).isEmpty();
     }
 
+    @Test
+    @DisplayName("메모리 인덱스가 있으면 목록·메타데이터·마지막 문서를 DB 조회 없이 반환")
+    void index_servesReadsWithoutRepository() {
+        FileMetadataSummary a = new FileMetadataSummary(1L, "docs/a.md", "a.md", 1L, false, LocalDateTime.of(2024, 1, 1, 0, 0));
+        FileMetadataSummary b = new FileMetadataSummary(2L, "docs/b.md", "b.md", 1L, false, LocalDateTime.of(2024, 1, 2, 0, 0));
+        FileMetadataSummary c = new FileMetadataSummary(3L, "z.md", "z.md", 1L, false, LocalDateTime.of(2023, 1, 1, 0, 0));
+        when(fileMetadataIndex.get(user)).thenReturn(FileMetadataIndex.UserFileIndex.of(List.of(a, b, c)));
+
+        FileService.FilePage page = fileService.listFiles(user, "docs", null, 1);
+        assertThat(page.getFiles()).extracting(FileMetadataSummary::getFilePath).containsExactly("docs/a.md");
+        assertThat(fileService.listFiles(user, "docs", page.getNextCursor(), 1).getFiles())
+                .extracting(FileMetadataSummary::getFilePath).containsExactly("docs/b.md");
+        assertThat(fileService.getMetadata(user, "z.md")).contains(c);
+        assertThat(fileService.getLastModifiedFile(user)).contains(b);
+        verifyNoInteractions(fileMetadataRepository, cacheManager); // 인덱스 사용자는 메타데이터 캐시를 거치지 않음
+    }
+
+    @Test
+    @DisplayName("getMetadata - 인덱스가 없는 사용자는 DB 조회 결과를 메타데이터 캐시에 두고 재사용")
+    void getMetadata_withoutIndex_usesCache() {
+        FileMetadata meta = FileMetadata.builder().id(1L).user(user).filePath("x.md").fileName("x.md")
+                .fileSize(3L).encrypted(false).build();
+        when(fileMetadataRepository.findByUserAndFilePath(user, "x.md")).thenReturn(Optional.of(meta));
+        when(cacheManager.getCache(CacheConfig.FILE_METADATA)).thenReturn(new ConcurrentMapCache(CacheConfig.FILE_METADATA));
+
+        assertThat(fileService.getMetadata(user, "x.md")).isPresent();
+        assertThat(fileService.getMetadata(user, "x.md")).map(FileMetadataSummary::getFilePath).contains("x.md");
+        verify(fileMetadataRepository, times(1)).findByUserAndFilePath(user, "x.md");
+    }
+
     @Test
     @DisplayName("getMetadata - path에 .. 포함 시 INVALID_PATH 예외")
     void getMetadata_pathTraversal_throws() {
@@ -135,6 +231,15 @@ class FileServiceTest {
                 .hasMessageContaining("INVALID_PATH");
     }
 
+    @Test
+    @DisplayName("saveFile - 저장용 임시 파일 접두사 경로는 INVALID_PATH 예외")
+    void saveFile_reservedTempPrefix_throws() {
+        assertThatThrownBy(() -> fileService.saveFile(user, "docs/" + AtomicFileWriter.TEMP_PREFIX + "x.md", "# x",
+                false, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("INVALID_PATH");
+    }
+
     @Test
     @DisplayName("readFile - 파일 존재 시 내용 반환")
     void readFile_existing_returnsContent() throws Exception {
@@ -153,12 +258,44 @@ class FileServiceTest {
                 .build();
         when(fileMetadataRepository.findByUserAndFilePath(user, "read.md")).thenReturn(Optional.of(meta));
 
+        when(markdownRenderService.render(eq(1L), eq("read.md"), any(byte[].class))).thenReturn("<p>Hello Markdown</p>\n");
+
         Optional<FileService.FileContentResult> result = fileService.readFile(user, "read.md");
         assertThat(result).isPresent();
         assertThat(result.get().getContent()).isEqualTo("Hello Markdown");
+        assertThat(result.get().getHtml()).isEqualTo("<p>Hello Markdown</p>\n");
         assertThat(result.get().getMetadata().getFilePath()).isEqualTo("read.md");
     }
 
+    @Test
+    @DisplayName("readFile - 암호화 파일은 Base64 데이터만 반환 (평문·HTML 없음)")
+    void readFile_encrypted_returnsBase64Only() throws Exception {
+        Path userFiles = tempDir.resolve("users").resolve("1").resolve("files");
+        Files.createDirectories(userFiles);
+        byte[] cipher = {0x01, 0x02, (byte) 0xFF, 0x10};
+        Files.write(userFiles.resolve("secret.md"), cipher);
+
+        FileMetadata meta = FileMetadata.builder()
+                .user(user)
+                .filePath("secret.md")
+                .fileName("secret.md")
+                .fileSize(4L)
+                .encrypted(true)
+                .iv("aXY=")
+                .authTag("dGFn")
+                .lastModified(LocalDateTime.now())
+                .build();
+        when(fileMetadataRepository.findByUserAndFilePath(user, "secret.md")).thenReturn(Optional.of(meta));
+
+        Optional<FileService.FileContentResult> result = fileService.readFile(user, "secret.md");
+        assertThat(result).isPresent();
+        assertThat(result.get().isEncrypted()).isTrue();
+        assertThat(result.get().getEncryptedData()).isEqualTo(Base64.getEncoder().encodeToString(cipher));
+        assertThat(result.get().getContent()).isNull();
+        assertThat(result.get().getIv()).isEqualTo("aXY=");
+        verifyNoInteractions(markdownRenderService);
+    }
+
     @Test
     @DisplayName("readFile - 파일 없으면 empty")
     void readFile_fileNotExists_returnsEmpty() {
@@ -171,7 +308,7 @@ class FileServiceTest {
     @Test
     @DisplayName("saveFile - 새 파일 저장 후 메타 반환")
     void saveFile_newFile_savesAndReturns() throws Exception {
-        when(fileMetadataRepository.findByUserAndFilePath(user, "new.md")).thenReturn(Optional.empty());
+        when(fileMetadataRepository.findForUpdate(user, "new.md")).thenReturn(Optional.empty());
         when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(inv -> {
             FileMetadata m = inv.getArgument(0);
             return FileMetadata.builder()
@@ -183,8 +320,6 @@ class FileServiceTest {
                     .lastModified(m.getLastModified())
                     .build();
         });
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Optional<FileMetadata> result = fileService.saveFile(user, "new.md", "# Title", false, null, null, null);
         assertThat(result).isPresent();
@@ -193,6 +328,111 @@ class FileServiceTest {
         Path fullPath = tempDir.resolve("users").resolve("1").resolve("files").resolve("new.md");
         assertThat(Files.exists(fullPath)).isTrue();
         assertThat(Files.readString(fullPath, StandardCharsets.UTF_8)).isEqualTo("# Title");
+        verify(eventPublisher).publishEvent(any(FileChangedEvent.class));
+        verify(storageQuotaService).reserve(1L, 7L);
+        verify(userRepository, never()).addStorageUsed(any(), anyLong());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("saveFile - gzip 저장이면 압축해 기록하고 메타에 내용·디스크 크기, 읽기·원본 조회는 해제한 내용 기준")
+    void saveFile_gzipStorage_compressesAndReadsBack() throws Exception {
+        ReflectionTestUtils.setField(fileService, "compression", "gzip");
+        ReflectionTestUtils.setField(fileService, "compressionMinSize", 1024L);
+        String content = "# 제목\n" + "본문 줄 lorem ipsum dolor sit amet\n".repeat(500);
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        when(fileMetadataRepository.findForUpdate(eq(user), any())).thenReturn(Optional.empty());
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        FileMetadata meta = fileService.saveFile(user, "big.md", content, false, null, null, null).orElseThrow();
+        fileService.saveFile(user, "small.md", "tiny", false, null, null, null);
+
+        Path userFiles = tempDir.resolve("users").resolve("1").resolve("files");
+        byte[] stored = Files.readAllBytes(userFiles.resolve("big.md"));
+        assertThat(stored[0]).isEqualTo((byte) 0x1F);
+        assertThat(stored[1]).isEqualTo((byte) 0x8B);
+        assertThat(meta.getFileSize()).isEqualTo((long) bytes.length);
+        assertThat(meta.getStoredSize()).isEqualTo((long) stored.length).isLessThan(bytes.length / 5L);
+        assertThat(Files.readString(userFiles.resolve("small.md"))).isEqualTo("tiny");
+        verify(storageQuotaService).reserve(1L, (long) bytes.length);
+
+        when(fileMetadataRepository.findByUserAndFilePath(user, "big.md")).thenReturn(Optional.of(meta));
+        when(markdownRenderService.render(eq(1L), eq("big.md"), any(byte[].class))).thenReturn("<h1>제목</h1>");
+        assertThat(fileService.readFile(user, "big.md").orElseThrow().getContent()).isEqualTo(content);
+
+        FileService.RawFileResult raw = fileService.openRaw(user, "big.md").orElseThrow();
+        assertThat(raw.isCompressed()).isTrue();
+        assertThat(raw.getSize()).isEqualTo(bytes.length);
+        assertThat(raw.getStoredSize()).isEqualTo(stored.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        fileService.transferContent(raw.getPath(), 2, 6, out);
+        assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(bytes, 2, 8));
+    }
+
+    @Test
+    @DisplayName("saveFile - 저장 병합이 켜져 있으면 버퍼에만 두고 디스크는 건드리지 않음, 증가분은 바로 예약")
+    void saveFile_coalescing_buffersWithoutWriting() throws Exception {
+        when(saveCoalescer.isEnabled()).thenReturn(true);
+        when(saveCoalescer.submit(eq(1L), eq("buf.md"), any()))
+                .thenAnswer(inv -> inv.<SaveCoalescer.Update>getArgument(2).apply(null));
+        when(fileMetadataRepository.findByUserAndFilePath(user, "buf.md")).thenReturn(Optional.empty());
+
+        Optional<FileMetadata> result = fileService.saveFile(user, "buf.md", "# Title", false, null, null, null);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getFileSize()).isEqualTo(7L);
+        assertThat(result.get().getContentHash()).isEqualTo(HashUtil.sha256Hex("# Title".getBytes(StandardCharsets.UTF_8)));
+        assertThat(Files.exists(tempDir.resolve("users/1/files/buf.md"))).isFalse();
+        verify(storageQuotaService).reserve(1L, 7L);
+        verify(atomicFileWriter, never()).write(any(), any());
+        verify(fileMetadataRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("readFile - 반영 전 버퍼가 있으면 버퍼 내용 반환 (read-your-writes)")
+    void readFile_bufferedSave_returnsBufferedContent() {
+        byte[] bytes = "# buffered".getBytes(StandardCharsets.UTF_8);
+        when(saveCoalescer.peek(1L, "buf.md")).thenReturn(Optional.of(new SaveCoalescer.PendingSave(
+                user, "buf.md", bytes, "h1", false, null, null, LocalDateTime.now())));
+        when(markdownRenderService.render(1L, "buf.md", bytes)).thenReturn("<h1>buffered</h1>");
+
+        Optional<FileService.FileContentResult> result = fileService.readFile(user, "buf.md");
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getContent()).isEqualTo("# buffered");
+        assertThat(result.get().getContentHash()).isEqualTo("h1");
+        assertThat(result.get().getMetadata().getFileSize()).isEqualTo(bytes.length);
+        verify(fileMetadataRepository, never()).findByUserAndFilePath(any(), any());
+    }
+
+    @Test
+    @DisplayName("saveFile - 할당량 초과면 STORAGE_QUOTA_EXCEEDED, 디스크·메타데이터 변경 없음")
+    void saveFile_quotaExceeded_rejectedBeforeWrite() {
+        when(fileMetadataRepository.findForUpdate(user, "big.md")).thenReturn(Optional.empty());
+        doThrow(new IllegalArgumentException("STORAGE_QUOTA_EXCEEDED"))
+                .when(storageQuotaService).reserve(1L, 7L);
+
+        assertThatThrownBy(() -> fileService.saveFile(user, "big.md", "# Title", false, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("STORAGE_QUOTA_EXCEEDED");
+
+        assertThat(Files.exists(tempDir.resolve("users").resolve("1").resolve("files").resolve("big.md"))).isFalse();
+        verify(fileMetadataRepository, never()).save(any());
+        verify(storageQuotaService, never()).release(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("saveFile - 쓰기 실패 시 예약한 사용량 해제")
+    void saveFile_writeFails_releasesReservation() throws Exception {
+        when(fileMetadataRepository.findForUpdate(user, "fail.md")).thenReturn(Optional.empty());
+        doThrow(new IOException("disk full")).when(atomicFileWriter).write(any(), any());
+
+        Optional<FileMetadata> result = fileService.saveFile(user, "fail.md", "# Title", false, null, null, null);
+
+        assertThat(result).isEmpty();
+        verify(storageQuotaService).reserve(1L, 7L);
+        verify(storageQuotaService).release(1L, 7L);
+        verify(fileMetadataRepository, never()).save(any());
     }
 
     @Test
@@ -211,13 +451,12 @@ class FileServiceTest {
                 .lastModified(LocalDateTime.now())
                 .build();
         when(fileMetadataRepository.findByUserAndFilePath(user, "del.md")).thenReturn(Optional.of(meta));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
 
         boolean deleted = fileService.deleteFile(user, "del.md", false);
         assertThat(deleted).isTrue();
         assertThat(Files.exists(filePath)).isFalse();
         verify(fileMetadataRepository).delete(meta);
+        verify(userRepository).addStorageUsed(1L, -7L);
     }
 
     @Test
@@ -236,13 +475,12 @@ class FileServiceTest {
                 .lastModified(LocalDateTime.now())
                 .build();
         when(fileMetadataRepository.findByUserAndFilePath(user, "secure.md")).thenReturn(Optional.of(meta));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
 
         boolean deleted = fileService.deleteFile(user, "secure.md", true);
         assertThat(deleted).isTrue();
         assertThat(Files.exists(filePath)).isFalse();
         verify(fileMetadataRepository).delete(meta);
+        verify(userRepository).addStorageUsed(1L, -14L);
     }
 
     @Test
@@ -254,4 +492,240 @@ class FileServiceTest {
         assertThat(deleted).isFalse();
         verify(fileMetadataRepository, never()).delete(any());
     }
+
+    @Test
+    @DisplayName("uploadFile - 버퍼 경계에 걸친 멀티바이트 문자도 그대로 스트리밍 저장, 해시 기록")
+    void uploadFile_streamsToDiskAndRecordsHash() throws Exception {
+        String content = "a".repeat(64 * 1024 - 1) + "한글 문서";
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        when(fileMetadataRepository.findForUpdate(user, "docs/up.md")).thenReturn(Optional.empty());
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Optional<FileMetadata> result = fileService.uploadFile(user,
+                new MockMultipartFile("file", "up.md", "text/markdown", bytes), "docs");
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getFileSize()).isEqualTo(bytes.length);
+        assertThat(result.get().getContentHash()).isEqualTo(HashUtil.sha256Hex(bytes));
+        Path dir = tempDir.resolve("users").resolve("1").resolve("files").resolve("docs");
+        assertThat(Files.readString(dir.resolve("up.md"), StandardCharsets.UTF_8)).isEqualTo(content);
+        try (var files = Files.list(dir)) {
+            assertThat(files).containsExactly(dir.resolve("up.md"));
+        }
+        verify(storageQuotaService).reserve(1L, bytes.length);
+    }
+
+    @Test
+    @DisplayName("uploadFile - 암호화 파일을 평문(gzip 저장)으로 덮어쓰면 암호화 표식·IV·태그 제거")
+    void uploadFile_overEncryptedFile_clearsEncryption() throws Exception {
+        ReflectionTestUtils.setField(fileService, "compression", "gzip");
+        ReflectionTestUtils.setField(fileService, "compressionMinSize", 0L);
+        FileMetadata encrypted = FileMetadata.builder()
+                .id(9L)
+                .user(user)
+                .filePath("secret.md")
+                .fileName("secret.md")
+                .fileSize(40L)
+                .encrypted(true)
+                .iv("aXY=")
+                .authTag("dGFn")
+                .build();
+        byte[] bytes = "# 평문 업로드
+".repeat(20).getBytes(StandardCharsets.UTF_8);
+        when(fileMetadataRepository.findForUpdate(user, "secret.md")).thenReturn(Optional.of(encrypted));
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        FileMetadata saved = fileService.uploadFile(user,
+                new MockMultipartFile("file", "secret.md", "text/markdown", bytes), null).orElseThrow();
+
+        assertThat(saved.getEncrypted()).isFalse();
+        assertThat(saved.getIv()).isNull();
+        assertThat(saved.getAuthTag()).isNull();
+        assertThat(saved.getStoredSize()).isLessThan(bytes.length); // gzip으로 저장
+    }
+
+    @Test
+    @DisplayName("uploadFile - UTF-8이 아니면 FILE_INVALID_ENCODING, 임시 파일·메타데이터 남기지 않음")
+    void uploadFile_invalidUtf8_rejected() throws Exception {
+        byte[] bytes = {'#', ' ', (byte) 0xC3, 0x28};
+
+        assertThatThrownBy(() -> fileService.uploadFile(user,
+                new MockMultipartFile("file", "bad.md", "text/markdown", bytes), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("FILE_INVALID_ENCODING");
+
+        Path dir = tempDir.resolve("users").resolve("1").resolve("files");
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+        verify(fileMetadataRepository, never()).save(any());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("uploadBatch - 새 파일은 배치 insert, 기존 파일은 배치 update, 사용량은 한 번만 갱신")
+    void uploadBatch_mixedFiles_batchesMetadataAndReportsPerFile() throws Exception {
+        FileMetadata existing = FileMetadata.builder()
+                .id(7L)
+                .user(user)
+                .filePath("vault/old.md")
+                .fileName("old.md")
+                .fileSize(100L)
+                .encrypted(false)
+                .build();
+        when(fileMetadataRepository.findAllForUpdate(eq(user), any())).thenReturn(List.of(existing));
+        when(fileMetadataRepository.findSummariesByPaths(eq(user), any())).thenReturn(List.of(
+                new FileMetadataSummary(7L, "vault/old.md", "old.md", 3L, false, LocalDateTime.now()),
+                new FileMetadataSummary(8L, "vault/sub/new.md", "new.md", 5L, false, LocalDateTime.now())));
+        ConcurrentMapCache metadataCache = new ConcurrentMapCache(CacheConfig.FILE_METADATA);
+        metadataCache.put("1:vault/old.md", existing);
+        when(cacheManager.getCache(CacheConfig.FILE_METADATA)).thenReturn(metadataCache);
+
+        FileService.BatchUploadResult result = fileService.uploadBatch(user, List.of(
+                new MockMultipartFile("files", "old.md", "text/markdown", "old".getBytes(StandardCharsets.UTF_8)),
+                new MockMultipartFile("files", "sub/new.md", "text/markdown", "# new".getBytes(StandardCharsets.UTF_8)),
+                new MockMultipartFile("files", "image.png", "image/png", new byte[]{1, 2})), null, "vault");
+
+        assertThat(result.getSaved()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(FileService.BatchItem::getError)
+                .containsExactly(null, null, "FILE_INVALID_FORMAT");
+        Path vault = tempDir.resolve("users").resolve("1").resolve("files").resolve("vault");
+        assertThat(Files.readString(vault.resolve("old.md"))).isEqualTo("old");
+        assertThat(Files.readString(vault.resolve("sub").resolve("new.md"))).isEqualTo("# new");
+        verify(jdbcTemplate).batchUpdate(contains("encrypted = false, iv = null, auth_tag = null"), // 평문으로 덮어씀
+                argThat((List<Object[]> rows) -> rows.size() == 1));
+        verify(jdbcTemplate).batchUpdate(contains("insert into file_metadata"), argThat((List<Object[]> rows) -> rows.size() == 1));
+        verify(storageQuotaService).reserve(1L, (3L - 100L) + 5L);
+        verify(userRepository).addStorageUsed(1L, (3L - 100L) + 5L);
+        verify(eventPublisher, times(2)).publishEvent(any(FileChangedEvent.class));
+        verify(fileMetadataRepository, never()).save(any());
+        verify(entityManager).detach(existing); // JDBC로 갱신한 행의 오래된 엔티티 분리
+        assertThat(metadataCache.get("1:vault/old.md")).isNull();
+    }
+
+    @Test
+    @DisplayName("uploadBatch - zip 엔트리 경로를 유지해 저장, 경로 조작 엔트리는 INVALID_PATH")
+    void uploadBatch_zipArchive_keepsEntryPaths() throws Exception {
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(zipBytes)) {
+            zip.putNextEntry(new ZipEntry("notes/a.md"));
+            zip.write("A".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("../evil.md"));
+            zip.write("X".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("notes/"));
+        }
+        when(fileMetadataRepository.findAllForUpdate(eq(user), any())).thenReturn(List.of());
+        when(fileMetadataRepository.findSummariesByPaths(eq(user), any())).thenReturn(List.of());
+
+        FileService.BatchUploadResult result = fileService.uploadBatch(user, null,
+                new MockMultipartFile("archive", "vault.zip", "application/zip", zipBytes.toByteArray()), null);
+
+        assertThat(result.getItems()).extracting(FileService.BatchItem::getPath, FileService.BatchItem::getError)
+                .containsExactly(tuple("notes/a.md", null), tuple("../evil.md", "INVALID_PATH"));
+        assertThat(Files.readString(tempDir.resolve("users/1/files/notes/a.md"))).isEqualTo("A");
+        verify(storageQuotaService).reserve(1L, 1L);
+        verify(userRepository, never()).addStorageUsed(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("uploadBatch - 순증가분이 할당량을 넘으면 모든 파일 STORAGE_QUOTA_EXCEEDED, 디스크 변경 없음")
+    void uploadBatch_quotaExceeded_failsAllWithoutWriting() throws Exception {
+        when(fileMetadataRepository.findAllForUpdate(eq(user), any())).thenReturn(List.of());
+        doThrow(new IllegalArgumentException("STORAGE_QUOTA_EXCEEDED"))
+                .when(storageQuotaService).reserve(1L, 2L);
+
+        FileService.BatchUploadResult result = fileService.uploadBatch(user, List.of(
+                new MockMultipartFile("files", "a.md", "text/markdown", "A".getBytes(StandardCharsets.UTF_8)),
+                new MockMultipartFile("files", "b.md", "text/markdown", "B".getBytes(StandardCharsets.UTF_8))), null, null);
+
+        assertThat(result.getSaved()).isZero();
+        assertThat(result.getItems()).extracting(FileService.BatchItem::getError)
+                .containsExactly("STORAGE_QUOTA_EXCEEDED", "STORAGE_QUOTA_EXCEEDED");
+        try (var files = Files.list(tempDir.resolve("users").resolve("1").resolve("files"))) {
+            assertThat(files).isEmpty();
+        }
+        verifyNoInteractions(jdbcTemplate, userRepository);
+    }
+
+    @Test
+    @DisplayName("patchFile - 기준 해시가 일치하면 편집 적용 후 새 해시 저장")
+    void patchFile_matchingBase_appliesEdits() throws Exception {
+        Path userFiles = tempDir.resolve("users").resolve("1").resolve("files");
+        Files.createDirectories(userFiles);
+        Files.writeString(userFiles.resolve("p.md"), "Hello World");
+        String baseHash = HashUtil.sha256Hex("Hello World".getBytes(StandardCharsets.UTF_8));
+        FileMetadata meta = FileMetadata.builder()
+                .id(3L)
+                .user(user)
+                .filePath("p.md")
+                .fileName("p.md")
+                .fileSize(11L)
+                .encrypted(false)
+                .contentHash(baseHash)
+                .build();
+        when(fileMetadataRepository.findForUpdate(user, "p.md")).thenReturn(Optional.of(meta));
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Optional<FileService.PatchResult> result = fileService.patchFile(user, "p.md", baseHash, List.of(
+                new FilePatchRequest.Edit(0, 5, "Hi"),
+                new FilePatchRequest.Edit(11, 11, "!")));
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getContent()).isEqualTo("Hi World!");
+        assertThat(Files.readString(userFiles.resolve("p.md"))).isEqualTo("Hi World!");
+        assertThat(meta.getContentHash()).isEqualTo(HashUtil.sha256Hex("Hi World!".getBytes(StandardCharsets.UTF_8)));
+        verify(userRepository).addStorageUsed(1L, -2L);
+    }
+
+    @Test
+    @DisplayName("patchFile - 기준 해시가 다르면 FILE_CONFLICT, 파일은 그대로")
+    void patchFile_staleBase_conflict() throws Exception {
+        Path userFiles = tempDir.resolve("users").resolve("1").resolve("files");
+        Files.createDirectories(userFiles);
+        Files.writeString(userFiles.resolve("c.md"), "current");
+        FileMetadata meta = FileMetadata.builder()
+                .user(user)
+                .filePath("c.md")
+                .fileName("c.md")
+                .encrypted(false)
+                .build();
+        when(fileMetadataRepository.findForUpdate(user, "c.md")).thenReturn(Optional.of(meta));
+
+        assertThatThrownBy(() -> fileService.patchFile(user, "c.md", "0".repeat(64),
+                List.of(new FilePatchRequest.Edit(0, 0, "x"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("FILE_CONFLICT");
+        assertThat(Files.readString(userFiles.resolve("c.md"))).isEqualTo("current");
+        verify(fileMetadataRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("applyEdits - 겹치거나 범위를 벗어난 편집은 INVALID_PATCH")
+    void applyEdits_invalidRanges_throw() {
+        assertThat(FileService.applyEdits("abc", List.of())).isEqualTo("abc");
+        assertThatThrownBy(() -> FileService.applyEdits("abc", List.of(
+                new FilePatchRequest.Edit(1, 2, "x"), new FilePatchRequest.Edit(0, 1, "y"))))
+                .hasMessage("INVALID_PATCH");
+        assertThatThrownBy(() -> FileService.applyEdits("abc", List.of(new FilePatchRequest.Edit(2, 4, ""))))
+                .hasMessage("INVALID_PATCH");
+    }
+
+    @Test
+    @DisplayName("restoreVersion - 버전 내용으로 저장, 없는 버전은 VERSION_NOT_FOUND")
+    void restoreVersion_savesVersionContent() throws Exception {
+        FileVersion version = FileVersion.builder().id(7L).user(user).filePath("doc.md")
+                .contentHash("h").fileSize(5L).build();
+        when(fileVersionService.find(user, "doc.md", 7L)).thenReturn(Optional.of(version));
+        when(fileVersionService.content(user, version)).thenReturn("# old".getBytes(StandardCharsets.UTF_8));
+        when(fileMetadataRepository.findForUpdate(user, "doc.md")).thenReturn(Optional.empty());
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertThat(fileService.restoreVersion(user, "doc.md", 7L)).isPresent();
+        Path fullPath = tempDir.resolve("users").resolve("1").resolve("files").resolve("doc.md");
+        assertThat(Files.readString(fullPath, StandardCharsets.UTF_8)).isEqualTo("# old");
+
+        when(fileVersionService.find(user, "doc.md", 8L)).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> fileService.restoreVersion(user, "doc.md", 8L)).hasMessage("VERSION_NOT_FOUND");
+    }
 }
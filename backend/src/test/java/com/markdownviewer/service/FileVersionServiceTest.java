@@ -0,0 +1,152 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.entity.FileMetadata;
+import com.markdownviewer.entity.FileVersion;
+import com.markdownviewer.entity.User;
+import com.markdownviewer.repository.FileMetadataRepository;
+import com.markdownviewer.repository.FileVersionRepository;
+import com.markdownviewer.repository.UserRepository;
+import com.markdownviewer.util.HashUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * FileVersionService 단위 테스트
+ * 직전 버전 대비 기록, 같은 내용·뒤처진 이벤트 생략, 보관 기준 정리 검증
+ */
+@ExtendWith(MockitoExtension.class)
+class FileVersionServiceTest {
+
+    private static final String PREVIOUS_HASH = "a".repeat(64);
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private FileVersionRepository fileVersionRepository;
+
+    @Mock
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private VersionStore versionStore;
+
+    private FileVersionService fileVersionService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        fileVersionService = new FileVersionService(fileVersionRepository, fileMetadataRepository, userRepository,
+                versionStore, tempDir.toString(), 2, 30, 60_000);
+        user = User.builder().id(1L).googleSub("sub-1").email("test@example.com").build();
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+    }
+
+    private byte[] givenFile(String path, String content, String metaHash) throws Exception {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Path target = tempDir.resolve("users").resolve("1").resolve("files").resolve(path);
+        Files.createDirectories(target.getParent());
+        Files.write(target, bytes);
+        when(fileMetadataRepository.findByUserAndFilePath(user, path)).thenReturn(Optional.of(FileMetadata.builder()
+                .user(user).filePath(path).fileName(path).fileSize((long) bytes.length).contentHash(metaHash).build()));
+        return bytes;
+    }
+
+    private FileVersion version(long id, String path, String hash, LocalDateTime createdAt) {
+        return FileVersion.builder().id(id).user(user).filePath(path).contentHash(hash).fileSize(1L)
+                .createdAt(createdAt).build();
+    }
+
+    @Test
+    @DisplayName("record - 직전 버전을 델타 기준으로 객체 저장 후 버전 행 기록")
+    void record_newContent_storesAgainstLatest() throws Exception {
+        byte[] bytes = givenFile("a.md", "# v2", HashUtil.sha256Hex("# v2".getBytes(StandardCharsets.UTF_8)));
+        String hash = HashUtil.sha256Hex(bytes);
+        when(fileVersionRepository.findTopByUserAndFilePathOrderByIdDesc(user, "a.md"))
+                .thenReturn(Optional.of(version(1L, "a.md", PREVIOUS_HASH, LocalDateTime.now().minusMinutes(5))));
+
+        fileVersionService.record(1L, "a.md");
+
+        verify(versionStore).put(1L, hash, bytes, PREVIOUS_HASH);
+        ArgumentCaptor<FileVersion> saved = ArgumentCaptor.forClass(FileVersion.class);
+        verify(fileVersionRepository).save(saved.capture());
+        assertThat(saved.getValue().getContentHash()).isEqualTo(hash);
+        assertThat(saved.getValue().getFileSize()).isEqualTo((long) bytes.length);
+    }
+
+    @Test
+    @DisplayName("record - 직전 버전이 최소 간격 안이면 새 행 대신 그 행의 내용 교체")
+    void record_withinMinInterval_replacesLatest() throws Exception {
+        byte[] bytes = givenFile("a.md", "# v3", null);
+        String hash = HashUtil.sha256Hex(bytes);
+        FileVersion latest = version(1L, "a.md", PREVIOUS_HASH, LocalDateTime.now().minusSeconds(2));
+        when(fileVersionRepository.findTopByUserAndFilePathOrderByIdDesc(user, "a.md")).thenReturn(Optional.of(latest));
+
+        fileVersionService.record(1L, "a.md");
+
+        verify(versionStore).put(1L, hash, bytes, PREVIOUS_HASH);
+        verify(fileVersionRepository).save(latest);
+        assertThat(latest.getId()).isEqualTo(1L);
+        assertThat(latest.getContentHash()).isEqualTo(hash);
+        assertThat(latest.getFileSize()).isEqualTo((long) bytes.length);
+    }
+
+    @Test
+    @DisplayName("record - 직전 버전과 같은 내용이거나 이미 다음 저장이 커밋됐으면 생략")
+    void record_unchangedOrStale_skips() throws Exception {
+        byte[] same = givenFile("same.md", "same", null);
+        when(fileVersionRepository.findTopByUserAndFilePathOrderByIdDesc(user, "same.md"))
+                .thenReturn(Optional.of(version(1L, "same.md", HashUtil.sha256Hex(same), LocalDateTime.now())));
+        givenFile("stale.md", "old", PREVIOUS_HASH);
+
+        fileVersionService.record(1L, "same.md");
+        fileVersionService.record(1L, "stale.md");
+
+        verify(versionStore, never()).put(any(), any(), any(), any());
+        verify(fileVersionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("compactNow - 경로별 최신 N개 중 보관 기간 안의 버전만 남기고 참조되지 않는 객체 정리")
+    void compactNow_appliesRetention() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime old = now.minusDays(60);
+        when(fileVersionRepository.findUserIds()).thenReturn(List.of(1L));
+        when(fileMetadataRepository.findContentHashes(user)).thenReturn(new ArrayList<>(List.<Object[]>of(
+                new Object[]{"kept.md", "h", false})));
+        when(fileVersionRepository.findRetentionRows(1L)).thenReturn(new ArrayList<>(List.of(
+                new Object[]{5L, "deleted.md", "d2", old},   // 삭제된 파일의 오래된 최신 버전 → 제거
+                new Object[]{4L, "kept.md", "k3", old},      // 현재 파일의 최신 버전 → 기간이 지나도 유지
+                new Object[]{3L, "kept.md", "k2", now},
+                new Object[]{2L, "kept.md", "k1", now})));   // 경로별 2개 초과 → 제거
+
+        int removed = fileVersionService.compactNow();
+
+        assertThat(removed).isEqualTo(2);
+        verify(fileVersionRepository).deleteAllByIdInBatch(List.of(5L, 2L));
+        verify(versionStore).sweep(1L, Set.of("k3", "k2"));
+    }
+}
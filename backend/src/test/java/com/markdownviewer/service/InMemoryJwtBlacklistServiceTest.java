@@ -0,0 +1,56 @@
+package com.markdownviewer.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * InMemoryJwtBlacklistService 단위 테스트
+ * 추가·조회, 다시 제시되지 않는 만료 토큰의 정리, 재추가 시 긴 만료 유지 검증
+ */
+class InMemoryJwtBlacklistServiceTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final InMemoryJwtBlacklistService service = new InMemoryJwtBlacklistService(now::get);
+
+    @Test
+    @DisplayName("contains - 추가한 토큰만 true")
+    void contains_addedToken_returnsTrue() {
+        service.add("token-a", 60_000);
+
+        assertThat(service.contains("token-a")).isTrue();
+        assertThat(service.contains("token-b")).isFalse();
+    }
+
+    @Test
+    @DisplayName("만료된 항목은 해당 토큰이 다시 조회되지 않아도 제거")
+    void expiredEntries_sweptWithoutLookup() {
+        for (int i = 0; i < 100; i++) {
+            service.add("short-" + i, 1);
+        }
+        now.addAndGet(1_000);
+
+        service.add("mid", 1_500);
+        assertThat(service.size()).isEqualTo(1); // 만료 초가 지난 버킷만 제거
+        assertThat(service.contains("mid")).isTrue();
+        now.addAndGet(3_600_000); // 오래 호출이 없었던 경우
+
+        service.add("long", 60_000);
+
+        assertThat(service.size()).isEqualTo(1);
+        assertThat(service.contains("short-0")).isFalse();
+    }
+
+    @Test
+    @DisplayName("같은 토큰을 더 긴 TTL로 다시 추가하면 앞선 만료로 제거되지 않음")
+    void readd_keepsLongerExpiry() {
+        service.add("token", 1);
+        service.add("token", 60_000);
+        now.addAndGet(2_000);
+
+        assertThat(service.contains("token")).isTrue();
+    }
+}
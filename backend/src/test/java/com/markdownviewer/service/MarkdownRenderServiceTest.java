@@ -0,0 +1,127 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.dto.response.RenderPatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MarkdownRenderService 단위 테스트
+ * GFM 렌더링, 내용 해시 캐시, 크기 기준 제거, 저장/삭제 무효화, 블록 분할·증분 패치 검증
+ */
+class MarkdownRenderServiceTest {
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("render - 제목·표·취소선 렌더링")
+    void render_gfm() {
+        MarkdownRenderService service = new MarkdownRenderService(1024 * 1024, 16);
+
+        String html = service.render(1L, "a.md", utf8("# 제목\n\n| a | b |\n|---|---|\n| 1 | 2 |\n\n~~del~~\n"));
+
+        assertThat(html).contains("<h1>제목</h1>");
+        assertThat(html).contains("<table>");
+        assertThat(html).contains("<del>del</del>");
+    }
+
+    @Test
+    @DisplayName("render - 원시 HTML은 이스케이프")
+    void render_escapesRawHtml() {
+        MarkdownRenderService service = new MarkdownRenderService(1024 * 1024, 16);
+
+        String html = service.render(1L, "x.md", utf8("<script>alert(1)</script>\n"));
+
+        assertThat(html).doesNotContain("<script>");
+    }
+
+    @Test
+    @DisplayName("render - 같은 내용이면 다른 경로라도 캐시된 결과 재사용")
+    void render_sameContent_returnsCachedInstance() {
+        MarkdownRenderService service = new MarkdownRenderService(1024 * 1024, 16);
+
+        String first = service.render(1L, "a.md", utf8("# Shared"));
+        String second = service.render(2L, "b.md", utf8("# Shared"));
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("remove - 한 경로를 삭제해도 같은 내용의 다른 문서 렌더링 결과는 유지")
+    void remove_keepsSharedContentEntry() {
+        MarkdownRenderService service = new MarkdownRenderService(1024 * 1024, 16);
+        String first = service.render(1L, "a.md", utf8("# Doc"));
+        long cached = service.getCachedBytes();
+
+        service.remove(1L, "a.md");
+
+        assertThat(service.getCachedBytes()).isEqualTo(cached);
+        assertThat(service.render(2L, "b.md", utf8("# Doc"))).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("캐시 한도 초과 시 오래된 항목부터 제거")
+    void cache_evictsBySize() {
+        MarkdownRenderService service = new MarkdownRenderService(200, 16);
+
+        service.render(1L, "a.md", utf8("# " + "a".repeat(40)));
+        service.render(1L, "b.md", utf8("# " + "b".repeat(40)));
+        service.render(1L, "c.md", utf8("# " + "c".repeat(40)));
+
+        assertThat(service.getCachedBytes()).isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("블록 단위 렌더링 결과는 전체 렌더링과 동일")
+    void render_blocks_matchFullRender() {
+        MarkdownRenderService service = new MarkdownRenderService(1024 * 1024, 16);
+        String doc = "# Title\n\npara one\n\n- a\n\n- b\n\n```\ncode\n\nmore\n```\n\n> quote\n";
+
+        String html = service.render(1L, "a.md", utf8(doc));
+
+        assertThat(MarkdownBlockSplitter.split(doc)).hasSize(5);
+        assertThat(html).contains("<li>\n<p>a</p>").contains("<pre><code>code\n\nmore\n</code></pre>");
+    }
+
+    @Test
+    @DisplayName("링크 참조 정의가 있으면 블록 분할하지 않음")
+    void split_linkReference_returnsNull() {
+        assertThat(MarkdownBlockSplitter.split("[x]\n\n[x]: https://example.com\n")).isNull();
+    }
+
+    @Test
+    @DisplayName("renderPatch - 한 블록만 바뀌면 해당 블록만 포함")
+    void renderPatch_singleBlockEdit_returnsOneBlock() {
+        MarkdownRenderService service = new MarkdownRenderService(1024 * 1024, 16);
+        String before = "# A\n\nfirst\n\nsecond\n\nthird\n";
+        String after = "# A\n\nfirst\n\nSECOND\n\nthird\n";
+        RenderPatch initial = service.renderPatch(1L, "a.md", before);
+
+        RenderPatch patch = service.renderPatch(1L, "a.md", after);
+
+        assertThat(initial.isFull()).isTrue();
+        assertThat(patch.isFull()).isFalse();
+        assertThat(patch.getBaseHash()).isEqualTo(initial.getHash());
+        assertThat(patch.getStart()).isEqualTo(2);
+        assertThat(patch.getDeleteCount()).isEqualTo(1);
+        assertThat(patch.getBlocks()).isEqualTo(List.of("<p>SECOND</p>\n"));
+        assertThat(patch.getBlockCount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("remove - 삭제 후에는 전체 패치")
+    void remove_dropsTree() {
+        MarkdownRenderService service = new MarkdownRenderService(1024 * 1024, 16);
+        service.renderPatch(1L, "a.md", "# A\n");
+
+        service.remove(1L, "a.md");
+
+        assertThat(service.renderPatch(1L, "a.md", "# A\n").isFull()).isTrue();
+    }
+}
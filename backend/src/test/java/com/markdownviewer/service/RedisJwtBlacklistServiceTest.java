@@ -0,0 +1,84 @@
+package com.markdownviewer.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * RedisJwtBlacklistService 단위 테스트
+ * 블룸 필터가 없음이면 Redis 조회 생략, 추가·시작 시 구성된 토큰은 Redis로 확인
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisJwtBlacklistServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private Cursor<String> cursor;
+
+    private RedisJwtBlacklistService service;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        service = new RedisJwtBlacklistService(redisTemplate, listenerContainer, 1000);
+    }
+
+    @Test
+    @DisplayName("contains - 필터에 없는 토큰은 Redis를 조회하지 않음")
+    void contains_unknownToken_skipsRedis() {
+        when(cursor.hasNext()).thenReturn(false);
+        service.init();
+
+        assertThat(service.contains("never-logged-out")).isFalse();
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    @DisplayName("contains - 시작 시 SCAN으로 읽은 토큰은 Redis로 확인")
+    void contains_scannedToken_checksRedis() {
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn("jwt:blacklist:old-token");
+        when(redisTemplate.hasKey("jwt:blacklist:old-token")).thenReturn(true);
+        service.init();
+
+        assertThat(service.contains("old-token")).isTrue();
+    }
+
+    @Test
+    @DisplayName("add - 추가한 토큰은 필터에 반영되고 다른 노드에 통지")
+    @SuppressWarnings("unchecked")
+    void add_putsLocalAndPublishes() {
+        when(cursor.hasNext()).thenReturn(false);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(redisTemplate.hasKey("jwt:blacklist:new-token")).thenReturn(true);
+        service.init();
+
+        service.add("new-token", 60_000);
+
+        verify(ops).set(eq("jwt:blacklist:new-token"), eq("1"), any(Duration.class));
+        verify(redisTemplate).convertAndSend(eq(RedisJwtBlacklistService.CHANNEL), anyString());
+        assertThat(service.contains("new-token")).isTrue();
+    }
+}
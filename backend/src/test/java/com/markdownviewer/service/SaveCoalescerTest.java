@@ -0,0 +1,143 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.entity.User;
+import com.markdownviewer.service.SaveCoalescer.PendingSave;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * SaveCoalescer 단위 테스트
+ * 창 안의 저장 병합, 반영 전 버퍼 조회, 반영 실패 시 버퍼 유지·재시도 한도 검증
+ */
+class SaveCoalescerTest {
+
+    private final User user = User.builder().id(1L).googleSub("sub-1").email("test@example.com").build();
+    private final List<String> flushed = new CopyOnWriteArrayList<>();
+    private SaveCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new SaveCoalescer(60_000, mock(PlatformTransactionManager.class));
+        coalescer.setFlusher(save -> flushed.add(text(save)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("창 안의 연속 저장은 마지막 내용만 한 번 반영")
+    void submit_burstWithinWindow_flushesLatestOnce() throws Exception {
+        coalescer.shutdown();
+        CountDownLatch done = new CountDownLatch(1);
+        coalescer = new SaveCoalescer(100, mock(PlatformTransactionManager.class));
+        coalescer.setFlusher(save -> {
+            flushed.add(text(save));
+            done.countDown();
+        });
+
+        for (int i = 1; i <= 5; i++) {
+            String content = "v" + i;
+            coalescer.submit(1L, "a.md", previous -> save(content));
+        }
+        assertThat(coalescer.peek(1L, "a.md")).map(SaveCoalescerTest::text).contains("v5");
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        coalescer.flush(1L, "a.md"); // 진행 중인 반영이 끝날 때까지 대기
+        assertThat(flushed).containsExactly("v5");
+        assertThat(coalescer.peek(1L, "a.md")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("update는 직전 버퍼를 받고, 예외를 던지면 버퍼는 그대로")
+    void submit_updateSeesPreviousAndFailureKeepsBuffer() throws Exception {
+        coalescer.submit(1L, "a.md", previous -> save("first"));
+        coalescer.submit(1L, "a.md", previous -> save(text(previous) + "+second"));
+
+        assertThatThrownBy(() -> coalescer.submit(1L, "a.md", previous -> {
+            throw new IllegalArgumentException("FILE_CONFLICT");
+        })).hasMessage("FILE_CONFLICT");
+
+        assertThat(coalescer.peek(1L, "a.md")).map(SaveCoalescerTest::text).contains("first+second");
+        assertThat(flushed).isEmpty();
+    }
+
+    @Test
+    @DisplayName("반영에 실패하면 버퍼를 유지해 다시 읽을 수 있음")
+    void flush_failure_keepsBuffer() throws Exception {
+        coalescer.setFlusher(save -> {
+            throw new IOException("disk full");
+        });
+        coalescer.submit(1L, "a.md", previous -> save("keep"));
+
+        assertThatThrownBy(() -> coalescer.flush(1L, "a.md")).isInstanceOf(IOException.class);
+        assertThat(coalescer.peek(1L, "a.md")).map(SaveCoalescerTest::text).contains("keep");
+    }
+
+    @Test
+    @DisplayName("예약된 반영이 재시도 한도까지 실패하면 버퍼를 버리고 dropper 호출")
+    void flushScheduled_retriesExhausted_dropsSave() throws Exception {
+        coalescer.shutdown();
+        CountDownLatch droppedLatch = new CountDownLatch(1);
+        List<String> dropped = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        coalescer = new SaveCoalescer(10, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(coalescer, "retryDelayMs", 10L);
+        ReflectionTestUtils.setField(coalescer, "maxRetries", 2);
+        coalescer.setFlusher(save -> {
+            attempts.incrementAndGet();
+            throw new IOException("disk full");
+        });
+        coalescer.setDropper(save -> {
+            dropped.add(text(save));
+            droppedLatch.countDown();
+        });
+
+        coalescer.submit(1L, "a.md", previous -> save("lost"));
+
+        assertThat(droppedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dropped).containsExactly("lost");
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(coalescer.peek(1L, "a.md")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("discard는 반영 없이 버퍼 제거, 종료 시 남은 버퍼는 모두 반영")
+    void discardAndShutdown() throws Exception {
+        coalescer.submit(1L, "deleted.md", previous -> save("gone"));
+        coalescer.submit(1L, "kept.md", previous -> save("kept"));
+
+        assertThat(coalescer.discard(1L, "deleted.md")).isPresent();
+        coalescer.shutdown();
+
+        assertThat(flushed).containsExactly("kept");
+        assertThat(coalescer.size()).isZero();
+    }
+
+    private PendingSave save(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return new PendingSave(user, "a.md", bytes, "hash-" + content, false, null, null, LocalDateTime.now());
+    }
+
+    private static String text(PendingSave save) {
+        return new String(save.content(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * StorageQuotaService 단위 테스트
+ */
+@ExtendWith(MockitoExtension.class)
+class StorageQuotaServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SaveCoalescer saveCoalescer;
+
+    @InjectMocks
+    private StorageQuotaService storageQuotaService;
+
+    @Test
+    @DisplayName("reserve - 조건부 UPDATE가 0행이면 STORAGE_QUOTA_EXCEEDED")
+    void reserve_overQuota_throws() {
+        when(userRepository.reserveStorage(1L, 100L)).thenReturn(0);
+
+        assertThatThrownBy(() -> storageQuotaService.reserve(1L, 100L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("STORAGE_QUOTA_EXCEEDED");
+    }
+
+    @Test
+    @DisplayName("reserve - 증가분이 없으면 DB 갱신 없음")
+    void reserve_noGrowth_skipsUpdate() {
+        storageQuotaService.reserve(1L, -5L);
+        storageQuotaService.reserve(1L, 0L);
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("reconcile - 사용자별 단일 UPDATE로 보정, 반영 전 버퍼가 있는 사용자는 건너뜀")
+    void reconcile_correctsDriftedUsers() {
+        when(userRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(saveCoalescer.hasPending(anyLong())).thenAnswer(inv -> inv.getArgument(0).equals(3L));
+        when(userRepository.reconcileStorageUsed(1L)).thenReturn(0);
+        when(userRepository.reconcileStorageUsed(2L)).thenReturn(1);
+
+        int corrected = storageQuotaService.reconcile();
+
+        assertThat(corrected).isEqualTo(1);
+        verify(userRepository, never()).reconcileStorageUsed(3L);
+    }
+}
@@ -0,0 +1,117 @@
+package com.markdownviewer.service;
+
+import com.markdownviewer.util.HashUtil;
+import com.markdownviewer.util.LineDelta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * VersionStore 단위 테스트
+ * 줄 단위 델타 왕복, 델타 저장 크기, 사슬 상한, 같은 내용 공유, 정리 시 델타 기준 객체 유지 검증
+ */
+class VersionStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private VersionStore versionStore;
+
+    @BeforeEach
+    void setUp() {
+        versionStore = new VersionStore(new AtomicFileWriter("none", 0), tempDir.toString(), 2);
+    }
+
+    @Test
+    @DisplayName("LineDelta - 고친 줄만 INSERT, 나머지는 COPY로 복원")
+    void lineDelta_roundTrip() {
+        byte[] base = document(200, -1).getBytes(StandardCharsets.UTF_8);
+        byte[] target = (document(200, 100) + "추가된 마지막 줄").getBytes(StandardCharsets.UTF_8);
+
+        byte[] delta = LineDelta.encode(base, target);
+
+        assertThat(LineDelta.apply(base, delta)).isEqualTo(target);
+        assertThat(delta.length).isLessThan(120);
+        assertThat(LineDelta.apply(base, LineDelta.encode(base, new byte[0]))).isEmpty();
+        assertThatThrownBy(() -> LineDelta.apply(new byte[0], delta)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("put/read - 직전 버전 대비 델타로 저장해 편집량만큼만 차지, 읽으면 원래 내용")
+    void put_storesDeltaAgainstBase() throws IOException {
+        byte[] v1 = document(2000, -1).getBytes(StandardCharsets.UTF_8);
+        byte[] v2 = document(2000, 1000).getBytes(StandardCharsets.UTF_8);
+        String h1 = HashUtil.sha256Hex(v1);
+        String h2 = HashUtil.sha256Hex(v2);
+
+        versionStore.put(1L, h1, v1, null);
+        versionStore.put(1L, h2, v2, h1);
+
+        assertThat(versionStore.read(1L, h1)).isEqualTo(v1);
+        assertThat(versionStore.read(1L, h2)).isEqualTo(v2);
+        assertThat(Files.size(object(h2))).isLessThan(Files.size(object(h1)) / 10);
+    }
+
+    @Test
+    @DisplayName("put - 사슬 상한에 이르면 전체 저장, 같은 내용은 다시 쓰지 않음")
+    void put_chainLimitAndDedup() throws IOException {
+        String previous = null;
+        String[] hashes = new String[4];
+        for (int i = 0; i < 4; i++) {
+            byte[] content = document(500, i).getBytes(StandardCharsets.UTF_8);
+            hashes[i] = HashUtil.sha256Hex(content);
+            versionStore.put(1L, hashes[i], content, previous);
+            previous = hashes[i];
+        }
+        // 깊이 0, 1, 2 다음은 상한(2) → 전체
+        assertThat(Files.size(object(hashes[3]))).isGreaterThan(Files.size(object(hashes[2])) * 5);
+
+        long before = Files.getLastModifiedTime(object(hashes[1])).toMillis();
+        versionStore.put(1L, hashes[1], document(500, 1).getBytes(StandardCharsets.UTF_8), hashes[3]);
+        assertThat(Files.getLastModifiedTime(object(hashes[1])).toMillis()).isEqualTo(before);
+        assertThat(versionStore.read(1L, hashes[2])).isEqualTo(document(500, 2).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("sweep - 남은 버전과 그 델타 기준 객체만 유지")
+    void sweep_keepsLiveAndTheirBases() throws IOException {
+        byte[] v1 = document(500, -1).getBytes(StandardCharsets.UTF_8);
+        byte[] v2 = document(500, 10).getBytes(StandardCharsets.UTF_8);
+        byte[] other = "unrelated".getBytes(StandardCharsets.UTF_8);
+        String h1 = HashUtil.sha256Hex(v1);
+        String h2 = HashUtil.sha256Hex(v2);
+        String h3 = HashUtil.sha256Hex(other);
+        versionStore.put(1L, h1, v1, null);
+        versionStore.put(1L, h2, v2, h1);
+        versionStore.put(1L, h3, other, null);
+
+        assertThat(versionStore.sweep(1L, Set.of(h2))).isEqualTo(1);
+
+        assertThat(versionStore.read(1L, h2)).isEqualTo(v2);
+        assertThatThrownBy(() -> versionStore.read(1L, h3)).isInstanceOf(NoSuchFileException.class);
+    }
+
+    private Path object(String hash) {
+        return tempDir.resolve("users").resolve("1").resolve("versions").resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /** lines줄 문서 (changedLine 번째 줄만 다름, -1이면 원본) */
+    private static String document(int lines, int changedLine) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append(i == changedLine ? "# 고친 제목 " : "본문 줄 ").append(i).append(" lorem ipsum dolor sit amet\n");
+        }
+        return sb.toString();
+    }
+}
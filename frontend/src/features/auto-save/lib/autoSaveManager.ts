@@ -1,12 +1,13 @@
 /**
  * 자동 저장 관리자
  * localStorage 즉시 저장 + 서버 주기적 저장
+ * 서버 내용 해시(baseHash)를 알면 바뀐 구간만 PATCH로 전송하고, 충돌·실패 시 전체 저장으로 대체
  * 
  * @see docs/10_design/11_REQUIREMENTS.md - FR-5.2 (자동 저장 기능 요구사항)
  * @see docs/40_frontend/41_CODING_CONVENTIONS.md - FSD 아키텍처 (features/lib 레이어), 비즈니스 로직 분리
  */
 
-import { saveFile } from '@features/file-management';
+import { saveFile, patchFile, diffToEdit } from '@features/file-management';
 import type { SaveStatus } from '@shared/types';
 
 export interface AutoSaveConfig {
@@ -30,6 +31,7 @@ export class AutoSaveManager {
   private filePath: string | null = null;
   private currentContent: string = '';
   private originalContent: string = '';
+  private baseHash: string | null = null; // originalContent의 서버 해시
   private isSaving: boolean = false;
 
   constructor(
@@ -47,9 +49,10 @@ export class AutoSaveManager {
   /**
    * 파일 설정 및 자동 저장 시작
    */
-  start(filePath: string, content: string): void {
+  start(filePath: string, content: string, contentHash?: string): void {
     this.filePath = filePath;
     this.originalContent = content;
+    this.baseHash = contentHash ?? null;
     this.currentContent = content;
     this.changeCount = 0;
     this.lastSaveTime = Date.now();
@@ -98,6 +101,7 @@ export class AutoSaveManager {
     this.filePath = null;
     this.currentContent = '';
     this.originalContent = '';
+    this.baseHash = null;
     this.changeCount = 0;
   }
 
@@ -151,6 +155,24 @@ export class AutoSaveManager {
     }
   }
 
+  /**
+   * 변경분 PATCH 우선, 기준 해시가 없거나 충돌·실패면 전체 저장
+   */
+  private async sendToServer(filePath: string, content: string): Promise<boolean> {
+    const edit = diffToEdit(this.originalContent, content);
+    if (this.baseHash && edit) {
+      const result = await patchFile(filePath, this.baseHash, [edit]);
+      if (result.status === 'saved') {
+        this.baseHash = result.contentHash;
+        return true;
+      }
+    }
+
+    const success = await saveFile(filePath, content, false);
+    this.baseHash = success ? await sha256Hex(content) : null;
+    return success;
+  }
+
   /**
    * localStorage에 저장
    */
@@ -182,10 +204,11 @@ export class AutoSaveManager {
     this.callbacks.onStatusChange?.('saving');
 
     try {
-      const success = await saveFile(this.filePath, this.currentContent, false);
+      const content = this.currentContent;
+      const success = await this.sendToServer(this.filePath, content);
 
       if (success) {
-        this.originalContent = this.currentContent;
+        this.originalContent = content;
         this.changeCount = 0;
         this.lastSaveTime = Date.now();
         this.callbacks.onStatusChange?.('saved');
@@ -209,3 +232,14 @@ export class AutoSaveManager {
     }
   }
 }
+
+/**
+ * UTF-8 내용의 SHA-256 (서버 contentHash와 같은 값). Web Crypto를 쓸 수 없으면 null
+ */
+async function sha256Hex(content: string): Promise<string | null> {
+  if (!globalThis.crypto?.subtle) {
+    return null;
+  }
+  const digest = await globalThis.crypto.subtle.digest('SHA-256', new TextEncoder().encode(content));
+  return Array.from(new Uint8Array(digest), (b) => b.toString(16).padStart(2, '0')).join('');
+}
@@ -2,11 +2,14 @@ export {
   getFileList,
   readFile,
   saveFile,
+  patchFile,
+  diffToEdit,
   uploadFile,
   deleteFile,
   getLastDocument,
   checkFileModified,
 } from './lib/fileService';
+export type { TextEdit, PatchFileResult } from './lib/fileService';
 
 export { FileUploadDialog } from './ui/FileUploadDialog';
 export type { FileUploadDialogProps } from './ui/FileUploadDialog';
@@ -8,6 +8,8 @@ import {
   getFileList,
   readFile,
   saveFile,
+  patchFile,
+  diffToEdit,
   deleteFile,
   getLastDocument,
   checkFileModified,
@@ -137,6 +139,43 @@ describe('fileService', () => {
     });
   });
 
+  describe('patchFile', () => {
+    it('성공 시 새 contentHash를 반환하고 PATCH로 편집만 전송한다', async () => {
+      (globalThis.fetch as ReturnType<typeof vi.fn>).mockResolvedValueOnce({
+        ok: true,
+        json: async () => ({ success: true, data: { path: 'p.md', contentHash: 'new' } }),
+      });
+
+      const result = await patchFile('p.md', 'base', [{ start: 0, end: 5, text: 'Hi' }]);
+      expect(result).toEqual({ status: 'saved', contentHash: 'new' });
+      const call = (globalThis.fetch as ReturnType<typeof vi.fn>).mock.calls[0];
+      expect(call[1]?.method).toBe('PATCH');
+      expect(JSON.parse(call[1]?.body as string)).toEqual({
+        baseHash: 'base',
+        edits: [{ start: 0, end: 5, text: 'Hi' }],
+      });
+    });
+
+    it('409 FILE_CONFLICT면 conflict를 반환한다', async () => {
+      (globalThis.fetch as ReturnType<typeof vi.fn>).mockResolvedValueOnce({
+        ok: false,
+        status: 409,
+        json: async () => ({ success: false, error: { code: 'FILE_CONFLICT', message: 'conflict' } }),
+      });
+
+      const result = await patchFile('p.md', 'stale', []);
+      expect(result).toEqual({ status: 'conflict' });
+    });
+  });
+
+  describe('diffToEdit', () => {
+    it('공통 접두사·접미사를 제외한 구간만 편집으로 만든다', () => {
+      expect(diffToEdit('Hello World', 'Hello Brave World')).toEqual({ start: 6, end: 6, text: 'Brave ' });
+      expect(diffToEdit('abcabc', 'abc')).toEqual({ start: 3, end: 6, text: '' });
+      expect(diffToEdit('same', 'same')).toBeNull();
+    });
+  });
+
   describe('deleteFile', () => {
     it('기본 호출 시 secure 없이 DELETE 요청한다', async () => {
       (globalThis.fetch as ReturnType<typeof vi.fn>).mockResolvedValueOnce({
@@ -85,6 +85,72 @@ export async function saveFile(
   }
 }
 
+/**
+ * 부분 저장 편집: 기준 내용의 [start, end) 구간(UTF-16 오프셋)을 text로 교체
+ */
+export interface TextEdit {
+  start: number;
+  end: number;
+  text: string;
+}
+
+export type PatchFileResult =
+  | { status: 'saved'; contentHash: string }
+  | { status: 'conflict' }
+  | { status: 'failed' };
+
+/**
+ * 파일 부분 저장 (PATCH)
+ * baseHash가 서버의 현재 내용과 다르면 conflict (호출자가 전체 저장 또는 다시 불러오기로 처리)
+ */
+export async function patchFile(
+  path: string,
+  baseHash: string,
+  edits: TextEdit[]
+): Promise<PatchFileResult> {
+  try {
+    const encodedPath = encodeURIComponent(path);
+    const response = await apiClient.patch<FileMetadata>(`/files/${encodedPath}`, { baseHash, edits });
+
+    if (response.success && response.data?.contentHash) {
+      return { status: 'saved', contentHash: response.data.contentHash };
+    }
+    return { status: 'failed' };
+  } catch (error) {
+    if ((error as ApiResponse)?.error?.code === 'FILE_CONFLICT') {
+      return { status: 'conflict' };
+    }
+    console.error('Failed to patch file:', error);
+    return { status: 'failed' };
+  }
+}
+
+/**
+ * 두 문자열의 차이를 공통 접두사·접미사를 제외한 편집 1개로 표현 (같으면 null)
+ */
+export function diffToEdit(base: string, next: string): TextEdit | null {
+  if (base === next) {
+    return null;
+  }
+  const max = Math.min(base.length, next.length);
+  let prefix = 0;
+  while (prefix < max && base.charCodeAt(prefix) === next.charCodeAt(prefix)) {
+    prefix++;
+  }
+  let suffix = 0;
+  while (
+    suffix < max - prefix &&
+    base.charCodeAt(base.length - 1 - suffix) === next.charCodeAt(next.length - 1 - suffix)
+  ) {
+    suffix++;
+  }
+  return {
+    start: prefix,
+    end: base.length - suffix,
+    text: next.slice(prefix, next.length - suffix),
+  };
+}
+
 /**
  * 파일 업로드
  */
@@ -710,7 +710,7 @@ export class ViewerPage {
           },
         }
       );
-      this.autoSaveManager.start(this.currentFile.path, content);
+      this.autoSaveManager.start(this.currentFile.path, content, this.currentFile.contentHash);
     }
   }
 
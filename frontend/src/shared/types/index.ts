@@ -38,6 +38,7 @@ export interface FileMetadata {
   size?: number;
   lastModified: string;
   encrypted?: boolean;
+  contentHash?: string; // 저장된 내용 SHA-256 (부분 저장 기준 버전)
 }
 
 // 파일 내용
@@ -52,6 +53,7 @@ export interface FileContent {
   tag?: string;
   lastModified: string;
   size: number;
+  contentHash?: string; // 저장된 내용 SHA-256 (부분 저장 기준 버전)
 }
 
 // 저장 상태